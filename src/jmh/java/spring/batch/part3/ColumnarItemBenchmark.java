@@ -0,0 +1,79 @@
+package spring.batch.part3;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * CsvItemBenchmark와 같은 데이터를 ColumnarPersonItemWriter/Reader로 쓰고 읽는 시간
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnarItemBenchmark {
+
+  private static final int CHUNK_SIZE = 100;
+
+  @Param({"10000", "100000"})
+  public int size;
+
+  private Path input;
+  private Path output;
+  private List<Person> items;
+
+  @Setup
+  public void setUp() throws Exception {
+    input = Files.createTempFile("persons-", ".pcol");
+    output = Files.createTempFile("persons-output-", ".pcol");
+    items = PersonDatasets.persons(size);
+    write(input);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(output);
+  }
+
+  @Benchmark
+  public void read(Blackhole blackhole) throws Exception {
+    ColumnarPersonItemReader itemReader = ItemReaderConfiguration.columnarItemReader(
+        new FileSystemResource(input));
+    itemReader.open(new ExecutionContext());
+
+    Person person;
+    while ((person = itemReader.read()) != null) {
+      blackhole.consume(person);
+    }
+    itemReader.close();
+  }
+
+  @Benchmark
+  public void write() throws Exception {
+    write(output);
+  }
+
+  private void write(Path path) throws Exception {
+    ColumnarPersonItemWriter itemWriter = ItemWriterConfiguration.columnarItemWriter(path);
+    itemWriter.open(new ExecutionContext());
+
+    for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+      itemWriter.write(new Chunk<>(items.subList(from, Math.min(from + CHUNK_SIZE, items.size()))));
+    }
+    itemWriter.close();
+  }
+}
@@ -0,0 +1,78 @@
+package spring.batch.part3;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.FlatFileItemWriter;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * ItemReaderConfiguration/ItemWriterConfiguration의 CSV Reader/Writer로 전체 파일을 읽고 쓰는 시간
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvItemBenchmark {
+
+  private static final int CHUNK_SIZE = 100;
+
+  @Param({"10000", "100000"})
+  public int size;
+
+  private Path input;
+  private Path output;
+  private List<Person> items;
+
+  @Setup
+  public void setUp() throws Exception {
+    input = PersonDatasets.csvFile(size);
+    output = Files.createTempFile("persons-output-", ".csv");
+    items = PersonDatasets.persons(size);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(output);
+  }
+
+  @Benchmark
+  public void read(Blackhole blackhole) throws Exception {
+    FlatFileItemReader<Person> itemReader = ItemReaderConfiguration.csvFileItemReader(
+        new FileSystemResource(input));
+    itemReader.open(new ExecutionContext());
+
+    Person person;
+    while ((person = itemReader.read()) != null) {
+      blackhole.consume(person);
+    }
+    itemReader.close();
+  }
+
+  @Benchmark
+  public void write() throws Exception {
+    Files.deleteIfExists(output);
+    FlatFileItemWriter<Person> itemWriter = ItemWriterConfiguration.csvFileItemWriter(
+        new FileSystemResource(output));
+    itemWriter.open(new ExecutionContext());
+
+    for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+      itemWriter.write(new Chunk<>(items.subList(from, Math.min(from + CHUNK_SIZE, items.size()))));
+    }
+    itemWriter.close();
+  }
+}
@@ -0,0 +1,48 @@
+package spring.batch.part3;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * cardinality(size)와 중복 비율, key 저장소에 따른 DuplicateValidationProcessor 처리 시간
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DuplicateValidationProcessorBenchmark {
+
+  @Param({"10000", "1000000"})
+  public int size;
+
+  @Param({"0.0", "0.5", "0.9"})
+  public double duplicateRatio;
+
+  @Param({"hash", "fingerprint", "off_heap"})
+  public String keyStore;
+
+  private List<Person> items;
+
+  @Setup
+  public void setUp() {
+    items = PersonDatasets.persons(size, duplicateRatio);
+  }
+
+  @Benchmark
+  public void process(Blackhole blackhole) throws Exception {
+    DuplicateValidationProcessor<Person> processor = new DuplicateValidationProcessor<>(
+        Person::getName, false, DuplicateKeyStores.create(keyStore, false));
+
+    for (Person person : items) {
+      blackhole.consume(processor.process(person));
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package spring.batch.part3;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.support.ListItemReader;
+
+/**
+ * CustomItemReader와 ListItemReader로 전체 item을 읽는 시간을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemReaderBenchmark {
+
+  @Param({"1000", "10000"})
+  public int size;
+
+  private List<Person> items;
+
+  @Setup
+  public void setUp() {
+    items = PersonDatasets.persons(size);
+  }
+
+  @Benchmark
+  public void customItemReader(Blackhole blackhole) throws Exception {
+    readAll(new CustomItemReader<>(items), blackhole);
+  }
+
+  @Benchmark
+  public void listItemReader(Blackhole blackhole) throws Exception {
+    readAll(new ListItemReader<>(items), blackhole);
+  }
+
+  private void readAll(ItemReader<Person> itemReader, Blackhole blackhole) throws Exception {
+    Person person;
+    while ((person = itemReader.read()) != null) {
+      blackhole.consume(person);
+    }
+  }
+}
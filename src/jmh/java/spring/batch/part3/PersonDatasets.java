@@ -0,0 +1,60 @@
+package spring.batch.part3;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 벤치마크용 Person 데이터를 생성한다. 같은 인자로 호출하면 항상 같은 데이터를 만든다.
+ */
+final class PersonDatasets {
+
+  private static final String[] ADDRESSES = {"서울", "떡잎마을", "올블루", "부산", "대전"};
+
+  private PersonDatasets() {
+  }
+
+  /**
+   * @param duplicateRatio 이름이 앞에서 나온 이름과 겹치는 item의 비율 (0 ~ 1)
+   */
+  static List<Person> persons(int size, double duplicateRatio) {
+    Random random = new Random(42);
+    int distinct = Math.max(1, (int) Math.round(size * (1 - duplicateRatio)));
+
+    List<Person> items = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int nameIndex = i < distinct ? i : random.nextInt(distinct);
+      items.add(new Person(i + 1, "name" + nameIndex, String.valueOf(20 + i % 50),
+          ADDRESSES[i % ADDRESSES.length]));
+    }
+    return items;
+  }
+
+  static List<Person> persons(int size) {
+    return persons(size, 0);
+  }
+
+  /**
+   * ItemReaderConfiguration.csvFileItemReader가 읽는 형식(id,이름,나이,거주지)의 CSV 파일을 만든다.
+   */
+  static Path csvFile(int size) throws IOException {
+    Path file = Files.createTempFile("persons-", ".csv");
+    file.toFile().deleteOnExit();
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write("id,이름,나이,거주지");
+      writer.newLine();
+      for (Person person : persons(size)) {
+        writer.write(person.getId() + "," + person.getName() + "," + person.getAge() + ","
+            + person.getAddress());
+        writer.newLine();
+      }
+    }
+    return file;
+  }
+}
@@ -0,0 +1,42 @@
+package spring.batch.part3;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 이름이 있는 경우(happy path)와 없는 경우(retry path)의 item당 처리 시간
+ * mode=retry가 기존 방식(모든 item을 RetryTemplate으로 처리), mode=fast가 재시도 없는 검증이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PersonValidationRetryProcessorBenchmark {
+
+  @Param({"fast", "retry"})
+  public String mode;
+
+  private PersonValidationRetryProcessor processor;
+
+  @Setup
+  public void setUp() {
+    processor = new PersonValidationRetryProcessor(PersonValidationRetryProcessor.Mode.of(mode));
+  }
+
+  @Benchmark
+  public Person happyPath() throws Exception {
+    return processor.process(new Person("한성민", "24", "서울"));
+  }
+
+  @Benchmark
+  public Person retryPath() throws Exception {
+    // unknownName()이 item을 바꾸므로 매번 새 item을 만든다.
+    return processor.process(new Person("", "24", "서울"));
+  }
+}
@@ -0,0 +1,72 @@
+package spring.batch.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.DefaultExecutionContextSerializer;
+
+/**
+ * entry 수에 따른 ExecutionContext 직렬화/역직렬화 시간 (DefaultExecutionContextSerializer 대비)
+ * 직렬화된 크기는 serializedSize()로 함께 확인한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExecutionContextSerializerBenchmark {
+
+  @Param({"10", "1000"})
+  public int entries;
+
+  @Param({"default", "compact", "compact_deflate"})
+  public String serializer;
+
+  private ExecutionContextSerializer executionContextSerializer;
+  private Map<String, Object> context;
+  private byte[] serialized;
+
+  @Setup
+  public void setUp() throws Exception {
+    executionContextSerializer = switch (serializer) {
+      case "compact" -> new CompactExecutionContextSerializer(false);
+      case "compact_deflate" -> new CompactExecutionContextSerializer(true);
+      default -> new DefaultExecutionContextSerializer();
+    };
+
+    // SharedConfiguration처럼 문자열과 숫자를 섞어서 넣는다.
+    context = new HashMap<>();
+    for (int i = 0; i < entries; i++) {
+      context.put("stepKey" + i, "step execution context " + i);
+      context.put("read.count" + i, (long) i * 1_000);
+    }
+    serialized = serialize();
+  }
+
+  @Benchmark
+  public byte[] serialize() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    executionContextSerializer.serialize(context, output);
+    return output.toByteArray();
+  }
+
+  @Benchmark
+  public Map<String, Object> deserialize() throws Exception {
+    return executionContextSerializer.deserialize(new ByteArrayInputStream(serialized));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  public int serializedSize() {
+    return serialized.length;
+  }
+}
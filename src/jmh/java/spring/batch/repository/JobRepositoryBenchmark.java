@@ -0,0 +1,109 @@
+package spring.batch.repository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * chunk 크기 1로 CHUNKS개의 chunk를 처리하는 job 한 번의 실행 시간 (메타데이터 기록 방식별)
+ * direct와의 차이를 CHUNKS로 나누면 chunk당 절약되는 메타데이터 기록 비용이다.
+ * storage=file 이면 H2 file DB를 사용해 디스크 I/O까지 포함한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JobRepositoryBenchmark {
+
+  private static final int CHUNKS = 100;
+
+  @Param({"direct", "buffered", "final_only"})
+  public String mode;
+
+  @Param({"mem", "file"})
+  public String storage;
+
+  private Path directory;
+  private JobRepository jobRepository;
+  private DataSourceTransactionManager transactionManager;
+  private TaskExecutorJobLauncher jobLauncher;
+  private List<Integer> items;
+  private long runId;
+
+  @Setup
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("job-repository-");
+    String url = "mem".equals(storage) ? "jdbc:h2:mem:" + directory.getFileName()
+        + ";DB_CLOSE_DELAY=-1" : "jdbc:h2:file:" + directory.resolve("batch");
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+    new ResourceDatabasePopulator(
+        new ClassPathResource("org/springframework/batch/core/schema-h2.sql"))
+        .execute(dataSource);
+    transactionManager = new DataSourceTransactionManager(dataSource);
+
+    JobRepositoryFactoryBean factoryBean = new JobRepositoryFactoryBean();
+    factoryBean.setDataSource(dataSource);
+    factoryBean.setTransactionManager(transactionManager);
+    factoryBean.afterPropertiesSet();
+    jobRepository = "direct".equals(mode) ? factoryBean.getObject()
+        : BufferedJobRepositoryInterceptor.proxy(factoryBean.getObject(),
+            BufferedJobRepositoryInterceptor.Mode.of(mode), Duration.ofMillis(100),
+            "benchmarkJob"::equals);
+
+    items = IntStream.range(0, CHUNKS).boxed().toList();
+    jobLauncher = new TaskExecutorJobLauncher();
+    jobLauncher.setJobRepository(jobRepository);
+    jobLauncher.afterPropertiesSet();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    if (jobRepository instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+    FileSystemUtils.deleteRecursively(directory.toFile());
+  }
+
+  @Benchmark
+  public JobExecution run() throws Exception {
+    // ListItemReader는 읽은 item을 소비하므로 실행마다 새로 만든다.
+    Job job = new JobBuilder("benchmarkJob", jobRepository)
+        .start(new StepBuilder("benchmarkStep", jobRepository)
+            .<Integer, Integer>chunk(1, transactionManager)
+            .reader(new ListItemReader<>(items))
+            .writer(chunk -> {
+            })
+            .build())
+        .preventRestart()
+        .build();
+
+    return jobLauncher.run(job, new JobParametersBuilder()
+        .addLong("run", ++runId)
+        .toJobParameters());
+  }
+}
@@ -0,0 +1,103 @@
+package spring.batch;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.converter.DefaultJobParametersConverter;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * context가 모두 뜬 뒤 spring.batch.job.names(job.name)에 지정한 job만 찾아서 실행한다.
+ * job bean은 이 때 처음 만들어지므로 lazy-initialization(fast-startup profile)과 함께 쓰면 실행하지 않는 job/step은 만들지 않는다.
+ * 실행 인자의 key=value는 JobParameters로 변환하고, incrementer가 있으면 다음 파라미터를 만든다.
+ * <pre>
+ * --spring.profiles.active=fast-startup --job.name=savePersonJob allow_duplicate=false
+ * </pre>
+ */
+@Component
+@Slf4j
+public class SelectiveJobLauncherApplicationRunner implements ApplicationRunner {
+
+  private final ListableBeanFactory beanFactory;
+  private final JobLauncher jobLauncher;
+  private final JobExplorer jobExplorer;
+  private final List<String> jobNames;
+
+  public SelectiveJobLauncherApplicationRunner(ListableBeanFactory beanFactory,
+      JobLauncher jobLauncher, JobExplorer jobExplorer,
+      @Value("${spring.batch.job.names:}") String jobNames) {
+    this.beanFactory = beanFactory;
+    this.jobLauncher = jobLauncher;
+    this.jobExplorer = jobExplorer;
+    this.jobNames = Arrays.stream(jobNames.split(","))
+        .map(String::trim)
+        .filter(name -> !name.isEmpty() && !"NONE".equals(name))
+        .toList();
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    log.info("context started in {} ms (JVM uptime)",
+        ManagementFactory.getRuntimeMXBean().getUptime());
+
+    JobParameters jobParameters = jobParameters(args);
+    for (String jobName : jobNames) {
+      Job job = findJob(jobName);
+      if (job == null) {
+        log.warn("job을 찾을 수 없습니다 : {}", jobName);
+        continue;
+      }
+
+      JobParameters parameters = job.getJobParametersIncrementer() == null ? jobParameters
+          : new JobParametersBuilder(jobParameters, jobExplorer).getNextJobParameters(job)
+              .toJobParameters();
+      JobExecution jobExecution = jobLauncher.run(job, parameters);
+      log.info("{} : {}", jobName, jobExecution.getStatus());
+    }
+  }
+
+  /**
+   * bean 이름이 job 이름과 같으면 그 bean만 만들고, 아니면 Job bean을 하나씩 만들어 이름을 비교한다.
+   */
+  private Job findJob(String jobName) {
+    if (beanFactory.containsBean(jobName) && beanFactory.isTypeMatch(jobName, Job.class)) {
+      return beanFactory.getBean(jobName, Job.class);
+    }
+
+    for (String beanName : beanFactory.getBeanNamesForType(Job.class, false, false)) {
+      try {
+        Job job = beanFactory.getBean(beanName, Job.class);
+        if (jobName.equals(job.getName())) {
+          return job;
+        }
+      } catch (BeansException e) {
+        log.debug("job bean을 만들 수 없습니다 : {}", beanName, e);
+      }
+    }
+    return null;
+  }
+
+  private static JobParameters jobParameters(ApplicationArguments args) {
+    Properties properties = new Properties();
+    for (String arg : args.getNonOptionArgs()) {
+      int index = arg.indexOf('=');
+      if (index > 0) {
+        properties.setProperty(arg.substring(0, index), arg.substring(index + 1));
+      }
+    }
+    return new DefaultJobParametersConverter().getJobParameters(properties);
+  }
+}
@@ -0,0 +1,102 @@
+package spring.batch.part3;
+
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+
+/**
+ * chunk마다 걸린 시간(커밋 포함)과 처리량(items/s)을 재서 다음 chunk 크기를 [minChunkSize, maxChunkSize] 안에서 조정한다.
+ * 커밋 시간이 목표를 넘으면 줄이고, 그렇지 않으면 처리량이 좋아지는 방향으로 계속 키우거나 줄인다.
+ * 목표를 넘어 줄인 뒤 다시 목표 안으로 들어오면 키우는 방향으로 되돌린다.
+ * 선택한 크기는 ExecutionContext에 저장하므로 재시작 시 마지막 크기부터 시작한다.
+ * step에 listener(ChunkListener)와 stream(ItemStream)으로 함께 등록해야 한다.
+ */
+@Slf4j
+public class AdaptiveCompletionPolicy extends SimpleCompletionPolicy implements ChunkListener,
+    ItemStream {
+
+  private static final String CHUNK_SIZE_KEY = "adaptiveCompletionPolicy.chunk.size";
+  private static final double FACTOR = 1.5;
+  private static final double TOLERANCE = 0.05;
+
+  private final int minChunkSize;
+  private final int maxChunkSize;
+  private final long targetCommitNanos;
+
+  private int direction = 1;
+  private boolean overTarget;
+  private double lastThroughput;
+  private long chunkStart;
+  private long readCountBefore;
+
+  public AdaptiveCompletionPolicy(int initialChunkSize, int minChunkSize, int maxChunkSize,
+      Duration targetCommitLatency) {
+    this.minChunkSize = minChunkSize;
+    this.maxChunkSize = maxChunkSize;
+    this.targetCommitNanos = targetCommitLatency.toNanos();
+    setChunkSize(clamp(initialChunkSize));
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    if (executionContext.containsKey(CHUNK_SIZE_KEY)) {
+      setChunkSize(clamp(executionContext.getInt(CHUNK_SIZE_KEY)));
+      log.info("adaptive chunk size restored : {}", getChunkSize());
+    }
+  }
+
+  /**
+   * chunk 커밋 직전(afterChunk 전)에 호출된다. 이번 chunk에 사용한(커밋되는) 크기를 저장한다.
+   */
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    executionContext.putInt(CHUNK_SIZE_KEY, getChunkSize());
+  }
+
+  @Override
+  public void beforeChunk(ChunkContext context) {
+    chunkStart = System.nanoTime();
+    readCountBefore = context.getStepContext().getStepExecution().getReadCount();
+  }
+
+  @Override
+  public void afterChunk(ChunkContext context) {
+    long nanos = Math.max(System.nanoTime() - chunkStart, 1);
+    long items = context.getStepContext().getStepExecution().getReadCount() - readCountBefore;
+
+    // 마지막 chunk처럼 크기를 다 채우지 못한 chunk는 측정에서 제외한다.
+    if (items < getChunkSize()) {
+      return;
+    }
+
+    double throughput = items * 1e9 / nanos;
+    if (nanos > targetCommitNanos) {
+      direction = -1;
+      overTarget = true;
+    } else if (overTarget) {
+      // 느렸던 chunk의 처리량과는 비교하지 않고 다시 키워 본다.
+      direction = 1;
+      overTarget = false;
+    } else if (lastThroughput > 0 && throughput < lastThroughput * (1 - TOLERANCE)) {
+      direction = -direction;
+    }
+    lastThroughput = throughput;
+
+    int next = clamp(direction > 0 ? (int) Math.ceil(getChunkSize() * FACTOR)
+        : (int) Math.floor(getChunkSize() / FACTOR));
+    if (next != getChunkSize()) {
+      log.debug("chunk size {} -> {} ({} items/s, {} ms)", getChunkSize(), next,
+          Math.round(throughput), nanos / 1_000_000);
+      setChunkSize(next);
+    }
+  }
+
+  private int clamp(int chunkSize) {
+    return Math.max(minChunkSize, Math.min(maxChunkSize, chunkSize));
+  }
+}
@@ -0,0 +1,43 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * AsyncItemProcessor로 chunk의 item을 모두 별도 thread에 넘긴 뒤, Future를 풀어서 ChunkResults에 기록하는 processor
+ * Future를 processor 쪽에서 풀기 때문에 결과가 null인 item은 filter로, processor의 예외는 그 item의 process 실패로
+ * BulkChunkProcessor가 집계한다. (skip 되면 onSkipInProcess가 호출된다)
+ * <p>
+ * 중복 검사는 item마다 다른 thread에서 실행되므로, 같은 key의 item 중 어느 것이 남을지는 thread 실행 순서에 따라
+ * 달라진다. 남는 건수는 동기 처리와 같다.
+ */
+public class AsyncChunkItemProcessor<I, O> implements ChunkItemProcessor<I, O> {
+
+  private final ItemProcessor<I, Future<O>> asyncItemProcessor;
+
+  public AsyncChunkItemProcessor(ItemProcessor<I, Future<O>> asyncItemProcessor) {
+    this.asyncItemProcessor = asyncItemProcessor;
+  }
+
+  @Override
+  public void process(List<? extends I> items, ChunkResults<O> results) throws Exception {
+    List<Future<O>> futures = new ArrayList<>(items.size());
+    for (I item : items) {
+      futures.add(asyncItemProcessor.process(item));
+    }
+
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.set(i, futures.get(i).get());
+      } catch (ExecutionException e) {
+        if (!(e.getCause() instanceof Exception cause)) {
+          throw e;
+        }
+        results.fail(i, cause);
+      }
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package spring.batch.part3;
+
+/**
+ * 다른 저장소 앞에 두는 Bloom filter
+ * 필터가 "없음"이라고 하면 확실히 새로운 key이므로 delegate 조회를 건너뛰고,
+ * "있을 수도 있음"이라고 하면 delegate로 정확히 다시 확인한다.
+ */
+public class BloomFilterDuplicateKeyStore implements DuplicateKeyStore {
+
+  private final DuplicateKeyStore delegate;
+  private final long[] bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  public BloomFilterDuplicateKeyStore(DuplicateKeyStore delegate, long expectedKeys,
+      double falsePositiveRate) {
+    long n = Math.max(1, expectedKeys);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.delegate = delegate;
+    this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6)];
+    this.bitCount = (long) bits.length << 6;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  @Override
+  public synchronized boolean add(String key) {
+    long fingerprint = FingerprintDuplicateKeyStore.fingerprint(key);
+
+    if (!mightContain(fingerprint)) {
+      set(fingerprint);
+      delegate.addUnchecked(key);
+      return true;
+    }
+
+    return delegate.add(key);
+  }
+
+  @Override
+  public synchronized boolean contains(String key) {
+    return mightContain(FingerprintDuplicateKeyStore.fingerprint(key)) && delegate.contains(key);
+  }
+
+  @Override
+  public synchronized void addUnchecked(String key) {
+    set(FingerprintDuplicateKeyStore.fingerprint(key));
+    delegate.addUnchecked(key);
+  }
+
+  @Override
+  public long size() {
+    return delegate.size();
+  }
+
+  @Override
+  public long memoryUsage() {
+    return (long) bits.length * Long.BYTES + delegate.memoryUsage();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  private boolean mightContain(long fingerprint) {
+    long h1 = fingerprint;
+    long h2 = (fingerprint >>> 32) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void set(long fingerprint) {
+    long h1 = fingerprint;
+    long h2 = (fingerprint >>> 32) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+}
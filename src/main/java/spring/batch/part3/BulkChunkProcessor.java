@@ -0,0 +1,99 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.listener.CompositeItemWriteListener;
+import org.springframework.batch.core.listener.CompositeSkipListener;
+import org.springframework.batch.core.step.item.ChunkProcessor;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+/**
+ * ChunkItemProcessor로 chunk 전체를 한 번에 처리한 뒤 writer에 넘기는 ChunkProcessor
+ * 실패는 ChunkResults에 기록된 item 단위로 SkipPolicy에 묻는다. skip 하면 그 item만 빼고,
+ * skip 할 수 없으면 예외를 던져 chunk를 rollback 한다.
+ * onSkipInProcess는 write가 성공한 뒤에 호출하므로, rollback 되는 chunk의 skip은 listener에 알리지 않는다.
+ * ChunkOrientedTasklet에 SimpleChunkProvider와 함께 넣어 사용한다.
+ */
+public class BulkChunkProcessor<I, O> implements ChunkProcessor<I> {
+
+  private final ChunkItemProcessor<I, O> itemProcessor;
+  private final ItemWriter<? super O> itemWriter;
+  private final SkipPolicy skipPolicy;
+  private final CompositeItemWriteListener<O> writeListener = new CompositeItemWriteListener<>();
+  private final CompositeSkipListener<I, O> skipListener = new CompositeSkipListener<>();
+
+  public BulkChunkProcessor(ChunkItemProcessor<I, O> itemProcessor,
+      ItemWriter<? super O> itemWriter, SkipPolicy skipPolicy) {
+    this.itemProcessor = itemProcessor;
+    this.itemWriter = itemWriter;
+    this.skipPolicy = skipPolicy;
+  }
+
+  /**
+   * ItemWriteListener, SkipListener를 등록한다.
+   */
+  @SuppressWarnings("unchecked")
+  public void registerListener(Object listener) {
+    if (listener instanceof ItemWriteListener<?> itemWriteListener) {
+      writeListener.register((ItemWriteListener<? super O>) itemWriteListener);
+    }
+    if (listener instanceof SkipListener<?, ?> itemSkipListener) {
+      skipListener.register((SkipListener<? super I, ? super O>) itemSkipListener);
+    }
+  }
+
+  @Override
+  public void process(StepContribution contribution, Chunk<I> inputs) throws Exception {
+    if (inputs.isEmpty()) {
+      return;
+    }
+
+    ChunkResults<O> results = new ChunkResults<>(inputs.size());
+    itemProcessor.process(inputs.getItems(), results);
+
+    Chunk<O> outputs = new Chunk<>();
+    List<Integer> skipped = new ArrayList<>();
+    int filtered = 0;
+    for (int i = 0; i < results.size(); i++) {
+      Exception failure = results.failure(i);
+      if (failure != null) {
+        // skip 한도를 넘으면 SkipLimitExceededException이 발생한다.
+        if (!skipPolicy.shouldSkip(failure, contribution.getStepSkipCount())) {
+          throw failure;
+        }
+        contribution.incrementProcessSkipCount();
+        skipped.add(i);
+        continue;
+      }
+
+      O output = results.output(i);
+      if (output == null) {
+        filtered++;
+      } else {
+        outputs.add(output);
+      }
+    }
+    contribution.incrementFilterCount(filtered);
+
+    if (!outputs.isEmpty()) {
+      writeListener.beforeWrite(outputs);
+      try {
+        itemWriter.write(outputs);
+      } catch (Exception e) {
+        writeListener.onWriteError(e, outputs);
+        throw e;
+      }
+      writeListener.afterWrite(outputs);
+      contribution.incrementWriteCount(outputs.size());
+    }
+
+    for (int i : skipped) {
+      skipListener.onSkipInProcess(inputs.getItems().get(i), results.failure(i));
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.core.io.Resource;
+
+/**
+ * 파일의 [startOffset, endOffset) byte 범위만 줄 단위로 읽는 Reader
+ * 읽은 위치(byte offset)를 ExecutionContext에 저장하므로 재시작 시 이어서 읽는다.
+ */
+public class ByteRangeItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+  private static final String OFFSET_KEY = "offset";
+
+  private final Resource resource;
+  private final LineMapper<T> lineMapper;
+  private final long startOffset;
+  private final long endOffset;
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+  private byte[] line = new byte[256];
+
+  private FileChannel channel;
+  private long position;
+  private int lineNumber;
+
+  public ByteRangeItemReader(Resource resource, LineMapper<T> lineMapper, long startOffset,
+      long endOffset) {
+    this.resource = resource;
+    this.lineMapper = lineMapper;
+    this.startOffset = startOffset;
+    this.endOffset = endOffset;
+    setName(ByteRangeItemReader.class.getSimpleName());
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    String key = getExecutionContextKey(OFFSET_KEY);
+    position = executionContext.containsKey(key) ? executionContext.getLong(key) : startOffset;
+
+    try {
+      channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+      channel.position(position);
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 열 수 없습니다 : " + resource, e);
+    }
+
+    buffer.clear().flip();
+  }
+
+  @Override
+  public T read() throws Exception {
+    if (position >= endOffset) {
+      return null;
+    }
+
+    String text = readLine();
+    if (text == null) {
+      return null;
+    }
+
+    return lineMapper.mapLine(text, ++lineNumber);
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+  }
+
+  @Override
+  public void close() throws ItemStreamException {
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 닫을 수 없습니다 : " + resource, e);
+    } finally {
+      channel = null;
+    }
+  }
+
+  private String readLine() throws IOException {
+    int length = 0;
+
+    while (true) {
+      if (!buffer.hasRemaining()) {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+
+        if (read <= 0) {
+          return length == 0 ? null : decode(length);
+        }
+      }
+
+      byte b = buffer.get();
+      position++;
+
+      if (b == '\n') {
+        return decode(length);
+      }
+
+      if (length == line.length) {
+        line = Arrays.copyOf(line, length * 2);
+      }
+      line[length++] = b;
+    }
+  }
+
+  private String decode(int length) {
+    if (length > 0 && line[length - 1] == '\r') {
+      length--;
+    }
+    return new String(line, 0, length, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,104 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+
+/**
+ * 입력 파일을 줄 단위로 맞춰진 byte 범위로 나누는 Partitioner
+ * 각 파티션의 ExecutionContext에 [startOffset, endOffset) 범위를 담는다.
+ */
+public class ByteRangePartitioner implements Partitioner {
+
+  public static final String START_OFFSET = "startOffset";
+  public static final String END_OFFSET = "endOffset";
+
+  private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+  private final Resource resource;
+  private final int linesToSkip;
+
+  public ByteRangePartitioner(Resource resource, int linesToSkip) {
+    this.resource = resource;
+    this.linesToSkip = linesToSkip;
+  }
+
+  @Override
+  public Map<String, ExecutionContext> partition(int gridSize) {
+    Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+
+    try (FileChannel channel = FileChannel.open(resource.getFile().toPath(),
+        StandardOpenOption.READ)) {
+      long size = channel.size();
+      long dataStart = skipLines(channel, 0, linesToSkip);
+      long dataSize = size - dataStart;
+
+      long start = dataStart;
+      for (int i = 0; i < gridSize && start < size; i++) {
+        long end = (i == gridSize - 1) ? size
+            : nextLineStart(channel, dataStart + dataSize * (i + 1) / gridSize);
+
+        if (end <= start) {
+          continue; // 한 줄이 여러 구간에 걸친 경우 빈 파티션은 만들지 않는다.
+        }
+
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(START_OFFSET, start);
+        context.putLong(END_OFFSET, end);
+        partitions.put("partition" + i, context);
+
+        start = end;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("파일을 파티션으로 나눌 수 없습니다 : " + resource, e);
+    }
+
+    return partitions;
+  }
+
+  private long skipLines(FileChannel channel, long position, int lines) throws IOException {
+    for (int i = 0; i < lines; i++) {
+      position = nextLineStart(channel, position + 1);
+    }
+    return position;
+  }
+
+  /**
+   * position 바로 앞 byte부터 개행 문자를 찾아, 그 다음 줄의 시작 위치를 반환한다.
+   */
+  private long nextLineStart(FileChannel channel, long position) throws IOException {
+    long size = channel.size();
+    if (position <= 0) {
+      return 0;
+    }
+    if (position >= size) {
+      return size;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    long offset = position - 1;
+
+    while (offset < size) {
+      buffer.clear();
+      int read = channel.read(buffer, offset);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return offset + i + 1;
+        }
+      }
+      offset += read;
+    }
+
+    return size;
+  }
+}
@@ -0,0 +1,299 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Person을 reflection 없이 CSV 한 줄로 만들어 direct ByteBuffer를 거쳐 FileChannel에 쓰는 Writer
+ * header, footer는 csvFileItemWriter와 같다.
+ * gzip을 켜면 step 동안 Deflater 하나로 하나의 gzip member를 쓴다. chunk마다 SYNC_FLUSH로 byte 경계를 맞추고,
+ * close에서만 finish 해서 trailer(CRC, 크기)를 붙인다.
+ * 커밋된 byte 위치를 ExecutionContext에 저장하고 재시작 시 그 위치로 잘라내며,
+ * chunk가 rollback되면 그 chunk에서 쓴 부분을 잘라낸다. gzip이면 남은 부분을 다시 풀어 CRC와 크기를 복원하고,
+ * 잘라낸 data를 참조하지 않도록 새 Deflater로 이어서 쓴다.
+ */
+public class ChannelPersonItemWriter extends ItemStreamSupport implements
+    ItemStreamWriter<Person> {
+
+  private static final String POSITION_KEY = "position";
+  private static final String HEADER = "id,이름,나이,거주지\n";
+  private static final String FOOTER = "---------------\n";
+  // GZIPOutputStream과 같은 header (magic, CM=deflate, flag/mtime/xfl/os 없음)
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0,
+      0, 0};
+
+  private final Path path;
+  private final boolean gzip;
+  private final StringBuilder lines = new StringBuilder(8 * 1024);
+
+  private int bufferSize = 1024 * 1024;
+  private boolean forceSync;
+
+  private ByteBuffer buffer;
+  private FileChannel channel;
+
+  private final byte[] deflateBuffer = new byte[64 * 1024];
+  private Deflater deflater;
+  private CRC32 crc;
+  private long uncompressedSize;
+
+  public ChannelPersonItemWriter(Path path, boolean gzip) {
+    this.path = path;
+    this.gzip = gzip;
+    setName(ChannelPersonItemWriter.class.getSimpleName());
+  }
+
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * true 이면 chunk마다 FileChannel.force로 디스크에 반영한다.
+   */
+  public void setForceSync(boolean forceSync) {
+    this.forceSync = forceSync;
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    String key = getExecutionContextKey(POSITION_KEY);
+    buffer = ByteBuffer.allocateDirect(bufferSize);
+
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+      if (executionContext.containsKey(key)) {
+        // 재시작 : 마지막 커밋 이후에 쓴 부분을 버린다.
+        long position = executionContext.getLong(key);
+        channel.truncate(position);
+        channel.position(position);
+        if (gzip) {
+          restoreGzip(position);
+        }
+        return;
+      }
+
+      channel.truncate(0);
+      if (gzip) {
+        put(GZIP_HEADER, 0, GZIP_HEADER.length);
+        restoreGzip(GZIP_HEADER.length);
+      }
+      write(HEADER);
+      syncFlush();
+      executionContext.putLong(key, channel.position());
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 열 수 없습니다 : " + path, e);
+    }
+  }
+
+  @Override
+  public void write(Chunk<? extends Person> items) throws Exception {
+    long start = channel.position();
+    truncateOnRollback(start);
+
+    lines.setLength(0);
+    for (Person person : items) {
+      lines.append(person.getId()).append(',')
+          .append(person.getName()).append(',')
+          .append(person.getAge()).append(',')
+          .append(person.getAddress()).append('\n');
+    }
+
+    write(lines.toString());
+    syncFlush();
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      if (forceSync) {
+        channel.force(false);
+      }
+      executionContext.putLong(getExecutionContextKey(POSITION_KEY), channel.position());
+    } catch (IOException e) {
+      throw new ItemStreamException("파일 위치를 저장할 수 없습니다 : " + path, e);
+    }
+  }
+
+  @Override
+  public void close() throws ItemStreamException {
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      write(FOOTER);
+      if (gzip) {
+        finishGzip();
+      }
+      flush();
+      channel.close();
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 닫을 수 없습니다 : " + path, e);
+    } finally {
+      if (deflater != null) {
+        deflater.end();
+      }
+      deflater = null;
+      channel = null;
+      buffer = null;
+    }
+  }
+
+  private void write(String text) throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    if (!gzip) {
+      put(bytes, 0, bytes.length);
+      return;
+    }
+
+    crc.update(bytes);
+    uncompressedSize += bytes.length;
+    deflater.setInput(bytes);
+    while (!deflater.needsInput()) {
+      put(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+    }
+  }
+
+  /**
+   * 지금까지 쓴 내용을 byte 경계까지 압축해서(SYNC_FLUSH) 파일에 쓴다. 커밋 시점의 위치는 항상 이 경계이다.
+   */
+  private void syncFlush() throws IOException {
+    if (gzip) {
+      int length;
+      do {
+        length = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+        put(deflateBuffer, 0, length);
+      } while (length == deflateBuffer.length);
+    }
+    flush();
+  }
+
+  private void finishGzip() throws IOException {
+    deflater.finish();
+    while (!deflater.finished()) {
+      put(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+    }
+
+    byte[] trailer = new byte[8];
+    writeIntLe(trailer, 0, crc.getValue());
+    writeIntLe(trailer, 4, uncompressedSize);
+    put(trailer, 0, trailer.length);
+  }
+
+  private static void writeIntLe(byte[] bytes, int offset, long value) {
+    for (int i = 0; i < 4; i++) {
+      bytes[offset + i] = (byte) (value >>> (8 * i));
+    }
+  }
+
+  /**
+   * gzip header 뒤부터 position까지의 압축된 내용을 풀어 CRC와 크기를 다시 계산하고, 새 Deflater로 이어서 쓸 준비를 한다.
+   * position은 SYNC_FLUSH 경계이므로 새 Deflater가 쓰는 block을 그대로 이어 붙일 수 있다.
+   */
+  private void restoreGzip(long position) throws IOException {
+    if (deflater != null) {
+      deflater.end();
+    }
+    deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    crc = new CRC32();
+    uncompressedSize = 0;
+
+    Inflater inflater = new Inflater(true);
+    try {
+      ByteBuffer input = ByteBuffer.allocate(deflateBuffer.length);
+      byte[] output = new byte[deflateBuffer.length];
+      long offset = GZIP_HEADER.length;
+      while (offset < position) {
+        input.clear().limit((int) Math.min(input.capacity(), position - offset));
+        int read = channel.read(input, offset);
+        if (read <= 0) {
+          break;
+        }
+        offset += read;
+
+        inflater.setInput(input.array(), 0, read);
+        int length;
+        while ((length = inflater.inflate(output)) > 0) {
+          crc.update(output, 0, length);
+          uncompressedSize += length;
+        }
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("gzip 내용을 복원할 수 없습니다 : " + path, e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private void put(byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      int size = Math.min(length, buffer.remaining());
+      buffer.put(bytes, offset, size);
+      offset += size;
+      length -= size;
+    }
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * step transaction이 rollback되면 이번 chunk에서 쓴 부분을 잘라낸다. (FlatFileItemWriter의 transactional 동작)
+   */
+  private void truncateOnRollback(long position) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_ROLLED_BACK || channel == null) {
+          return;
+        }
+        try {
+          buffer.clear();
+          channel.truncate(position);
+          channel.position(position);
+          if (gzip) {
+            restoreGzip(position);
+          }
+        } catch (IOException e) {
+          throw new ItemStreamException("rollback된 chunk를 잘라낼 수 없습니다 : " + path, e);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,61 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * item 하나씩이 아니라 chunk 전체를 한 번에 처리하는 processor (BulkChunkProcessor에서 사용)
+ * item별 결과와 실패는 ChunkResults에 입력과 같은 index로 기록한다.
+ */
+@FunctionalInterface
+public interface ChunkItemProcessor<I, O> {
+
+  void process(List<? extends I> items, ChunkResults<O> results) throws Exception;
+
+  /**
+   * 기존 ItemProcessor를 chunk 단위로 사용한다. item에서 발생한 예외는 그 item의 실패로 기록한다.
+   */
+  static <I, O> ChunkItemProcessor<I, O> of(ItemProcessor<? super I, ? extends O> itemProcessor) {
+    return (items, results) -> {
+      for (int i = 0; i < items.size(); i++) {
+        try {
+          results.set(i, itemProcessor.process(items.get(i)));
+        } catch (Exception e) {
+          results.fail(i, e);
+        }
+      }
+    };
+  }
+
+  /**
+   * 이 processor가 걸러내거나 실패한 item을 뺀 나머지만 next로 넘기고, 결과를 원래 index로 되돌린다.
+   */
+  default <R> ChunkItemProcessor<I, R> andThen(ChunkItemProcessor<? super O, R> next) {
+    return (items, results) -> {
+      ChunkResults<O> intermediate = new ChunkResults<>(items.size());
+      process(items, intermediate);
+
+      List<O> passed = new ArrayList<>(items.size());
+      int[] indexes = new int[items.size()];
+      for (int i = 0; i < items.size(); i++) {
+        if (intermediate.failure(i) != null) {
+          results.fail(i, intermediate.failure(i));
+        } else if (intermediate.output(i) != null) {
+          indexes[passed.size()] = i;
+          passed.add(intermediate.output(i));
+        }
+      }
+
+      ChunkResults<R> nextResults = new ChunkResults<>(passed.size());
+      next.process(passed, nextResults);
+      for (int j = 0; j < passed.size(); j++) {
+        if (nextResults.failure(j) != null) {
+          results.fail(indexes[j], nextResults.failure(j));
+        } else {
+          results.set(indexes[j], nextResults.output(j));
+        }
+      }
+    };
+  }
+}
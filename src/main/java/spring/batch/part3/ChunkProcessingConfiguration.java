@@ -1,24 +1,24 @@
 package spring.batch.part3;
 
 import io.micrometer.core.instrument.util.StringUtils;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.Step;
-import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
-import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.support.ListItemReader;
-import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -40,16 +40,32 @@ public class ChunkProcessingConfiguration {
     return jobBuilderFactory.get("chunkProcessingJob")
         .incrementer(new RunIdIncrementer())
         .start(this.taskBaseStep())
-        .next(this.chunkBaseStep(null))
+        .next(this.chunkBaseStep(null, null))
         .build();
   }
 
   @Bean
   @JobScope
-  public Step chunkBaseStep(@Value("#{jobParameters[chunkSize]}") String chunkSize) {
+  public Step chunkBaseStep(@Value("#{jobParameters[chunkSize]}") String chunkSize,
+      @Value("#{jobParameters[adaptiveChunk]}") String adaptiveChunk) {
+    int initialChunkSize = StringUtils.isNotEmpty(chunkSize) ? Integer.parseInt(chunkSize) : 10;
+
+    // adaptiveChunk=true 이면 chunkSize에서 시작해 처리 시간에 맞춰 chunk 크기를 조정한다.
+    if (Boolean.parseBoolean(adaptiveChunk)) {
+      AdaptiveCompletionPolicy completionPolicy = new AdaptiveCompletionPolicy(initialChunkSize,
+          1, 100, Duration.ofMillis(500));
+      return stepBuilderFactory.get("chunkBaseStep")
+          .<String, String>chunk(completionPolicy)
+          .reader(itemReader())
+          .processor(itemProcessor())
+          .writer(itemWriter())
+          .listener((ChunkListener) completionPolicy)
+          .stream(completionPolicy)
+          .build();
+    }
+
     return stepBuilderFactory.get("chunkBaseStep")
-        .<String, String>chunk(StringUtils.isNotEmpty(chunkSize) ? Integer.parseInt(chunkSize)
-            : 10) // 100개의 data를 10개씩 나눠서 실행 (총 10회 실행)
+        .<String, String>chunk(initialChunkSize) // 100개의 data를 10개씩 나눠서 실행 (총 10회 실행)
         .reader(itemReader())
         .processor(itemProcessor())
         .writer(itemWriter())
@@ -70,8 +86,10 @@ public class ChunkProcessingConfiguration {
 
   @Bean
   public Step taskBaseStep() {
+    ParallelChunkTasklet<String, String> tasklet = this.tasklet(null, null);
     return stepBuilderFactory.get("taskBaseStep")
-        .tasklet(this.tasklet(null))
+        .tasklet(tasklet)
+        .listener((StepExecutionListener) tasklet) // step이 끝나면 ForkJoinPool을 정리
         .build();
   }
 
@@ -86,28 +104,16 @@ public class ChunkProcessingConfiguration {
   @Bean
   @StepScope
   // Tasklet으로 Chunk 기능 수행하는 메서드
-  public Tasklet tasklet(@Value("#{jobParameters[chunkSize]}") String value) {
-    List<String> items = getItems();
-
-    return ((contribution, chunkContext) -> {
-      StepExecution stepExecution = contribution.getStepExecution();
-      int chunkSize = StringUtils.isNotEmpty(value) ? Integer.parseInt(value) : 10;
-
-      int fromIndex = stepExecution.getReadCount();
-      int toIndex = fromIndex + chunkSize;
-
-      if (fromIndex >= items.size()) {
-        return RepeatStatus.FINISHED;
-      }
-
-      List<String> subList = items.subList(fromIndex, toIndex);
-
-      log.info("task item size : {}", subList.size());
-
-      stepExecution.setReadCount(toIndex);
-
-      return RepeatStatus.CONTINUABLE;
-    });
+  // chunkSize 크기의 slice를 최대 parallelism개씩 동시에 처리한다. (item 수가 chunkSize의 배수가 아니어도 된다)
+  public ParallelChunkTasklet<String, String> tasklet(
+      @Value("#{jobParameters[chunkSize]}") String value,
+      @Value("#{jobParameters[parallelism]}") String parallelism) {
+    int chunkSize = StringUtils.isNotEmpty(value) ? Integer.parseInt(value) : 10;
+    int poolSize = StringUtils.isNotEmpty(parallelism) ? Integer.parseInt(parallelism)
+        : Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    return new ParallelChunkTasklet<>(getItems(), chunkSize, poolSize, itemProcessor(),
+        itemWriter());
   }
 
   private List<String> getItems() {
@@ -0,0 +1,64 @@
+package spring.batch.part3;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * manager가 worker에게 보내는 chunk
+ * chunkKey(job instance id + chunk 순번)는 재시작·재전송되어도 바뀌지 않으며, worker는 이 값으로 중복 처리를 막는다.
+ * allowDuplicate는 manager job의 allow_duplicate 파라미터이고, worker는 jobInstanceId 별로 중복 key를 검사한다.
+ */
+public record ChunkRequest(String chunkKey, long jobInstanceId, boolean allowDuplicate,
+    List<Person> items) {
+
+  /**
+   * 순번을 0으로 채우므로 같은 job instance 안에서는 이름 순서가 곧 전송 순서다.
+   */
+  static String chunkKey(long jobInstanceId, long sequence) {
+    return String.format("%s%012d", keyPrefix(jobInstanceId), sequence);
+  }
+
+  static String keyPrefix(long jobInstanceId) {
+    return jobInstanceId + "-";
+  }
+
+  void writeTo(DataOutputStream output) throws IOException {
+    output.writeUTF(chunkKey);
+    output.writeLong(jobInstanceId);
+    output.writeBoolean(allowDuplicate);
+    output.writeInt(items.size());
+    for (Person person : items) {
+      output.writeInt(person.getId());
+      writeNullable(output, person.getName());
+      writeNullable(output, person.getAge());
+      writeNullable(output, person.getAddress());
+    }
+  }
+
+  static ChunkRequest readFrom(DataInputStream input) throws IOException {
+    String chunkKey = input.readUTF();
+    long jobInstanceId = input.readLong();
+    boolean allowDuplicate = input.readBoolean();
+    int size = input.readInt();
+    List<Person> items = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      items.add(new Person(input.readInt(), readNullable(input), readNullable(input),
+          readNullable(input)));
+    }
+    return new ChunkRequest(chunkKey, jobInstanceId, allowDuplicate, items);
+  }
+
+  private static void writeNullable(DataOutputStream output, String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  private static String readNullable(DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+}
@@ -0,0 +1,42 @@
+package spring.batch.part3;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * worker가 chunk를 커밋한 뒤 manager에게 보내는 응답(ack)
+ * error가 있으면 chunk가 커밋되지 않았다는 의미다.
+ */
+public record ChunkResponse(String chunkKey, int writeCount, int filterCount, String error) {
+
+  static ChunkResponse success(String chunkKey, int writeCount, int filterCount) {
+    return new ChunkResponse(chunkKey, writeCount, filterCount, null);
+  }
+
+  static ChunkResponse failure(String chunkKey, Throwable throwable) {
+    return new ChunkResponse(chunkKey, 0, 0, throwable.toString());
+  }
+
+  boolean isSuccessful() {
+    return error == null;
+  }
+
+  void writeTo(DataOutputStream output) throws IOException {
+    output.writeUTF(chunkKey);
+    output.writeInt(writeCount);
+    output.writeInt(filterCount);
+    output.writeBoolean(error != null);
+    if (error != null) {
+      output.writeUTF(error);
+    }
+  }
+
+  static ChunkResponse readFrom(DataInputStream input) throws IOException {
+    String chunkKey = input.readUTF();
+    int writeCount = input.readInt();
+    int filterCount = input.readInt();
+    String error = input.readBoolean() ? input.readUTF() : null;
+    return new ChunkResponse(chunkKey, writeCount, filterCount, error);
+  }
+}
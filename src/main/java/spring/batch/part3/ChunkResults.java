@@ -0,0 +1,41 @@
+package spring.batch.part3;
+
+/**
+ * ChunkItemProcessor의 처리 결과. 입력 chunk와 같은 순서(index)로 item마다 결과 또는 실패를 담는다.
+ * 결과가 null 이고 실패도 없으면 걸러진(filter) item 이다.
+ */
+public class ChunkResults<O> {
+
+  private final Object[] outputs;
+  private final Exception[] failures;
+
+  public ChunkResults(int size) {
+    this.outputs = new Object[size];
+    this.failures = new Exception[size];
+  }
+
+  public void set(int index, O output) {
+    outputs[index] = output;
+  }
+
+  /**
+   * index 번째 item만 실패로 표시한다. skip 정책은 이 item 하나에만 적용된다.
+   */
+  public void fail(int index, Exception exception) {
+    outputs[index] = null;
+    failures[index] = exception;
+  }
+
+  @SuppressWarnings("unchecked")
+  public O output(int index) {
+    return (O) outputs[index];
+  }
+
+  public Exception failure(int index) {
+    return failures[index];
+  }
+
+  public int size() {
+    return outputs.length;
+  }
+}
@@ -0,0 +1,38 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * remote chunking에서 manager와 worker가 chunk와 응답을 주고받는 통로
+ * 같은 JVM에서는 InMemoryChunkTransport, 같은 장비의 여러 process 사이에서는 DirectoryChunkTransport를 사용한다.
+ */
+public interface ChunkTransport extends AutoCloseable {
+
+  /**
+   * manager → worker
+   */
+  void sendRequest(ChunkRequest request) throws IOException;
+
+  /**
+   * worker가 처리할 chunk를 하나 가져온다. timeout 안에 없으면 null을 반환한다.
+   * 여러 worker가 동시에 호출해도 하나의 chunk는 한 worker에게만 전달된다.
+   */
+  ChunkRequest pollRequest(Duration timeout) throws IOException, InterruptedException;
+
+  /**
+   * worker → manager. chunk 커밋 이후에 호출한다.
+   */
+  void sendResponse(ChunkResponse response) throws IOException;
+
+  /**
+   * jobInstanceId의 chunk에 대한 응답만 가져온다. 다른 job instance(manager)의 응답은 남겨 둔다.
+   * timeout 안에 응답이 없으면 null을 반환한다.
+   */
+  ChunkResponse pollResponse(long jobInstanceId, Duration timeout)
+      throws IOException, InterruptedException;
+
+  @Override
+  default void close() throws IOException {
+  }
+}
@@ -0,0 +1,260 @@
+package spring.batch.part3;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.springframework.batch.item.ParseException;
+
+/**
+ * Person block을 컬럼 단위로 저장하는 binary 파일 형식
+ * <pre>
+ * file   : "PCOL" version(1) block*
+ * block  : rowCount(int) payloadLength(int) crc32(int) payload
+ * payload: id 컬럼 (이전 id와의 차이, zigzag varint)
+ *          name 컬럼 (길이 + 1 varint, UTF-8)
+ *          age, address 컬럼 (사전 : 개수 varint, 문자열들 / 값 : 사전 번호 + 1 varint)
+ * </pre>
+ * 문자열 길이와 사전 번호의 0은 null 이다. block마다 사전을 따로 두므로 어느 block에서든 바로 읽기 시작할 수 있다.
+ */
+final class ColumnarPersonFormat {
+
+  static final byte[] MAGIC = {'P', 'C', 'O', 'L'};
+  static final byte VERSION = 1;
+  static final int FILE_HEADER_SIZE = MAGIC.length + 1;
+  static final int BLOCK_HEADER_SIZE = 12;
+
+  private ColumnarPersonFormat() {
+  }
+
+  static ByteBuffer fileHeader() {
+    return ByteBuffer.allocate(FILE_HEADER_SIZE).put(MAGIC).put(VERSION).flip();
+  }
+
+  static boolean isFileHeader(ByteBuffer buffer) {
+    byte[] magic = new byte[MAGIC.length];
+    buffer.get(0, magic);
+    return Arrays.equals(magic, MAGIC) && buffer.get(MAGIC.length) == VERSION;
+  }
+
+  /**
+   * 한 block을 만든다. 반환한 buffer는 다음 encode 호출 전까지만 유효하다.
+   */
+  static final class Encoder {
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final CRC32 crc32 = new CRC32();
+    private byte[] bytes = new byte[64 * 1024];
+    private int length;
+
+    ByteBuffer encode(List<? extends Person> rows) {
+      length = BLOCK_HEADER_SIZE;
+
+      int previousId = 0;
+      for (Person person : rows) {
+        int delta = person.getId() - previousId;
+        writeVarint((delta << 1) ^ (delta >> 31));
+        previousId = person.getId();
+      }
+      for (Person person : rows) {
+        writeString(person.getName());
+      }
+      writeDictionaryColumn(rows, true);
+      writeDictionaryColumn(rows, false);
+
+      int payloadLength = length - BLOCK_HEADER_SIZE;
+      crc32.reset();
+      crc32.update(bytes, BLOCK_HEADER_SIZE, payloadLength);
+
+      ByteBuffer block = ByteBuffer.wrap(bytes, 0, length);
+      block.putInt(0, rows.size())
+          .putInt(4, payloadLength)
+          .putInt(8, (int) crc32.getValue());
+      return block;
+    }
+
+    private void writeDictionaryColumn(List<? extends Person> rows, boolean age) {
+      dictionary.clear();
+      int[] codes = new int[rows.size()];
+      for (int i = 0; i < codes.length; i++) {
+        String value = age ? rows.get(i).getAge() : rows.get(i).getAddress();
+        codes[i] = value == null ? 0
+            : dictionary.computeIfAbsent(value, key -> dictionary.size() + 1);
+      }
+
+      String[] values = new String[dictionary.size()];
+      dictionary.forEach((value, code) -> values[code - 1] = value);
+      writeVarint(values.length);
+      for (String value : values) {
+        writeString(value);
+      }
+      for (int code : codes) {
+        writeVarint(code);
+      }
+    }
+
+    private void writeString(String value) {
+      if (value == null) {
+        writeVarint(0);
+        return;
+      }
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(utf8.length + 1);
+      ensure(utf8.length);
+      System.arraycopy(utf8, 0, bytes, length, utf8.length);
+      length += utf8.length;
+    }
+
+    private void writeVarint(int value) {
+      ensure(5);
+      while ((value & ~0x7F) != 0) {
+        bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[length++] = (byte) value;
+    }
+
+    private void ensure(int size) {
+      if (length + size > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(length + size, bytes.length * 2));
+      }
+    }
+  }
+
+  /**
+   * block 하나를 컬럼 배열로 풀어 놓은 것. age, address는 사전의 같은 String 인스턴스를 공유한다.
+   */
+  record Block(int[] ids, String[] names, String[] ages, String[] addresses) {
+
+    int size() {
+      return ids.length;
+    }
+
+    Person person(int row) {
+      return new Person(ids[row], names[row], ages[row], addresses[row]);
+    }
+  }
+
+  /**
+   * buffer의 offset 위치에 있는 block을 읽는다. payload의 CRC32가 맞지 않으면 ParseException을 던진다.
+   * header의 행 수, payload 길이와 payload 안의 길이, 개수는 배열을 만들기 전에 block 범위 안인지 확인한다.
+   */
+  static final class Decoder {
+
+    private final CRC32 crc32 = new CRC32();
+    private byte[] scratch = new byte[256];
+    private ByteBuffer buffer;
+    private int position;
+    private int end;
+
+    /**
+     * @return block 전체 크기 (header 포함)
+     */
+    static int blockLength(ByteBuffer buffer, int offset) {
+      int payloadLength = buffer.getInt(offset + 4);
+      if (payloadLength < 0 || payloadLength > Integer.MAX_VALUE - BLOCK_HEADER_SIZE) {
+        throw new ParseException("block 길이가 잘못되었습니다 : offset " + offset + ", payload "
+            + payloadLength);
+      }
+      return BLOCK_HEADER_SIZE + payloadLength;
+    }
+
+    Block decode(ByteBuffer buffer, int offset) {
+      int rows = buffer.getInt(offset);
+      int payloadLength = blockLength(buffer, offset) - BLOCK_HEADER_SIZE;
+      int checksum = buffer.getInt(offset + 8);
+
+      if ((long) offset + BLOCK_HEADER_SIZE + payloadLength > buffer.limit()) {
+        throw new ParseException("block이 잘렸습니다 : offset " + offset + ", payload "
+            + payloadLength);
+      }
+      // 한 행은 적어도 id, name, age, address 값마다 1 byte를 쓴다.
+      if (rows < 0 || rows > payloadLength / 4) {
+        throw new ParseException("block 행 수가 잘못되었습니다 : offset " + offset + ", rows " + rows);
+      }
+
+      crc32.reset();
+      crc32.update(buffer.slice(offset + BLOCK_HEADER_SIZE, payloadLength));
+      if ((int) crc32.getValue() != checksum) {
+        throw new ParseException("block checksum이 맞지 않습니다 : offset " + offset);
+      }
+
+      this.buffer = buffer;
+      this.position = offset + BLOCK_HEADER_SIZE;
+      this.end = position + payloadLength;
+      try {
+        int[] ids = new int[rows];
+        int previousId = 0;
+        for (int i = 0; i < rows; i++) {
+          int zigzag = readVarint();
+          previousId += (zigzag >>> 1) ^ -(zigzag & 1);
+          ids[i] = previousId;
+        }
+
+        String[] names = new String[rows];
+        for (int i = 0; i < rows; i++) {
+          names[i] = readString();
+        }
+        return new Block(ids, names, readDictionaryColumn(rows), readDictionaryColumn(rows));
+      } finally {
+        this.buffer = null;
+      }
+    }
+
+    private String[] readDictionaryColumn(int rows) {
+      int size = readVarint();
+      if (size < 0 || size > end - position) {
+        throw new ParseException("사전 크기가 잘못되었습니다 : offset " + position + ", size " + size);
+      }
+      String[] dictionary = new String[size];
+      for (int i = 0; i < dictionary.length; i++) {
+        dictionary[i] = readString();
+      }
+
+      String[] values = new String[rows];
+      for (int i = 0; i < rows; i++) {
+        int code = readVarint();
+        if (code < 0 || code > dictionary.length) {
+          throw new ParseException("사전 번호가 잘못되었습니다 : offset " + position + ", code " + code);
+        }
+        values[i] = code == 0 ? null : dictionary[code - 1];
+      }
+      return values;
+    }
+
+    private String readString() {
+      int encoded = readVarint();
+      if (encoded == 0) {
+        return null;
+      }
+      int length = encoded - 1;
+      if (length < 0 || length > end - position) {
+        throw new ParseException("문자열 길이가 잘못되었습니다 : offset " + position + ", length " + length);
+      }
+      if (scratch.length < length) {
+        scratch = new byte[Math.max(length, scratch.length * 2)];
+      }
+      buffer.get(position, scratch, 0, length);
+      position += length;
+      return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int readVarint() {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        if (position >= end) {
+          throw new ParseException("block 끝을 넘어 읽었습니다 : offset " + position);
+        }
+        byte b = buffer.get(position++);
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new ParseException("varint가 너무 깁니다 : offset " + (position - 1));
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ParseException;
+import org.springframework.core.io.Resource;
+
+/**
+ * ColumnarPersonItemWriter가 쓴 파일을 FileChannel.map으로 읽는 Reader. block을 통째로 풀어 두고 한 행씩 돌려준다.
+ * 현재 block의 시작 위치와 그 안에서 읽은 행 수를 ExecutionContext에 저장하므로,
+ * 재시작 시 앞의 block을 풀지 않고 바로 그 block으로 건너뛴다.
+ * strict가 false 이면 파일이 없을 때 경고만 남기고 빈 입력으로 처리한다. (FlatFileItemReader와 같다)
+ */
+@Slf4j
+public class ColumnarPersonItemReader extends ItemStreamSupport implements
+    ItemStreamReader<Person> {
+
+  private static final String OFFSET_KEY = "block.offset";
+  private static final String ROW_KEY = "block.row";
+  private static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+  private final Resource resource;
+  private final ColumnarPersonFormat.Decoder decoder = new ColumnarPersonFormat.Decoder();
+
+  private long windowSize = DEFAULT_WINDOW_SIZE;
+  private boolean strict = true;
+  private boolean noInput;
+
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private long bufferStart;
+  private long fileSize;
+
+  private ColumnarPersonFormat.Block block;
+  private long blockOffset;
+  private int blockLength;
+  private int row;
+
+  public ColumnarPersonItemReader(Resource resource) {
+    this.resource = resource;
+    setName(ColumnarPersonItemReader.class.getSimpleName());
+  }
+
+  public void setWindowSize(long windowSize) {
+    this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+  }
+
+  public void setStrict(boolean strict) {
+    this.strict = strict;
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    noInput = !resource.exists();
+    if (noInput) {
+      if (strict) {
+        throw new ItemStreamException("파일이 없습니다 : " + resource);
+      }
+      log.warn("파일이 없어 읽지 않습니다 : {}", resource);
+      return;
+    }
+
+    try {
+      channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+      fileSize = channel.size();
+      block = null;
+      blockLength = 0;
+
+      if (fileSize < ColumnarPersonFormat.FILE_HEADER_SIZE || !ColumnarPersonFormat.isFileHeader(
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, ColumnarPersonFormat.FILE_HEADER_SIZE))) {
+        throw new ItemStreamException("columnar person 파일이 아닙니다 : " + resource);
+      }
+
+      String offsetKey = getExecutionContextKey(OFFSET_KEY);
+      if (executionContext.containsKey(offsetKey)) {
+        // 재시작 : 저장된 block만 풀고 이미 읽은 행을 건너뛴다.
+        long offset = executionContext.getLong(offsetKey);
+        if (offset < fileSize) {
+          load(offset);
+          row = executionContext.getInt(getExecutionContextKey(ROW_KEY), 0);
+        } else {
+          blockOffset = offset;
+        }
+      } else {
+        blockOffset = ColumnarPersonFormat.FILE_HEADER_SIZE;
+      }
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 열 수 없습니다 : " + resource, e);
+    }
+  }
+
+  @Override
+  public Person read() throws Exception {
+    if (noInput) {
+      return null;
+    }
+    while (block == null || row >= block.size()) {
+      long next = blockOffset + blockLength;
+      if (next >= fileSize) {
+        return null;
+      }
+      load(next);
+    }
+    return block.person(row++);
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    if (noInput) {
+      return;
+    }
+    executionContext.putLong(getExecutionContextKey(OFFSET_KEY), blockOffset);
+    executionContext.putInt(getExecutionContextKey(ROW_KEY), row);
+  }
+
+  @Override
+  public void close() throws ItemStreamException {
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 닫을 수 없습니다 : " + resource, e);
+    } finally {
+      channel = null;
+      buffer = null;
+      block = null;
+    }
+  }
+
+  private void load(long offset) throws IOException {
+    map(offset, ColumnarPersonFormat.BLOCK_HEADER_SIZE);
+    int length = ColumnarPersonFormat.Decoder.blockLength(buffer, (int) (offset - bufferStart));
+    map(offset, length);
+
+    block = decoder.decode(buffer, (int) (offset - bufferStart));
+    blockOffset = offset;
+    blockLength = length;
+    row = 0;
+  }
+
+  /**
+   * [offset, offset + length)가 현재 window 밖이면 offset부터 다시 매핑한다.
+   */
+  private void map(long offset, int length) throws IOException {
+    if (offset + length > fileSize) {
+      throw new ParseException("block이 잘렸습니다 : offset " + offset + " in resource=["
+          + resource + "]");
+    }
+    if (buffer != null && offset >= bufferStart
+        && offset + length <= bufferStart + buffer.limit()) {
+      return;
+    }
+
+    long size = Math.min(Math.max(windowSize, length), fileSize - offset);
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+    bufferStart = offset;
+  }
+}
@@ -0,0 +1,150 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Person을 ColumnarPersonFormat으로 쓰는 Writer. chunk를 blockSize 행씩 block으로 나눠 쓴다.
+ * ChannelPersonItemWriter와 같이 커밋된 byte 위치를 ExecutionContext에 저장하고,
+ * 재시작하거나 chunk가 rollback되면 커밋 이후에 쓴 block을 잘라낸다.
+ */
+public class ColumnarPersonItemWriter extends ItemStreamSupport implements
+    ItemStreamWriter<Person> {
+
+  private static final String POSITION_KEY = "position";
+
+  private final Path path;
+  private final ColumnarPersonFormat.Encoder encoder = new ColumnarPersonFormat.Encoder();
+
+  private int blockSize = 1024;
+  private boolean forceSync;
+
+  private FileChannel channel;
+
+  public ColumnarPersonItemWriter(Path path) {
+    this.path = path;
+    setName(ColumnarPersonItemWriter.class.getSimpleName());
+  }
+
+  /**
+   * block 하나에 넣을 최대 행 수. 재시작 시 block 단위로 건너뛰므로 너무 크게 잡지 않는다.
+   */
+  public void setBlockSize(int blockSize) {
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * true 이면 chunk마다 FileChannel.force로 디스크에 반영한다.
+   */
+  public void setForceSync(boolean forceSync) {
+    this.forceSync = forceSync;
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    String key = getExecutionContextKey(POSITION_KEY);
+
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+      if (executionContext.containsKey(key)) {
+        // 재시작 : 마지막 커밋 이후에 쓴 block을 버린다.
+        long position = executionContext.getLong(key);
+        channel.truncate(position);
+        channel.position(position);
+        return;
+      }
+
+      channel.truncate(0);
+      write(ColumnarPersonFormat.fileHeader());
+      executionContext.putLong(key, channel.position());
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 열 수 없습니다 : " + path, e);
+    }
+  }
+
+  @Override
+  public void write(Chunk<? extends Person> items) throws Exception {
+    truncateOnRollback(channel.position());
+
+    for (int from = 0; from < items.size(); from += blockSize) {
+      write(encoder.encode(items.getItems().subList(from,
+          Math.min(from + blockSize, items.size()))));
+    }
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      if (forceSync) {
+        channel.force(false);
+      }
+      executionContext.putLong(getExecutionContextKey(POSITION_KEY), channel.position());
+    } catch (IOException e) {
+      throw new ItemStreamException("파일 위치를 저장할 수 없습니다 : " + path, e);
+    }
+  }
+
+  @Override
+  public void close() throws ItemStreamException {
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 닫을 수 없습니다 : " + path, e);
+    } finally {
+      channel = null;
+    }
+  }
+
+  private void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * step transaction이 rollback되면 이번 chunk에서 쓴 block을 잘라낸다.
+   */
+  private void truncateOnRollback(long position) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_ROLLED_BACK || channel == null) {
+          return;
+        }
+        try {
+          channel.truncate(position);
+          channel.position(position);
+        } catch (IOException e) {
+          throw new ItemStreamException("rollback된 chunk를 잘라낼 수 없습니다 : " + path, e);
+        }
+      }
+    });
+  }
+}
@@ -1,30 +1,103 @@
 package spring.batch.part3;
 
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import org.springframework.batch.item.ItemReader;
-import org.springframework.batch.item.NonTransientResourceException;
-import org.springframework.batch.item.ParseException;
-import org.springframework.batch.item.UnexpectedInputException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
 
 /**
  * Java Collection의 List를 Reader로 처리하는 클래스
+ * List를 복사하지 않고 index cursor로 읽으며, 읽은 개수를 ExecutionContext에 저장해 재시작 시 이어서 읽는다.
+ * List source는 cursor를 AtomicInteger로 증가시키고 Iterator source는 동기화해서 읽으므로
+ * multi-thread step에서도 item이 중복되거나 빠지지 않는다.
  */
-public class CustomItemReader<T> implements ItemReader<T> {
+public class CustomItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+  private static final String READ_COUNT_KEY = "read.count";
 
   private final List<T> items;
+  private final Iterator<T> iterator;
+  private final AtomicInteger cursor = new AtomicInteger();
+
+  private boolean saveState = true;
 
   public CustomItemReader(List<T> items) {
-    this.items = new ArrayList<>(items);
+    this(items, null);
+  }
+
+  public CustomItemReader(Iterator<T> iterator) {
+    this(null, iterator);
+  }
+
+  public CustomItemReader(Spliterator<T> spliterator) {
+    this(null, Spliterators.iterator(spliterator));
+  }
+
+  private CustomItemReader(List<T> items, Iterator<T> iterator) {
+    this.items = items;
+    this.iterator = iterator;
+    setName(CustomItemReader.class.getSimpleName());
+  }
+
+  /**
+   * multi-thread step에서는 chunk 커밋 순서와 읽은 순서가 달라 저장한 위치가 정확하지 않으므로 false로 둔다.
+   */
+  public void setSaveState(boolean saveState) {
+    this.saveState = saveState;
   }
 
   @Override
-  public T read()
-      throws Exception, UnexpectedInputException, ParseException, NonTransientResourceException {
-    if (!items.isEmpty()) {
-      return items.remove(0);
+  public T read() {
+    if (items != null) {
+      int index = cursor.getAndIncrement();
+      if (index < items.size()) {
+        return items.get(index);
+      }
+      cursor.set(items.size());
+      return null; // null을 return하면 chunk 반복이 끝난다는 의미.
     }
 
-    return null; // null을 return하면 chunk 반복이 끝난다는 의미.
+    synchronized (iterator) {
+      if (!iterator.hasNext()) {
+        return null;
+      }
+      cursor.incrementAndGet();
+      return iterator.next();
+    }
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    String key = getExecutionContextKey(READ_COUNT_KEY);
+    if (!saveState || !executionContext.containsKey(key)) {
+      return;
+    }
+
+    int readCount = executionContext.getInt(key);
+    if (items != null) {
+      cursor.set(Math.min(readCount, items.size()));
+      return;
+    }
+
+    // Iterator는 되돌릴 수 없으므로 이미 읽은 개수만큼 건너뛴다.
+    synchronized (iterator) {
+      while (cursor.get() < readCount && iterator.hasNext()) {
+        iterator.next();
+        cursor.incrementAndGet();
+      }
+    }
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    if (saveState) {
+      int readCount = items != null ? Math.min(cursor.get(), items.size()) : cursor.get();
+      executionContext.putInt(getExecutionContextKey(READ_COUNT_KEY), readCount);
+    }
   }
 }
@@ -0,0 +1,145 @@
+package spring.batch.part3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 같은 장비의 여러 process가 공유 디렉터리로 chunk와 응답을 주고받는 ChunkTransport
+ * <pre>
+ * requests/            manager가 보낸 chunk (*.chunk)
+ * claimed/{workerId}/  worker가 가져가서 처리 중인 chunk
+ * responses/           worker가 커밋 후 보낸 응답 ({chunkKey}.ack)
+ * </pre>
+ * 파일은 임시 이름으로 다 쓴 뒤 atomic move로 공개하고, worker는 atomic move에 성공한 chunk만 처리하므로
+ * 하나의 chunk는 한 worker에게만 전달된다.
+ * 같은 workerId로 다시 시작하면 처리 중이던(claimed) chunk를 requests로 되돌린다.
+ * 여러 manager가 같은 디렉터리를 쓰므로, manager는 chunkKey가 자기 job instance id로 시작하는 응답만 가져간다.
+ */
+public class DirectoryChunkTransport implements ChunkTransport {
+
+  private static final String REQUEST_SUFFIX = ".chunk";
+  private static final String RESPONSE_SUFFIX = ".ack";
+  private static final long POLL_INTERVAL_MILLIS = 20;
+
+  private final Path requests;
+  private final Path responses;
+  private final Path claimed;
+
+  public DirectoryChunkTransport(Path directory, String workerId) {
+    this.requests = directory.resolve("requests");
+    this.responses = directory.resolve("responses");
+    this.claimed = directory.resolve("claimed").resolve(workerId);
+
+    try {
+      Files.createDirectories(requests);
+      Files.createDirectories(responses);
+      Files.createDirectories(claimed);
+      for (Path file : list(claimed, "*" + REQUEST_SUFFIX)) {
+        Files.move(file, requests.resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("디렉터리를 준비할 수 없습니다 : " + directory, e);
+    }
+  }
+
+  @Override
+  public void sendRequest(ChunkRequest request) throws IOException {
+    publish(requests, request.chunkKey() + REQUEST_SUFFIX, output -> request.writeTo(output));
+  }
+
+  @Override
+  public ChunkRequest pollRequest(Duration timeout) throws IOException, InterruptedException {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    do {
+      for (Path file : list(requests, "*" + REQUEST_SUFFIX)) {
+        Path target = claimed.resolve(file.getFileName());
+        try {
+          Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+          continue; // 다른 worker가 먼저 가져갔다.
+        }
+        try (DataInputStream input = open(target)) {
+          return ChunkRequest.readFrom(input);
+        }
+      }
+      Thread.sleep(POLL_INTERVAL_MILLIS);
+    } while (System.nanoTime() < deadline);
+    return null;
+  }
+
+  /**
+   * 응답을 공개한 뒤에 claimed chunk를 지운다. 그 사이에 worker가 죽으면 chunk가 다시 전달되지만,
+   * worker의 ledger가 이미 커밋된 chunk를 걸러낸다.
+   */
+  @Override
+  public void sendResponse(ChunkResponse response) throws IOException {
+    publish(responses, response.chunkKey() + RESPONSE_SUFFIX, output -> response.writeTo(output));
+    Files.deleteIfExists(claimed.resolve(response.chunkKey() + REQUEST_SUFFIX));
+  }
+
+  @Override
+  public ChunkResponse pollResponse(long jobInstanceId, Duration timeout)
+      throws IOException, InterruptedException {
+    String prefix = ChunkRequest.keyPrefix(jobInstanceId);
+    long deadline = System.nanoTime() + timeout.toNanos();
+    do {
+      for (Path file : list(responses, prefix + "*" + RESPONSE_SUFFIX)) {
+        ChunkResponse response;
+        try (DataInputStream input = open(file)) {
+          response = ChunkResponse.readFrom(input);
+        } catch (NoSuchFileException e) {
+          continue;
+        }
+        Files.deleteIfExists(file);
+        return response;
+      }
+      Thread.sleep(POLL_INTERVAL_MILLIS);
+    } while (System.nanoTime() < deadline);
+    return null;
+  }
+
+  private void publish(Path directory, String fileName, ContentWriter writer) throws IOException {
+    Path temp = directory.resolve("." + UUID.randomUUID() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      writer.write(output);
+    }
+    Files.move(temp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static DataInputStream open(Path file) throws IOException {
+    return new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+  }
+
+  /**
+   * chunkKey는 순번을 0으로 채워 만들므로 이름 순서가 곧 전송 순서다.
+   */
+  private static List<Path> list(Path directory, String glob) throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+      stream.forEach(files::add);
+    }
+    files.sort(null);
+    return files;
+  }
+
+  @FunctionalInterface
+  private interface ContentWriter {
+
+    void write(DataOutputStream output) throws IOException;
+  }
+}
@@ -0,0 +1,112 @@
+package spring.batch.part3;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * DuplicateValidationProcessor가 새로 본 key를 chunk 단위로 덧붙여 기록하는 파일
+ * 항목은 [UTF-8 길이(int)][UTF-8 byte] 형식이며, 커밋된 길이까지만 유효하다.
+ */
+class DuplicateKeyJournal implements AutoCloseable {
+
+  private final Path path;
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+  private DuplicateKeyJournal(Path path, FileChannel channel) {
+    this.path = path;
+    this.channel = channel;
+  }
+
+  static DuplicateKeyJournal create(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    Path path = Files.createTempFile(directory, "dedup-", ".journal");
+    return new DuplicateKeyJournal(path, FileChannel.open(path, StandardOpenOption.WRITE));
+  }
+
+  /**
+   * 커밋된 길이 이후(실패한 chunk가 남긴 부분)는 잘라내고, 남은 key를 순서대로 consumer에 전달한다.
+   */
+  static DuplicateKeyJournal recover(Path path, long committedLength, Consumer<String> consumer)
+      throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    channel.truncate(committedLength);
+    channel.position(0);
+
+    DataInputStream input = new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+    byte[] bytes = new byte[256];
+    long position = 0;
+    while (position < committedLength) {
+      int length;
+      try {
+        length = input.readInt();
+      } catch (EOFException e) {
+        break;
+      }
+      if (bytes.length < length) {
+        bytes = new byte[Math.max(length, bytes.length * 2)];
+      }
+      input.readFully(bytes, 0, length);
+      consumer.accept(new String(bytes, 0, length, StandardCharsets.UTF_8));
+      position += Integer.BYTES + length;
+    }
+
+    channel.position(committedLength);
+    return new DuplicateKeyJournal(path, channel);
+  }
+
+  Path getPath() {
+    return path;
+  }
+
+  /**
+   * key들을 덧붙이고 디스크에 반영한 뒤 파일 길이를 반환한다.
+   */
+  long append(Iterable<String> keys) throws IOException {
+    for (String key : keys) {
+      byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+      if (buffer.remaining() < Integer.BYTES + bytes.length) {
+        flush();
+      }
+      if (buffer.remaining() < Integer.BYTES + bytes.length) {
+        channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, bytes.length));
+        channel.write(ByteBuffer.wrap(bytes));
+        continue;
+      }
+      buffer.putInt(bytes.length).put(bytes);
+    }
+    flush();
+    channel.force(false);
+    return channel.position();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  void delete() throws IOException {
+    close();
+    Files.deleteIfExists(path);
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,37 @@
+package spring.batch.part3;
+
+/**
+ * DuplicateValidationProcessor가 이미 처리한 key를 기억하는 저장소
+ */
+public interface DuplicateKeyStore extends AutoCloseable {
+
+  /**
+   * key가 처음 들어온 경우 저장하고 true, 이미 있던 key라면 false를 반환한다.
+   */
+  boolean add(String key);
+
+  boolean contains(String key);
+
+  /**
+   * 없다고 이미 확인된 key를 저장한다. 조회 비용이 큰 저장소는 중복 확인을 건너뛴다.
+   */
+  default void addUnchecked(String key) {
+    add(key);
+  }
+
+  long size();
+
+  /**
+   * 저장소가 사용 중인 메모리(heap + off-heap)의 추정치(byte)
+   */
+  long memoryUsage();
+
+  default double bytesPerEntry() {
+    long size = size();
+    return size == 0 ? 0 : (double) memoryUsage() / size;
+  }
+
+  @Override
+  default void close() {
+  }
+}
@@ -0,0 +1,68 @@
+package spring.batch.part3;
+
+import java.nio.file.Path;
+
+/**
+ * job parameter(key_store, bloom_filter)로 DuplicateKeyStore 구현체를 고르는 팩토리
+ * bloom filter의 크기는 bloom_expected_keys(기본 2^24), bloom_false_positive_rate(기본 0.01)로 정한다.
+ */
+public final class DuplicateKeyStores {
+
+  public static final String HASH = "hash";
+  public static final String FINGERPRINT = "fingerprint";
+  public static final String OFF_HEAP = "off_heap";
+  public static final String SPILL = "spill";
+
+  private static final long DEFAULT_EXPECTED_KEYS = 1 << 10;
+  private static final long SPILL_MAX_IN_MEMORY_KEYS = 1 << 22;
+  private static final long BLOOM_EXPECTED_KEYS = 1 << 24;
+  private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+  private DuplicateKeyStores() {
+  }
+
+  public static DuplicateKeyStore create(String type, boolean bloomFilter) {
+    return create(type, bloomFilter, null, null);
+  }
+
+  /**
+   * bloomExpectedKeys, bloomFalsePositiveRate가 null 이면 기본값을 사용한다.
+   */
+  public static DuplicateKeyStore create(String type, boolean bloomFilter,
+      Long bloomExpectedKeys, Double bloomFalsePositiveRate) {
+    DuplicateKeyStore keyStore = create(type);
+    if (!bloomFilter) {
+      return keyStore;
+    }
+
+    long expectedKeys = bloomExpectedKeys != null ? bloomExpectedKeys : BLOOM_EXPECTED_KEYS;
+    double falsePositiveRate = bloomFalsePositiveRate != null ? bloomFalsePositiveRate
+        : BLOOM_FALSE_POSITIVE_RATE;
+    if (expectedKeys <= 0) {
+      throw new IllegalArgumentException("bloom_expected_keys는 0보다 커야 합니다 : " + expectedKeys);
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException(
+          "bloom_false_positive_rate는 0과 1 사이여야 합니다 : " + falsePositiveRate);
+    }
+    return new BloomFilterDuplicateKeyStore(keyStore, expectedKeys, falsePositiveRate);
+  }
+
+  private static DuplicateKeyStore create(String type) {
+    if (type == null || HASH.equals(type)) {
+      return new HashDuplicateKeyStore();
+    }
+
+    switch (type) {
+      case FINGERPRINT:
+        return new FingerprintDuplicateKeyStore(DEFAULT_EXPECTED_KEYS, false);
+      case OFF_HEAP:
+        return new FingerprintDuplicateKeyStore(DEFAULT_EXPECTED_KEYS, true);
+      case SPILL:
+        return new SpillingDuplicateKeyStore(SPILL_MAX_IN_MEMORY_KEYS,
+            Path.of(System.getProperty("java.io.tmpdir"), "spring-batch-dedup"));
+      default:
+        throw new IllegalArgumentException("지원하지 않는 key_store 입니다 : " + type);
+    }
+  }
+}
@@ -1,19 +1,80 @@
 package spring.batch.part3;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
 
-public class DuplicateValidationProcessor<T> implements ItemProcessor<T, T> {
+/**
+ * key가 중복된 item을 걸러내는 Processor
+ * ItemStream으로 등록하면 chunk 커밋마다 새로 본 key를 journal 파일에 덧붙이고,
+ * 재시작 시 journal을 다시 읽어 이미 커밋된 key를 복원한다.
+ * 여러 step(파티션)이 key 저장소를 공유할 때는 keyPoolShared로 두고, 저장소와 journal의 정리는 job에 맡긴다.
+ */
+@Slf4j
+public class DuplicateValidationProcessor<T> implements ItemProcessor<T, T>,
+    ChunkItemProcessor<T, T>, ItemStream, StepExecutionListener {
 
-  private final Map<String, Object> keyPool = new ConcurrentHashMap<>();
+  private static final String JOURNAL_PATH_KEY = "duplicateValidationProcessor.journal.path";
+  private static final String JOURNAL_LENGTH_KEY = "duplicateValidationProcessor.journal.length";
+
+  private final DuplicateKeyStore keyPool;
   private final Function<T, String> keyExtractor;
   private final boolean allowDuplicate;
+  private final Queue<String> pendingKeys = new ConcurrentLinkedQueue<>();
+
+  private Path journalDirectory = Path.of(System.getProperty("java.io.tmpdir"),
+      "spring-batch-dedup");
+  private DuplicateKeyJournal journal;
+  private boolean keyPoolShared;
 
   public DuplicateValidationProcessor(Function<T, String> keyExtractor, boolean allowDuplicate) {
+    this(keyExtractor, allowDuplicate, new HashDuplicateKeyStore());
+  }
+
+  public DuplicateValidationProcessor(Function<T, String> keyExtractor, boolean allowDuplicate,
+      DuplicateKeyStore keyPool) {
     this.keyExtractor = keyExtractor;
     this.allowDuplicate = allowDuplicate;
+    this.keyPool = keyPool;
+  }
+
+  public void setJournalDirectory(Path journalDirectory) {
+    this.journalDirectory = journalDirectory;
+  }
+
+  /**
+   * true 이면 afterStep에서 key 저장소를 닫지 않고, step이 완료돼도 journal을 지우지 않는다.
+   * (다른 파티션이 재시작할 때 restore로 이 step이 커밋한 key를 복원해야 한다)
+   */
+  public void setKeyPoolShared(boolean keyPoolShared) {
+    this.keyPoolShared = keyPoolShared;
+  }
+
+  /**
+   * executionContext에 기록된 journal에서 커밋된 key를 keyPool에 복원한다. (다른 step이 남긴 journal용)
+   */
+  public static void restore(ExecutionContext executionContext, DuplicateKeyStore keyPool)
+      throws IOException {
+    if (!executionContext.containsKey(JOURNAL_PATH_KEY)) {
+      return;
+    }
+
+    Path path = Path.of(executionContext.getString(JOURNAL_PATH_KEY));
+    DuplicateKeyJournal.recover(path, executionContext.getLong(JOURNAL_LENGTH_KEY),
+        keyPool::addUnchecked).close();
   }
 
   @Override
@@ -24,11 +85,126 @@ public class DuplicateValidationProcessor<T> implements ItemProcessor<T, T> {
 
     String key = keyExtractor.apply(item);
 
-    if (keyPool.containsKey(key)) {
+    if (!keyPool.add(key)) {
       return null;
     }
 
-    keyPool.put(key, key);
+    if (journal != null) {
+      pendingKeys.add(key);
+    }
     return item;
   }
+
+  /**
+   * chunk 단위 중복 검사. key를 먼저 모두 뽑은 뒤 한 번에 검사하고, 새 key는 한 번에 pendingKeys에 넣는다.
+   * (pendingKeys는 journal이 열려 있을 때만 쌓는다. ItemStream으로 등록하지 않으면 비울 곳이 없다)
+   */
+  @Override
+  public void process(List<? extends T> items, ChunkResults<T> results) {
+    if (allowDuplicate) {
+      for (int i = 0; i < items.size(); i++) {
+        results.set(i, items.get(i));
+      }
+      return;
+    }
+
+    String[] keys = new String[items.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = keyExtractor.apply(items.get(i));
+    }
+
+    List<String> added = new ArrayList<>(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      if (keyPool.add(keys[i])) {
+        added.add(keys[i]);
+        results.set(i, items.get(i));
+      }
+    }
+    if (journal != null) {
+      pendingKeys.addAll(added);
+    }
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    if (allowDuplicate) {
+      return;
+    }
+
+    try {
+      if (executionContext.containsKey(JOURNAL_PATH_KEY)) {
+        Path path = Path.of(executionContext.getString(JOURNAL_PATH_KEY));
+        long length = executionContext.getLong(JOURNAL_LENGTH_KEY);
+        journal = DuplicateKeyJournal.recover(path, length, keyPool::addUnchecked);
+        log.info("duplicate key journal recovered : {}, keys : {}", path, keyPool.size());
+      } else {
+        journal = DuplicateKeyJournal.create(journalDirectory);
+        executionContext.putString(JOURNAL_PATH_KEY, journal.getPath().toString());
+        executionContext.putLong(JOURNAL_LENGTH_KEY, 0L);
+      }
+    } catch (IOException e) {
+      throw new ItemStreamException("중복 검사 journal을 열 수 없습니다", e);
+    }
+  }
+
+  /**
+   * chunk 커밋 직전에 호출된다. 이번 chunk에서 새로 본 key만 journal에 덧붙인다.
+   */
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    if (journal == null) {
+      return;
+    }
+
+    List<String> keys = new ArrayList<>();
+    String key;
+    while ((key = pendingKeys.poll()) != null) {
+      keys.add(key);
+    }
+
+    try {
+      executionContext.putString(JOURNAL_PATH_KEY, journal.getPath().toString());
+      executionContext.putLong(JOURNAL_LENGTH_KEY, journal.append(keys));
+    } catch (IOException e) {
+      throw new ItemStreamException("중복 검사 journal을 기록할 수 없습니다", e);
+    }
+  }
+
+  @Override
+  public void close() throws ItemStreamException {
+    if (journal == null) {
+      return;
+    }
+
+    try {
+      journal.close();
+    } catch (IOException e) {
+      throw new ItemStreamException("중복 검사 journal을 닫을 수 없습니다", e);
+    }
+  }
+
+  public double getBytesPerEntry() {
+    return keyPool.bytesPerEntry();
+  }
+
+  @Override
+  public ExitStatus afterStep(StepExecution stepExecution) {
+    log.info("duplicate key store : {}, keys : {}, memory : {} bytes, per entry : {} bytes",
+        keyPool.getClass().getSimpleName(), keyPool.size(), keyPool.memoryUsage(),
+        String.format("%.1f", keyPool.bytesPerEntry()));
+    if (keyPoolShared) {
+      return stepExecution.getExitStatus();
+    }
+    keyPool.close();
+
+    // 정상 종료된 경우에만 journal을 지운다. 실패한 경우 재시작에서 사용한다.
+    if (journal != null && stepExecution.getStatus() == BatchStatus.COMPLETED) {
+      try {
+        journal.delete();
+      } catch (IOException e) {
+        log.warn("중복 검사 journal을 지울 수 없습니다 : {}", journal.getPath(), e);
+      }
+    }
+    return stepExecution.getExitStatus();
+  }
 }
@@ -0,0 +1,303 @@
+package spring.batch.part3;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 한 줄이 한 record인 파일을 key 순서로 정렬하면서 key가 같은 줄은 처음 나온 줄만 남긴다. (external merge sort)
+ * memoryBudgetBytes 또는 runSize 줄만큼 읽을 때마다 정렬해서 임시 파일(run)로 내보내고,
+ * run을 fanIn개씩 병합하는 과정을 하나가 남을 때까지 반복한다.
+ * 정렬은 stable 하고 병합은 앞선 run을 우선하므로, 이웃한 같은 key 중 첫 줄이 입력에서 먼저 읽은 줄이다.
+ */
+@Slf4j
+public class ExternalMergeSorter {
+
+  // Line, String 2개, ArrayList 칸을 포함한 한 줄의 대략적인 heap 고정 사용량
+  private static final int LINE_OVERHEAD = 64;
+
+  private final Function<String, String> keyExtractor;
+  private final Comparator<Line> lineComparator;
+
+  private long memoryBudgetBytes = 64L * 1024 * 1024;
+  private int runSize = 1_000_000;
+  private int fanIn = 64;
+  private Path tempDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+
+  public ExternalMergeSorter(Function<String, String> keyExtractor) {
+    this.keyExtractor = keyExtractor;
+    this.lineComparator = Comparator.comparing(line -> line.key);
+  }
+
+  /**
+   * delimiter로 나눈 columns 번째 값들을 key로 사용한다.
+   */
+  public static Function<String, String> columns(char delimiter, int... columns) {
+    return line -> {
+      String[] fields = new String[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        fields[i] = column(line, delimiter, columns[i]);
+      }
+      return String.join("\u0000", fields);
+    };
+  }
+
+  private static String column(String line, char delimiter, int column) {
+    int start = 0;
+    for (int i = 0; i < column; i++) {
+      start = line.indexOf(delimiter, start) + 1;
+      if (start == 0) {
+        return "";
+      }
+    }
+    int end = line.indexOf(delimiter, start);
+    return end < 0 ? line.substring(start) : line.substring(start, end);
+  }
+
+  public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+    this.memoryBudgetBytes = memoryBudgetBytes;
+  }
+
+  public void setRunSize(int runSize) {
+    this.runSize = runSize;
+  }
+
+  /**
+   * 한 번에 병합하는 run 수. 2 이상이어야 한다.
+   */
+  public void setFanIn(int fanIn) {
+    if (fanIn < 2) {
+      throw new IllegalArgumentException("fanIn은 2 이상이어야 합니다 : " + fanIn);
+    }
+    this.fanIn = fanIn;
+  }
+
+  public void setTempDirectory(Path tempDirectory) {
+    this.tempDirectory = tempDirectory;
+  }
+
+  /**
+   * input을 정렬, 중복 제거해서 output에 쓴다. 처음 headerLines 줄은 정렬하지 않고 그대로 옮긴다.
+   */
+  public Result sortUnique(Path input, Path output, int headerLines) throws IOException {
+    return sortUnique(Files.newInputStream(input), output, headerLines);
+  }
+
+  /**
+   * input stream은 다 읽은 뒤 닫는다. (classpath resource처럼 파일이 아닌 입력용)
+   */
+  public Result sortUnique(InputStream input, Path output, int headerLines) throws IOException {
+    return sort(input, output, headerLines, true);
+  }
+
+  /**
+   * 중복을 지우지 않고 정렬만 한다. key가 같은 줄은 입력 순서를 유지한다.
+   */
+  public Result sort(InputStream input, Path output, int headerLines) throws IOException {
+    return sort(input, output, headerLines, false);
+  }
+
+  private Result sort(InputStream input, Path output, int headerLines, boolean unique)
+      throws IOException {
+    if (output.toAbsolutePath().getParent() != null) {
+      Files.createDirectories(output.toAbsolutePath().getParent());
+    }
+    Files.createDirectories(tempDirectory);
+    Path workDirectory = Files.createTempDirectory(tempDirectory, "external-sort");
+
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(input, StandardCharsets.UTF_8));
+        BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+      for (int i = 0; i < headerLines; i++) {
+        String header = reader.readLine();
+        if (header == null) {
+          break;
+        }
+        writer.write(header);
+        writer.newLine();
+      }
+
+      long[] inputLines = new long[1];
+      List<Path> runs = createRuns(reader, workDirectory, inputLines, unique);
+      int initialRuns = runs.size();
+
+      int passes = 0;
+      while (runs.size() > fanIn) {
+        runs = mergePass(runs, workDirectory, passes++, unique);
+      }
+      long outputLines = merge(runs, writer, unique);
+      passes++;
+
+      Result result = new Result(inputLines[0], outputLines, initialRuns, passes);
+      log.info("external sort : {}", result);
+      return result;
+    } finally {
+      deleteRecursively(workDirectory);
+    }
+  }
+
+  private List<Path> createRuns(BufferedReader reader, Path workDirectory, long[] inputLines,
+      boolean unique) throws IOException {
+    List<Path> runs = new ArrayList<>();
+    List<Line> buffer = new ArrayList<>();
+    long bufferBytes = 0;
+
+    String text;
+    while ((text = reader.readLine()) != null) {
+      if (text.isEmpty()) {
+        continue;
+      }
+      inputLines[0]++;
+      Line line = new Line(keyExtractor.apply(text), text);
+      buffer.add(line);
+      bufferBytes += 2L * (line.key.length() + text.length()) + LINE_OVERHEAD;
+
+      if (buffer.size() >= runSize || bufferBytes >= memoryBudgetBytes) {
+        runs.add(writeRun(buffer, workDirectory.resolve("run-0-" + runs.size()), unique));
+        buffer.clear();
+        bufferBytes = 0;
+      }
+    }
+    if (!buffer.isEmpty() || runs.isEmpty()) {
+      runs.add(writeRun(buffer, workDirectory.resolve("run-0-" + runs.size()), unique));
+    }
+    return runs;
+  }
+
+  private Path writeRun(List<Line> buffer, Path path, boolean unique) throws IOException {
+    buffer.sort(lineComparator); // List.sort는 stable (TimSort)
+
+    try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      String previousKey = null;
+      for (Line line : buffer) {
+        if (unique && line.key.equals(previousKey)) {
+          continue;
+        }
+        previousKey = line.key;
+        writer.write(line.text);
+        writer.newLine();
+      }
+    }
+    return path;
+  }
+
+  /**
+   * 이웃한 run을 fanIn개씩 묶어 병합한다. 묶음 순서를 유지해야 먼저 읽은 줄이 앞선다.
+   */
+  private List<Path> mergePass(List<Path> runs, Path workDirectory, int pass, boolean unique)
+      throws IOException {
+    List<Path> merged = new ArrayList<>();
+    for (int from = 0; from < runs.size(); from += fanIn) {
+      List<Path> group = runs.subList(from, Math.min(from + fanIn, runs.size()));
+      Path path = workDirectory.resolve("run-" + (pass + 1) + "-" + merged.size());
+      try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+        merge(group, writer, unique);
+      }
+      for (Path run : group) {
+        Files.delete(run);
+      }
+      merged.add(path);
+    }
+    return merged;
+  }
+
+  private long merge(List<Path> runs, BufferedWriter writer, boolean unique) throws IOException {
+    List<BufferedReader> readers = new ArrayList<>(runs.size());
+    // key가 같으면 앞선 run의 줄이 먼저 나온다.
+    PriorityQueue<Head> heads = new PriorityQueue<>(runs.size(),
+        Comparator.<Head, String>comparing(head -> head.line.key)
+            .thenComparingInt(head -> head.run));
+
+    try {
+      for (int run = 0; run < runs.size(); run++) {
+        BufferedReader reader = Files.newBufferedReader(runs.get(run), StandardCharsets.UTF_8);
+        readers.add(reader);
+        Head head = new Head(run, reader);
+        if (head.advance()) {
+          heads.add(head);
+        }
+      }
+
+      long count = 0;
+      String previousKey = null;
+      Head head;
+      while ((head = heads.poll()) != null) {
+        if (!unique || !head.line.key.equals(previousKey)) {
+          previousKey = head.line.key;
+          writer.write(head.line.text);
+          writer.newLine();
+          count++;
+        }
+        if (head.advance()) {
+          heads.add(head);
+        }
+      }
+      return count;
+    } finally {
+      for (BufferedReader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  private static void deleteRecursively(Path directory) {
+    try (var paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.deleteIfExists(path);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("external sort 임시 파일을 지울 수 없습니다 : {}", directory, e);
+    }
+  }
+
+  /**
+   * inputLines : 읽은 record 수, outputLines : 중복을 뺀 record 수, runs : 처음 만든 run 수, passes : 병합 횟수
+   */
+  public record Result(long inputLines, long outputLines, int runs, int passes) {
+
+    public long duplicates() {
+      return inputLines - outputLines;
+    }
+  }
+
+  private record Line(String key, String text) {
+
+  }
+
+  private class Head {
+
+    private final int run;
+    private final BufferedReader reader;
+    private Line line;
+
+    private Head(int run, BufferedReader reader) {
+      this.run = run;
+      this.reader = reader;
+    }
+
+    private boolean advance() throws IOException {
+      String text = reader.readLine();
+      if (text == null) {
+        return false;
+      }
+      line = new Line(keyExtractor.apply(text), text);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.core.io.Resource;
+
+/**
+ * resource를 ExternalMergeSorter로 정렬(unique 이면 중복 제거)해서 outputDirectory에 job instance마다 다른 파일로 쓰고,
+ * 다음 step이 읽을 수 있도록 그 경로를 job ExecutionContext의 OUTPUT_KEY에 저장한다.
+ * 읽은 줄은 readCount, 남긴 줄은 writeCount, 중복으로 버린 줄은 filterCount로 집계한다.
+ * 파일은 job이 COMPLETED로 끝나면 CleanupListener가 지운다. (실패하면 재시작에서 다시 읽는다)
+ */
+public class ExternalSortTasklet implements Tasklet {
+
+  public static final String OUTPUT_KEY = "person_file";
+
+  private final Resource resource;
+  private final Path outputDirectory;
+  private final ExternalMergeSorter sorter;
+  private final boolean unique;
+
+  public ExternalSortTasklet(Resource resource, Path outputDirectory, ExternalMergeSorter sorter,
+      boolean unique) {
+    this.resource = resource;
+    this.outputDirectory = outputDirectory;
+    this.sorter = sorter;
+    this.unique = unique;
+  }
+
+  @Override
+  public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext)
+      throws Exception {
+    StepExecution stepExecution = contribution.getStepExecution();
+    Path output = outputDirectory.resolve(
+        "sorted-" + stepExecution.getJobExecution().getJobId() + "-" + resource.getFilename());
+    ExternalMergeSorter.Result result = unique
+        ? sorter.sortUnique(resource.getInputStream(), output, 1)
+        : sorter.sort(resource.getInputStream(), output, 1);
+
+    stepExecution.setReadCount(stepExecution.getReadCount() + result.inputLines());
+    contribution.incrementWriteCount(result.outputLines());
+    contribution.incrementFilterCount(result.duplicates());
+    stepExecution.getJobExecution().getExecutionContext()
+        .putString(OUTPUT_KEY, output.toAbsolutePath().toString());
+    return RepeatStatus.FINISHED;
+  }
+
+  /**
+   * job이 정상 종료되면 정렬 결과 파일을 지운다.
+   */
+  @Slf4j
+  public static class CleanupListener implements JobExecutionListener {
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+      if (jobExecution.getStatus() != BatchStatus.COMPLETED
+          || !jobExecution.getExecutionContext().containsKey(OUTPUT_KEY)) {
+        return;
+      }
+
+      Path output = Path.of(jobExecution.getExecutionContext().getString(OUTPUT_KEY));
+      try {
+        Files.deleteIfExists(output);
+      } catch (IOException e) {
+        log.warn("정렬 결과 파일을 지울 수 없습니다 : {}", output, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package spring.batch.part3;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * key 대신 64bit fingerprint만 open addressing 테이블에 저장하는 저장소
+ * 항목당 약 8~16 byte만 사용하며, offHeap이면 테이블을 direct memory에 둔다.
+ * 서로 다른 key의 fingerprint가 같을 확률(약 n² / 2^65)만큼 중복으로 오판할 수 있다.
+ */
+public class FingerprintDuplicateKeyStore implements DuplicateKeyStore {
+
+  private static final long EMPTY = 0L;
+  private static final int MAX_HEAP_CAPACITY = 1 << 30;
+  private static final int MAX_OFF_HEAP_CAPACITY = 1 << 27; // direct buffer 하나는 2GB를 넘을 수 없다.
+
+  private final boolean offHeap;
+
+  private LongBuffer table;
+  private int mask;
+  private long size;
+
+  public FingerprintDuplicateKeyStore(long expectedKeys, boolean offHeap) {
+    this.offHeap = offHeap;
+    this.table = allocate(capacityFor(expectedKeys, maxCapacity()));
+    this.mask = table.capacity() - 1;
+  }
+
+  @Override
+  public boolean add(String key) {
+    return addFingerprint(fingerprint(key));
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return containsFingerprint(fingerprint(key));
+  }
+
+  public synchronized boolean addFingerprint(long fingerprint) {
+    int slot = slot(fingerprint);
+    long current;
+    while ((current = table.get(slot)) != EMPTY) {
+      if (current == fingerprint) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    table.put(slot, fingerprint);
+    if (++size * 2 > table.capacity()) {
+      resize();
+    }
+    return true;
+  }
+
+  public synchronized boolean containsFingerprint(long fingerprint) {
+    int slot = slot(fingerprint);
+    long current;
+    while ((current = table.get(slot)) != EMPTY) {
+      if (current == fingerprint) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  @Override
+  public synchronized long size() {
+    return size;
+  }
+
+  @Override
+  public synchronized long memoryUsage() {
+    return (long) table.capacity() * Long.BYTES;
+  }
+
+  /**
+   * 저장된 fingerprint를 정렬된 배열로 반환한다. (디스크로 내보낼 때 사용)
+   */
+  public synchronized long[] toSortedArray() {
+    long[] fingerprints = new long[(int) size];
+    int index = 0;
+    for (int i = 0; i < table.capacity(); i++) {
+      long fingerprint = table.get(i);
+      if (fingerprint != EMPTY) {
+        fingerprints[index++] = fingerprint;
+      }
+    }
+    Arrays.sort(fingerprints);
+    return fingerprints;
+  }
+
+  public synchronized void clear() {
+    for (int i = 0; i < table.capacity(); i++) {
+      table.put(i, EMPTY);
+    }
+    size = 0;
+  }
+
+  /**
+   * FNV-1a로 문자열을 섞은 뒤 murmur3 finalizer로 비트를 고르게 퍼뜨린 64bit fingerprint
+   * 0은 빈 슬롯 표시로 쓰므로 fingerprint로 사용하지 않는다.
+   */
+  public static long fingerprint(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash == EMPTY ? 1L : hash;
+  }
+
+  private int slot(long fingerprint) {
+    return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+  }
+
+  private void resize() {
+    LongBuffer old = table;
+    if (old.capacity() >= maxCapacity()) {
+      throw new IllegalStateException(
+          "fingerprint 테이블을 더 늘릴 수 없습니다. SpillingDuplicateKeyStore를 사용하세요 : " + size);
+    }
+
+    table = allocate(old.capacity() * 2);
+    mask = table.capacity() - 1;
+
+    for (int i = 0; i < old.capacity(); i++) {
+      long fingerprint = old.get(i);
+      if (fingerprint != EMPTY) {
+        int slot = slot(fingerprint);
+        while (table.get(slot) != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        table.put(slot, fingerprint);
+      }
+    }
+  }
+
+  private LongBuffer allocate(int capacity) {
+    if (offHeap) {
+      return ByteBuffer.allocateDirect(capacity * Long.BYTES).asLongBuffer();
+    }
+    return LongBuffer.allocate(capacity);
+  }
+
+  private int maxCapacity() {
+    return offHeap ? MAX_OFF_HEAP_CAPACITY : MAX_HEAP_CAPACITY;
+  }
+
+  private static int capacityFor(long expectedKeys, int maxCapacity) {
+    long capacity = Math.max(16, expectedKeys * 2);
+    if (capacity > maxCapacity) {
+      throw new IllegalArgumentException("expectedKeys가 너무 큽니다 : " + expectedKeys);
+    }
+    return Integer.highestOneBit((int) capacity - 1) << 1;
+  }
+}
@@ -0,0 +1,47 @@
+package spring.batch.part3;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * key 원본을 ConcurrentHashMap 기반 Set에 그대로 저장하는 기본 저장소 (정확하지만 메모리를 가장 많이 사용)
+ */
+public class HashDuplicateKeyStore implements DuplicateKeyStore {
+
+  // Node(32) + table slot(8 / load factor 0.75) + String(24) + byte[] header(16)
+  private static final long ENTRY_OVERHEAD = 32 + 11 + 24 + 16;
+
+  private final Set<String> keys = ConcurrentHashMap.newKeySet();
+  private final LongAdder memoryUsage = new LongAdder();
+
+  @Override
+  public boolean add(String key) {
+    if (keys.add(key)) {
+      memoryUsage.add(estimate(key));
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return keys.contains(key);
+  }
+
+  @Override
+  public long size() {
+    return keys.size();
+  }
+
+  @Override
+  public long memoryUsage() {
+    return memoryUsage.sum();
+  }
+
+  private static long estimate(String key) {
+    boolean latin1 = key.chars().allMatch(c -> c < 256);
+    long bytes = latin1 ? key.length() : key.length() * 2L;
+    return ENTRY_OVERHEAD + ((bytes + 7) & ~7L);
+  }
+}
@@ -0,0 +1,52 @@
+package spring.batch.part3;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * person 테이블의 id를 겹치지 않는 범위로 나누는 Partitioner
+ * 각 파티션의 ExecutionContext에 (minId, maxId] 범위를 담는다.
+ */
+public class IdRangePartitioner implements Partitioner {
+
+  public static final String MIN_ID = "minId";
+  public static final String MAX_ID = "maxId";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public IdRangePartitioner(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @Override
+  public Map<String, ExecutionContext> partition(int gridSize) {
+    Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+
+    long[] range = jdbcTemplate.queryForObject("select min(id), max(id) from person",
+        (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    if (range == null || range[1] == 0) {
+      return partitions;
+    }
+
+    // min(id) - 1 부터 시작해야 첫 번째 id가 (minId, maxId] 범위에 포함된다.
+    long from = range[0] - 1;
+    long to = range[1];
+    long size = (to - from + gridSize - 1) / gridSize;
+
+    for (int i = 0; i < gridSize && from < to; i++) {
+      long end = Math.min(from + size, to);
+
+      ExecutionContext executionContext = new ExecutionContext();
+      executionContext.putLong(MIN_ID, from);
+      executionContext.putLong(MAX_ID, end);
+      partitions.put("partition" + i, executionContext);
+
+      from = end;
+    }
+    return partitions;
+  }
+}
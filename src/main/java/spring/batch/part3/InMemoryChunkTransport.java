@@ -0,0 +1,58 @@
+package spring.batch.part3;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 JVM 안에서 chunk와 응답을 전달하는 ChunkTransport (테스트, 단일 process 실행용)
+ * 응답은 job instance별로 꺼낼 수 있도록 한 목록에 모아 두고 chunkKey로 고른다.
+ */
+public class InMemoryChunkTransport implements ChunkTransport {
+
+  private final BlockingQueue<ChunkRequest> requests = new LinkedBlockingQueue<>();
+  private final List<ChunkResponse> responses = new LinkedList<>();
+
+  @Override
+  public void sendRequest(ChunkRequest request) {
+    requests.add(request);
+  }
+
+  @Override
+  public ChunkRequest pollRequest(Duration timeout) throws InterruptedException {
+    return requests.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void sendResponse(ChunkResponse response) {
+    responses.add(response);
+    notifyAll();
+  }
+
+  @Override
+  public synchronized ChunkResponse pollResponse(long jobInstanceId, Duration timeout)
+      throws InterruptedException {
+    String prefix = ChunkRequest.keyPrefix(jobInstanceId);
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (true) {
+      Iterator<ChunkResponse> iterator = responses.iterator();
+      while (iterator.hasNext()) {
+        ChunkResponse response = iterator.next();
+        if (response.chunkKey().startsWith(prefix)) {
+          iterator.remove();
+          return response;
+        }
+      }
+
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return null;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+  }
+}
@@ -1,16 +1,20 @@
 package spring.batch.part3;
 
+import io.micrometer.core.instrument.util.StringUtils;
+import jakarta.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
-import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcCursorItemReader;
 import org.springframework.batch.item.database.JpaCursorItemReader;
@@ -20,9 +24,13 @@ import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.DefaultLineMapper;
 import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 @Configuration
 @Slf4j
@@ -49,7 +57,9 @@ public class ItemReaderConfiguration {
         .start(this.customItemReaderStep())
         .next(this.csvFileStep())
         .next(this.jdbcStep())
-        .next(this.jpaStep())
+        .next(this.keysetPartitionStep())
+        .next(this.jpaStep(null, null))
+        .next(this.columnarFileStep(null))
         .build();
   }
 
@@ -66,7 +76,7 @@ public class ItemReaderConfiguration {
   public Step csvFileStep() throws Exception {
     return stepBuilderFactory.get("csvFileStep")
         .<Person, Person>chunk(10)
-        .reader(csvFileItemReader())
+        .reader(csvFileItemReader(new ClassPathResource("test.csv")))
         .writer(itemWriter())
         .build();
   }
@@ -80,15 +90,68 @@ public class ItemReaderConfiguration {
         .build();
   }
 
+  /**
+   * person 테이블을 id 범위로 나눠 여러 worker가 동시에 keyset 방식으로 읽는다.
+   */
   @Bean
-  public Step jpaStep() throws Exception {
+  public Step keysetPartitionStep() {
+    return stepBuilderFactory.get("keysetPartitionStep")
+        .partitioner("keysetWorkerStep", new IdRangePartitioner(dataSource))
+        .step(keysetWorkerStep())
+        .gridSize(4)
+        .taskExecutor(new SimpleAsyncTaskExecutor("keyset-"))
+        .build();
+  }
+
+  @Bean
+  public Step keysetWorkerStep() {
+    return stepBuilderFactory.get("keysetWorkerStep")
+        .<Person, Person>chunk(10)
+        .reader(keysetItemReader(null, null))
+        .writer(itemWriter())
+        .build();
+  }
+
+  @Bean
+  @StepScope
+  public KeysetPersonItemReader keysetItemReader(
+      @Value("#{stepExecutionContext[minId]}") Long minId,
+      @Value("#{stepExecutionContext[maxId]}") Long maxId) {
+    KeysetPersonItemReader itemReader = new KeysetPersonItemReader(dataSource, 10, minId, maxId);
+    itemReader.setName("keysetItemReader");
+    return itemReader;
+  }
+
+  /**
+   * jpaReaderType=stateless 이면 persistence context 없이 StatelessSession으로 읽는다.
+   */
+  @Bean
+  @JobScope
+  public Step jpaStep(@Value("#{jobParameters[jpaReaderType]}") String jpaReaderType,
+      @Value("#{jobParameters[fetchSize]}") String fetchSize) throws Exception {
+    ItemStreamReader<Person> itemReader;
+    if ("stateless".equals(jpaReaderType)) {
+      itemReader = statelessItemReader(entityManagerFactory,
+          StringUtils.isNotEmpty(fetchSize) ? Integer.parseInt(fetchSize) : 100);
+    } else {
+      itemReader = jpaCursorItemReader();
+    }
+
     return stepBuilderFactory.get("jpaStep")
         .<Person, Person>chunk(10)
-        .reader(jpaCursorItemReader())
+        .reader(itemReader)
         .writer(itemWriter())
         .build();
   }
 
+  static StatelessSessionItemReader<Person> statelessItemReader(
+      EntityManagerFactory entityManagerFactory, int fetchSize) {
+    StatelessSessionItemReader<Person> itemReader = new StatelessSessionItemReader<>(
+        entityManagerFactory, "select p from Person p order by p.id", Person.class, fetchSize);
+    itemReader.setName("statelessItemReader");
+    return itemReader;
+  }
+
   private JpaCursorItemReader<Person> jpaCursorItemReader() throws Exception {
     JpaCursorItemReader<Person> itemReader = new JpaCursorItemReaderBuilder<Person>()
         .name("jpaCursorItemReader")
@@ -111,7 +174,34 @@ public class ItemReaderConfiguration {
     return itemReader;
   }
 
-  private FlatFileItemReader<Person> csvFileItemReader() throws Exception {
+  /**
+   * itemWriterJob의 columnarItemWriterStep이 넘겨준 파일(columnarFile, 기본값 output/test-output.pcol)을 읽는다.
+   * 파일이 없으면(itemWriterJob을 실행하지 않았으면) 읽지 않고 넘어간다.
+   */
+  @Bean
+  @JobScope
+  public Step columnarFileStep(@Value("#{jobParameters[columnarFile]}") String columnarFile) {
+    ColumnarPersonItemReader itemReader = columnarItemReader(new FileSystemResource(
+        StringUtils.isNotEmpty(columnarFile) ? columnarFile : "output/test-output.pcol"));
+    itemReader.setStrict(false);
+
+    return stepBuilderFactory.get("columnarFileStep")
+        .<Person, Person>chunk(10)
+        .reader(itemReader)
+        .writer(itemWriter())
+        .build();
+  }
+
+  /**
+   * ItemWriterConfiguration.columnarItemWriter가 쓴 파일을 읽는다. 다른 job이 넘겨준 중간 결과를 다시 읽을 때 사용한다.
+   */
+  static ColumnarPersonItemReader columnarItemReader(Resource resource) {
+    ColumnarPersonItemReader itemReader = new ColumnarPersonItemReader(resource);
+    itemReader.setName("columnarItemReader");
+    return itemReader;
+  }
+
+  static FlatFileItemReader<Person> csvFileItemReader(Resource resource) throws Exception {
     DefaultLineMapper<Person> lineMapper = new DefaultLineMapper<>();
     DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
     tokenizer.setNames("id", "name", "age", "address");
@@ -129,7 +219,7 @@ public class ItemReaderConfiguration {
     FlatFileItemReader<Person> itemReader = new FlatFileItemReaderBuilder<Person>()
         .name("csvFileItemReader")
         .encoding("UTF-8")
-        .resource(new ClassPathResource("test.csv"))
+        .resource(resource)
         .linesToSkip(1) // csv의 첫 번째 로우인 필드명을 스킵하겠다는 의미
         .lineMapper(lineMapper)
         .build();
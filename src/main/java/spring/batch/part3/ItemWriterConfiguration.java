@@ -1,29 +1,31 @@
 package spring.batch.part3;
 
+import jakarta.persistence.EntityManagerFactory;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.JpaItemWriter;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
 import org.springframework.batch.item.file.FlatFileItemWriter;
 import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
 import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.WritableResource;
 
 @Configuration
 @Slf4j
@@ -48,6 +50,8 @@ public class ItemWriterConfiguration {
     return jobBuilderFactory.get("itemWriterJob")
         .incrementer(new RunIdIncrementer())
         .start(this.csvItemWriterStep())
+        .next(this.channelCsvItemWriterStep(null))
+        .next(this.columnarItemWriterStep())
 //        .next(this.jdbcBatchItemWriterStep())
         .next(this.jpaItemWriterStep())
         .build();
@@ -58,7 +62,36 @@ public class ItemWriterConfiguration {
     return stepBuilderFactory.get("csvItemWriterStep")
         .<Person, Person>chunk(10)
         .reader(itemReader())
-        .writer(csvFileItemWriter())
+        .writer(csvFileItemWriter(new FileSystemResource("output/test-output.csv")))
+        .build();
+  }
+
+  /**
+   * gzip=true 이면 output/test-output-channel.csv.gz 에 gzip으로 압축해서 쓴다.
+   */
+  @Bean
+  @JobScope
+  public Step channelCsvItemWriterStep(@Value("#{jobParameters[gzip]}") String gzip) {
+    boolean compress = Boolean.parseBoolean(gzip);
+    Path path = Path.of(compress ? "output/test-output-channel.csv.gz"
+        : "output/test-output-channel.csv");
+
+    return stepBuilderFactory.get("channelCsvItemWriterStep")
+        .<Person, Person>chunk(10)
+        .reader(itemReader())
+        .writer(channelCsvItemWriter(path, compress))
+        .build();
+  }
+
+  /**
+   * 다음 job에 넘길 중간 결과를 CSV 대신 columnar binary 형식으로 쓴다.
+   */
+  @Bean
+  public Step columnarItemWriterStep() {
+    return stepBuilderFactory.get("columnarItemWriterStep")
+        .<Person, Person>chunk(10)
+        .reader(itemReader())
+        .writer(columnarItemWriter(Path.of("output/test-output.pcol")))
         .build();
   }
 
@@ -67,7 +100,7 @@ public class ItemWriterConfiguration {
     return stepBuilderFactory.get("jdbcBatchItemWriterStep")
         .<Person, Person>chunk(10)
         .reader(itemReader())
-        .writer(jdbcBatchItemWriter())
+        .writer(jdbcBatchItemWriter(dataSource))
         .build();
   }
 
@@ -93,19 +126,35 @@ public class ItemWriterConfiguration {
     return itemWriter;
   }
 
-  private ItemWriter<Person> jdbcBatchItemWriter() {
+  /**
+   * JdbcTemplate.batchUpdate로 chunk 단위 batch insert를 수행한다.
+   * MySQL은 rewriteBatchedStatements=true 설정으로 multi-row insert로 변환된다.
+   * 파라미터는 BeanWrapper 대신 PropertyAccessors로 바인딩한다.
+   */
+  static ItemWriter<Person> jdbcBatchItemWriter(DataSource dataSource) {
     JdbcBatchItemWriter<Person> itemWriter = new JdbcBatchItemWriterBuilder<Person>()
         .dataSource(dataSource)
-        .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-        .sql("insert into person(name, age, address) values(:name, :age, :address)")
+        .itemPreparedStatementSetter(
+            new PropertyItemPreparedStatementSetter<>(Person.class, "name", "age", "address"))
+        .sql("insert into person(name, age, address) values(?, ?, ?)")
         .build();
     itemWriter.afterPropertiesSet();
     return itemWriter;
   }
 
-  private ItemWriter<Person> csvFileItemWriter() throws Exception {
-    BeanWrapperFieldExtractor<Person> fieldExtractor = new BeanWrapperFieldExtractor<>();
-    fieldExtractor.setNames(new String[]{"id", "name", "age", "address"});
+  /**
+   * natural_key(name, name_address)로 merge / on duplicate key update 한다.
+   */
+  static ItemWriter<Person> upsertItemWriter(DataSource dataSource, String naturalKey) {
+    PersonUpsertItemWriter itemWriter = new PersonUpsertItemWriter(dataSource,
+        PersonUpsertItemWriter.NaturalKey.of(naturalKey));
+    itemWriter.afterPropertiesSet();
+    return itemWriter;
+  }
+
+  static FlatFileItemWriter<Person> csvFileItemWriter(WritableResource resource) throws Exception {
+    PropertyFieldExtractor<Person> fieldExtractor = new PropertyFieldExtractor<>(Person.class,
+        "id", "name", "age", "address");
 
     DelimitedLineAggregator<Person> lineAggregator = new DelimitedLineAggregator<>();
     lineAggregator.setDelimiter(",");
@@ -114,7 +163,7 @@ public class ItemWriterConfiguration {
     FlatFileItemWriter<Person> itemWriter = new FlatFileItemWriterBuilder<Person>()
         .name("csvFileItemWriter")
         .encoding("UTF-8")
-        .resource(new FileSystemResource("output/test-output.csv"))
+        .resource(resource)
         .lineAggregator(lineAggregator)
         .headerCallback(writer -> writer.write("id,이름,나이,거주지"))
         .footerCallback(writer -> writer.write("---------------\n")) // footer에는 항상 개행문자 필요
@@ -124,6 +173,18 @@ public class ItemWriterConfiguration {
     return itemWriter;
   }
 
+  static ChannelPersonItemWriter channelCsvItemWriter(Path path, boolean gzip) {
+    ChannelPersonItemWriter itemWriter = new ChannelPersonItemWriter(path, gzip);
+    itemWriter.setName("channelCsvItemWriter");
+    return itemWriter;
+  }
+
+  static ColumnarPersonItemWriter columnarItemWriter(Path path) {
+    ColumnarPersonItemWriter itemWriter = new ColumnarPersonItemWriter(path);
+    itemWriter.setName("columnarItemWriter");
+    return itemWriter;
+  }
+
   private ItemReader<Person> itemReader() {
     return new CustomItemReader<>(getItems());
   }
@@ -0,0 +1,103 @@
+package spring.batch.part3;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.sql.DataSource;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * person 테이블을 id 기준 keyset 방식(where id > ? order by id limit ?)으로 page 단위로 읽는 Reader
+ * cursor를 열어두지 않고 page마다 짧은 query를 실행하므로 step 내내 connection을 붙잡지 않는다.
+ * read()는 동기화되어 있어 multi-thread step에서 공유할 수 있고,
+ * 마지막으로 읽은 id를 ExecutionContext에 저장해 재시작 시 그 다음 id부터 읽는다.
+ * (minId, maxId] 범위를 주면 IdRangePartitioner가 나눈 범위만 읽는다.
+ */
+public class KeysetPersonItemReader extends ItemStreamSupport implements
+    ItemStreamReader<Person> {
+
+  private static final String LAST_ID_KEY = "last.id";
+  private static final String SQL = "select id, name, age, address from person "
+      + "where id > ? and id <= ? order by id limit ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int pageSize;
+  private final long minId;
+  private final long maxId;
+  private final Deque<Person> page = new ArrayDeque<>();
+
+  private boolean saveState = true;
+  private long lastReadId;
+  private long lastFetchedId;
+  private boolean exhausted;
+
+  public KeysetPersonItemReader(DataSource dataSource, int pageSize) {
+    this(dataSource, pageSize, 0, Long.MAX_VALUE);
+  }
+
+  public KeysetPersonItemReader(DataSource dataSource, int pageSize, long minId, long maxId) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.pageSize = pageSize;
+    this.minId = minId;
+    this.maxId = maxId;
+    setName(KeysetPersonItemReader.class.getSimpleName());
+  }
+
+  /**
+   * multi-thread step에서는 chunk 커밋 순서와 읽은 순서가 달라 저장한 id가 정확하지 않으므로 false로 둔다.
+   */
+  public void setSaveState(boolean saveState) {
+    this.saveState = saveState;
+  }
+
+  @Override
+  public synchronized Person read() {
+    if (page.isEmpty() && !exhausted) {
+      fetchNextPage();
+    }
+
+    Person person = page.poll();
+    if (person != null) {
+      lastReadId = person.getId();
+    }
+    return person;
+  }
+
+  private void fetchNextPage() {
+    jdbcTemplate.query(SQL, rs -> {
+      page.add(new Person(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+    }, lastFetchedId, maxId, pageSize);
+
+    if (page.size() < pageSize) {
+      exhausted = true;
+    }
+    if (!page.isEmpty()) {
+      lastFetchedId = page.peekLast().getId();
+    }
+  }
+
+  @Override
+  public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+    String key = getExecutionContextKey(LAST_ID_KEY);
+    lastReadId = saveState && executionContext.containsKey(key)
+        ? executionContext.getLong(key) : minId;
+    lastFetchedId = lastReadId;
+    exhausted = false;
+    page.clear();
+  }
+
+  @Override
+  public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+    if (saveState) {
+      executionContext.putLong(getExecutionContextKey(LAST_ID_KEY), lastReadId);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws ItemStreamException {
+    page.clear();
+  }
+}
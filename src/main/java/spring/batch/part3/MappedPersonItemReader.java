@@ -0,0 +1,394 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.Resource;
+
+/**
+ * CSV 파일을 FileChannel.map으로 읽어 Person을 바로 만드는 Reader
+ * 줄마다 String, FieldSet, String[]을 만드는 FlatFileItemReader + DefaultLineMapper 조합과 같은 결과를 낸다.
+ * 읽은 위치(byte offset)를 ExecutionContext에 저장하므로 재시작 시 이어서 읽는다.
+ */
+public class MappedPersonItemReader extends ItemStreamSupport implements ItemStreamReader<Person> {
+
+  private static final String OFFSET_KEY = "offset";
+  private static final String LINE_KEY = "line";
+  private static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+  private static final int CACHE_SIZE = 1024;
+  private static final int CACHEABLE_LENGTH = 64;
+
+  private final Resource resource;
+  private final int linesToSkip;
+  private final int fieldCount;
+  private final int idIndex;
+  private final int nameIndex;
+  private final int ageIndex;
+  private final int addressIndex;
+  private final long startOffset;
+  private final long endOffset;
+
+  private long windowSize = DEFAULT_WINDOW_SIZE;
+
+  private final int[] fieldStarts;
+  private final int[] fieldEnds;
+  private final boolean[] fieldQuoted;
+  private byte[] scratch = new byte[256];
+
+  // 반복되는 짧은 값(나이, 거주지 등)은 같은 String 인스턴스를 재사용한다.
+  private final byte[][] cachedBytes = new byte[CACHE_SIZE][];
+  private final String[] cachedStrings = new String[CACHE_SIZE];
+
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private long bufferStart;
+  private long fileSize;
+  private long limit;
+  private long position;
+  private int lineNumber;
+  private int lineLength;
+
+  /**
+   * @param names 각 컬럼의 이름 (id, name, age, address). DelimitedLineTokenizer.setNames와 같은 순서로 지정한다.
+   */
+  public MappedPersonItemReader(Resource resource, int linesToSkip, String... names) {
+    this(resource, linesToSkip, 0, Long.MAX_VALUE, names);
+  }
+
+  /**
+   * [startOffset, endOffset) 범위만 읽는다. ByteRangePartitioner가 만든 파티션과 함께 사용한다.
+   */
+  public MappedPersonItemReader(Resource resource, int linesToSkip, long startOffset,
+      long endOffset, String... names) {
+    this.resource = resource;
+    this.linesToSkip = linesToSkip;
+    this.startOffset = startOffset;
+    this.endOffset = endOffset;
+    this.fieldCount = names.length;
+    this.idIndex = indexOf(names, "id");
+    this.nameIndex = indexOf(names, "name");
+    this.ageIndex = indexOf(names, "age");
+    this.addressIndex = indexOf(names, "address");
+    this.fieldStarts = new int[fieldCount];
+    this.fieldEnds = new int[fieldCount];
+    this.fieldQuoted = new boolean[fieldCount];
+    setName(MappedPersonItemReader.class.getSimpleName());
+  }
+
+  public void setWindowSize(long windowSize) {
+    this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    try {
+      channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+      fileSize = channel.size();
+      limit = Math.min(endOffset, fileSize);
+
+      String offsetKey = getExecutionContextKey(OFFSET_KEY);
+      if (executionContext.containsKey(offsetKey)) {
+        position = executionContext.getLong(offsetKey);
+        lineNumber = executionContext.getInt(getExecutionContextKey(LINE_KEY), 0);
+      } else {
+        position = startOffset;
+        lineNumber = 0;
+        if (startOffset == 0) {
+          for (int i = 0; i < linesToSkip && nextLine() >= 0; i++) {
+            // 헤더 스킵
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 열 수 없습니다 : " + resource, e);
+    }
+  }
+
+  @Override
+  public Person read() throws Exception {
+    while (true) {
+      int lineEnd = nextLine();
+      if (lineEnd < 0) {
+        return null;
+      }
+
+      int lineStart = lineEnd - lineLength;
+      if (lineLength > 0 && buffer.get(lineStart) == '#') {
+        continue; // FlatFileItemReader의 기본 주석 처리와 동일
+      }
+
+      return mapLine(lineStart, lineEnd);
+    }
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+    executionContext.putInt(getExecutionContextKey(LINE_KEY), lineNumber);
+  }
+
+  @Override
+  public void close() throws ItemStreamException {
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      throw new ItemStreamException("파일을 닫을 수 없습니다 : " + resource, e);
+    } finally {
+      channel = null;
+      buffer = null;
+    }
+  }
+
+  /**
+   * 현재 위치의 한 줄을 찾아 buffer 기준 끝 위치('\r', '\n' 제외)를 반환하고 position을 다음 줄로 옮긴다.
+   * 더 읽을 줄이 없으면 -1을 반환한다.
+   */
+  private int nextLine() throws IOException {
+    if (position >= limit) {
+      return -1;
+    }
+
+    while (true) {
+      if (buffer == null || position < bufferStart
+          || position >= bufferStart + buffer.limit()) {
+        map(position);
+      }
+
+      int start = (int) (position - bufferStart);
+      int bufferLimit = buffer.limit();
+      int end = start;
+      while (end < bufferLimit && buffer.get(end) != '\n') {
+        end++;
+      }
+
+      boolean eof = bufferStart + bufferLimit >= fileSize;
+      if (end == bufferLimit && !eof) {
+        if (start == 0) {
+          throw new ItemStreamException("한 줄이 window 크기보다 큽니다 : " + windowSize);
+        }
+        map(position); // 줄이 window 경계에 걸친 경우 줄 시작부터 다시 매핑
+        continue;
+      }
+
+      position = bufferStart + Math.min(end + 1, bufferLimit);
+      lineNumber++;
+
+      int contentEnd = end;
+      if (contentEnd > start && buffer.get(contentEnd - 1) == '\r') {
+        contentEnd--;
+      }
+      lineLength = contentEnd - start;
+      return contentEnd;
+    }
+  }
+
+  private void map(long offset) throws IOException {
+    long length = Math.min(windowSize, fileSize - offset);
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    bufferStart = offset;
+  }
+
+  private Person mapLine(int lineStart, int lineEnd) {
+    int count = 0;
+    int index = lineStart;
+
+    while (true) {
+      if (count == fieldCount) {
+        throw parseException("컬럼 수가 맞지 않습니다", lineStart, lineEnd);
+      }
+
+      boolean quoted = index < lineEnd && buffer.get(index) == '"';
+      int fieldStart = index;
+      if (quoted) {
+        index++;
+        while (index < lineEnd) {
+          if (buffer.get(index) == '"') {
+            if (index + 1 < lineEnd && buffer.get(index + 1) == '"') {
+              index += 2;
+              continue;
+            }
+            break;
+          }
+          index++;
+        }
+        index = Math.min(index + 1, lineEnd);
+      }
+      while (index < lineEnd && buffer.get(index) != ',') {
+        index++;
+      }
+
+      fieldStarts[count] = fieldStart;
+      fieldEnds[count] = index;
+      fieldQuoted[count] = quoted;
+      count++;
+
+      if (index >= lineEnd) {
+        break;
+      }
+      index++; // 구분자 건너뛰기
+    }
+
+    if (count != fieldCount) {
+      throw parseException("컬럼 수가 맞지 않습니다", lineStart, lineEnd);
+    }
+
+    try {
+      return new Person(
+          idIndex < 0 ? 0 : readInt(idIndex),
+          readString(nameIndex),
+          readString(ageIndex),
+          readString(addressIndex));
+    } catch (NumberFormatException e) {
+      throw parseException(e.getMessage(), lineStart, lineEnd);
+    }
+  }
+
+  private int readInt(int field) {
+    int start = fieldStarts[field];
+    int end = fieldEnds[field];
+    while (start < end && buffer.get(start) <= ' ') {
+      start++;
+    }
+    while (end > start && buffer.get(end - 1) <= ' ') {
+      end--;
+    }
+    if (start == end) {
+      throw new NumberFormatException("빈 값은 숫자로 변환할 수 없습니다");
+    }
+
+    boolean negative = buffer.get(start) == '-';
+    int index = negative || buffer.get(start) == '+' ? start + 1 : start;
+    if (index == end) {
+      throw new NumberFormatException("숫자가 아닙니다");
+    }
+
+    long value = 0;
+    for (; index < end; index++) {
+      int digit = buffer.get(index) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException("숫자가 아닙니다");
+      }
+      value = value * 10 + digit;
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        throw new NumberFormatException("int 범위를 벗어났습니다");
+      }
+    }
+    value = negative ? -value : value;
+    if (value > Integer.MAX_VALUE) {
+      throw new NumberFormatException("int 범위를 벗어났습니다");
+    }
+    return (int) value;
+  }
+
+  private String readString(int field) {
+    if (field < 0) {
+      return null;
+    }
+
+    int length = copyField(field);
+
+    // DefaultFieldSet.readString과 같이 앞뒤 공백을 제거한다.
+    int start = 0;
+    int end = length;
+    while (start < end && scratch[start] <= ' ' && scratch[start] >= 0) {
+      start++;
+    }
+    while (end > start && scratch[end - 1] <= ' ' && scratch[end - 1] >= 0) {
+      end--;
+    }
+
+    return decode(start, end - start);
+  }
+
+  /**
+   * 필드 byte를 scratch 배열로 복사한다. 따옴표로 감싼 필드는 따옴표를 벗기고 ""를 "로 바꾼다.
+   */
+  private int copyField(int field) {
+    int start = fieldStarts[field];
+    int end = fieldEnds[field];
+    ensureScratch(end - start);
+
+    if (!fieldQuoted[field]) {
+      buffer.get(start, scratch, 0, end - start);
+      return end - start;
+    }
+
+    int length = 0;
+    int index = start + 1;
+    while (index < end) {
+      byte b = buffer.get(index);
+      if (b == '"') {
+        if (index + 1 < end && buffer.get(index + 1) == '"') {
+          scratch[length++] = '"';
+          index += 2;
+          continue;
+        }
+        index++;
+        // 닫는 따옴표 뒤의 값은 그대로 붙인다.
+        while (index < end) {
+          scratch[length++] = buffer.get(index++);
+        }
+        break;
+      }
+      scratch[length++] = b;
+      index++;
+    }
+    return length;
+  }
+
+  private String decode(int offset, int length) {
+    if (length > CACHEABLE_LENGTH) {
+      return new String(scratch, offset, length, StandardCharsets.UTF_8);
+    }
+
+    int hash = 1;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + scratch[i];
+    }
+    int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+
+    byte[] cached = cachedBytes[slot];
+    if (cached != null && Arrays.equals(cached, 0, cached.length, scratch, offset,
+        offset + length)) {
+      return cachedStrings[slot];
+    }
+
+    String value = new String(scratch, offset, length, StandardCharsets.UTF_8);
+    cachedBytes[slot] = Arrays.copyOfRange(scratch, offset, offset + length);
+    cachedStrings[slot] = value;
+    return value;
+  }
+
+  private void ensureScratch(int length) {
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+  }
+
+  private FlatFileParseException parseException(String message, int lineStart, int lineEnd) {
+    byte[] line = new byte[lineEnd - lineStart];
+    buffer.get(lineStart, line, 0, line.length);
+    String input = new String(line, StandardCharsets.UTF_8);
+    return new FlatFileParseException("Parsing error at line: " + lineNumber + " in resource=["
+        + resource + "], input=[" + input + "] : " + message, input, lineNumber);
+  }
+
+  private static int indexOf(String[] names, String name) {
+    for (int i = 0; i < names.length; i++) {
+      if (name.equals(names[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -1,5 +1,11 @@
 package spring.batch.part3;
 
+/**
+ * 이름이 없는 item은 몇 번을 다시 검사해도 결과가 같으므로 stack trace를 만들지 않는다.
+ */
 public class NotFoundNameException extends RuntimeException{
 
+  public NotFoundNameException() {
+    super(null, null, false, false);
+  }
 }
@@ -0,0 +1,156 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+
+/**
+ * item 목록을 chunkSize 크기의 slice로 나눠 ForkJoinPool에서 동시에 process하고, 결과를 원래 순서대로 합쳐 write하는 Tasklet
+ * execute 한 번(하나의 transaction)에 최대 parallelism개의 slice를 처리하며, 마지막 slice는 chunkSize보다 작을 수 있다.
+ * 처리 위치와 slice 처리 시간(개수, 합계, 최대)을 step ExecutionContext에 기록하므로 재시작 시 이어서 처리한다.
+ * pool을 정리하려면 step에 StepExecutionListener로도 등록해야 한다.
+ */
+@Slf4j
+public class ParallelChunkTasklet<I, O> implements Tasklet, StepExecutionListener {
+
+  public static final String POSITION_KEY = "parallelChunkTasklet.position";
+  public static final String SLICE_COUNT_KEY = "parallelChunkTasklet.slice.count";
+  public static final String SLICE_TOTAL_NANOS_KEY = "parallelChunkTasklet.slice.total.nanos";
+  public static final String SLICE_MAX_NANOS_KEY = "parallelChunkTasklet.slice.max.nanos";
+
+  private final List<I> items;
+  private final int chunkSize;
+  private final int parallelism;
+  private final ItemProcessor<I, O> itemProcessor;
+  private final ItemWriter<O> itemWriter;
+
+  private ForkJoinPool pool;
+
+  public ParallelChunkTasklet(List<I> items, int chunkSize, int parallelism,
+      ItemProcessor<I, O> itemProcessor, ItemWriter<O> itemWriter) {
+    this.items = items;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    this.itemProcessor = itemProcessor;
+    this.itemWriter = itemWriter;
+  }
+
+  @Override
+  public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext)
+      throws Exception {
+    ExecutionContext executionContext = contribution.getStepExecution().getExecutionContext();
+    int from = executionContext.getInt(POSITION_KEY, 0);
+    if (from >= items.size()) {
+      return RepeatStatus.FINISHED;
+    }
+    int to = (int) Math.min(items.size(), from + (long) chunkSize * parallelism);
+
+    if (pool == null) {
+      pool = new ForkJoinPool(parallelism);
+    }
+
+    List<ForkJoinTask<Slice<O>>> tasks = new ArrayList<>();
+    for (int start = from; start < to; start += chunkSize) {
+      List<I> slice = items.subList(start, Math.min(start + chunkSize, to));
+      tasks.add(pool.submit(() -> process(slice)));
+    }
+
+    // 끝난 순서와 관계없이 slice 순서대로 합친다.
+    Chunk<O> outputs = new Chunk<>();
+    long filtered = 0;
+    long sliceCount = executionContext.getLong(SLICE_COUNT_KEY, 0L);
+    long totalNanos = executionContext.getLong(SLICE_TOTAL_NANOS_KEY, 0L);
+    long maxNanos = executionContext.getLong(SLICE_MAX_NANOS_KEY, 0L);
+
+    for (ForkJoinTask<Slice<O>> task : tasks) {
+      Slice<O> slice = join(task);
+      for (O output : slice.outputs()) {
+        outputs.add(output);
+      }
+      filtered += slice.filtered();
+      sliceCount++;
+      totalNanos += slice.nanos();
+      maxNanos = Math.max(maxNanos, slice.nanos());
+      log.debug("slice {} : {} items, {} us", sliceCount, slice.outputs().size() + slice.filtered(),
+          slice.nanos() / 1_000);
+    }
+
+    for (int i = from; i < to; i++) {
+      contribution.incrementReadCount();
+    }
+    contribution.incrementFilterCount(filtered);
+    if (!outputs.isEmpty()) {
+      itemWriter.write(outputs);
+    }
+    contribution.incrementWriteCount(outputs.size());
+
+    executionContext.putInt(POSITION_KEY, to);
+    executionContext.putLong(SLICE_COUNT_KEY, sliceCount);
+    executionContext.putLong(SLICE_TOTAL_NANOS_KEY, totalNanos);
+    executionContext.putLong(SLICE_MAX_NANOS_KEY, maxNanos);
+
+    return to >= items.size() ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+  }
+
+  private Slice<O> process(List<I> slice) throws Exception {
+    long start = System.nanoTime();
+    List<O> outputs = new ArrayList<>(slice.size());
+    int filtered = 0;
+
+    for (I item : slice) {
+      O output = itemProcessor.process(item);
+      if (output == null) {
+        filtered++;
+      } else {
+        outputs.add(output);
+      }
+    }
+    return new Slice<>(outputs, filtered, System.nanoTime() - start);
+  }
+
+  private Slice<O> join(ForkJoinTask<Slice<O>> task) throws Exception {
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public ExitStatus afterStep(StepExecution stepExecution) {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+
+    ExecutionContext executionContext = stepExecution.getExecutionContext();
+    long sliceCount = executionContext.getLong(SLICE_COUNT_KEY, 0L);
+    if (sliceCount > 0) {
+      log.info("slices : {}, mean : {} us, max : {} us", sliceCount,
+          executionContext.getLong(SLICE_TOTAL_NANOS_KEY) / sliceCount / 1_000,
+          executionContext.getLong(SLICE_MAX_NANOS_KEY) / 1_000);
+    }
+    return stepExecution.getExitStatus();
+  }
+
+  private record Slice<O>(List<O> outputs, int filtered, long nanos) {
+
+  }
+}
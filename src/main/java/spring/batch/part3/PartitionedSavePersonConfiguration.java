@@ -0,0 +1,228 @@
+package spring.batch.part3;
+
+import io.micrometer.core.instrument.util.StringUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * person.csv를 byte 범위로 나눠 여러 worker thread에서 동시에 저장하는 savePersonJob
+ * 파티션마다 별도의 StepExecution(ExecutionContext)을 가지므로 재시작 시 실패한 파티션만 다시 처리한다.
+ * input_file을 주면 classpath의 person.csv 대신 그 파일을 읽는다.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionedSavePersonConfiguration {
+
+  private static final int DEFAULT_GRID_SIZE = 4;
+
+  private static final String WORKER_STEP_NAME = "savePersonWorkerStep";
+
+  private static final Path JOURNAL_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"),
+      "spring-batch-dedup");
+
+  private final JobRepository jobRepository;
+
+  private final JobExplorer jobExplorer;
+
+  private final PlatformTransactionManager platformTransactionManager;
+
+  private final PersonRepository personRepository;
+
+  @Bean
+  public Job partitionedSavePersonJob() {
+    final String JOB_NAME = "partitionedSavePersonJob";
+    return new JobBuilder(JOB_NAME, jobRepository)
+        .incrementer(new RunIdIncrementer())
+        .listener(journalCleanupListener())
+        .start(partitionedSavePersonStep(null, null))
+        .build();
+  }
+
+  @Bean
+  @JobScope
+  public Step partitionedSavePersonStep(@Value("#{jobParameters[grid_size]}") String gridSize,
+      @Value("#{jobParameters[input_file]}") String inputFile) {
+    final String STEP_NAME = "partitionedSavePersonStep";
+    return new StepBuilder(STEP_NAME, jobRepository)
+        .partitioner(WORKER_STEP_NAME, new ByteRangePartitioner(resource(inputFile), 1))
+        .step(savePersonWorkerStep())
+        .gridSize(StringUtils.isNotEmpty(gridSize) ? Integer.parseInt(gridSize) : DEFAULT_GRID_SIZE)
+        .taskExecutor(partitionTaskExecutor(null))
+        .build();
+  }
+
+  /**
+   * 중복 검사 Processor는 파티션마다 따로 만들어 stream, listener로 등록하고, key 저장소만 job 단위로 공유한다.
+   */
+  @Bean
+  public Step savePersonWorkerStep() {
+    DuplicateValidationProcessor<Person> duplicateValidationProcessor =
+        partitionDuplicateValidationProcessor(null, null);
+    return new StepBuilder(WORKER_STEP_NAME, jobRepository)
+        .<Person, Person>chunk(10, platformTransactionManager)
+        .reader(partitionItemReader(null, null, null))
+        .processor(SavePersonConfiguration.itemProcessor(duplicateValidationProcessor))
+        .writer(itemWriter())
+        .stream(duplicateValidationProcessor)
+        .listener((StepExecutionListener) duplicateValidationProcessor)
+        .faultTolerant()
+        .skip(NotFoundNameException.class)
+        .skipLimit(2)
+        .build();
+  }
+
+  @Bean
+  public TaskExecutor partitionTaskExecutor(
+      @Value("${save-person.partition.pool-size:4}") Integer poolSize) {
+    ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    taskExecutor.setCorePoolSize(poolSize);
+    taskExecutor.setMaxPoolSize(poolSize);
+    taskExecutor.setThreadNamePrefix("partition-");
+    return taskExecutor;
+  }
+
+  @Bean
+  @StepScope
+  public ByteRangeItemReader<Person> partitionItemReader(
+      @Value("#{jobParameters[input_file]}") String inputFile,
+      @Value("#{stepExecutionContext[startOffset]}") Long startOffset,
+      @Value("#{stepExecutionContext[endOffset]}") Long endOffset) {
+    DefaultLineMapper<Person> lineMapper = new DefaultLineMapper<>();
+    DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
+    lineTokenizer.setNames("name", "age", "address");
+    lineMapper.setLineTokenizer(lineTokenizer);
+    lineMapper.setFieldSetMapper(
+        fieldSet -> new Person(fieldSet.readString(0), fieldSet.readString(1),
+            fieldSet.readString(2)));
+
+    ByteRangeItemReader<Person> itemReader = new ByteRangeItemReader<>(resource(inputFile),
+        lineMapper, startOffset, endOffset);
+    itemReader.setName("partitionItemReader");
+    return itemReader;
+  }
+
+  /**
+   * 파티션마다 journal을 따로 쓰는 중복 검사 Processor. journal은 job instance별 디렉터리에 두고 job이 완료되면 지운다.
+   */
+  @Bean
+  @StepScope
+  public DuplicateValidationProcessor<Person> partitionDuplicateValidationProcessor(
+      @Value("#{jobParameters[allow_duplicate]}") String allowDuplicate,
+      @Value("#{stepExecution.jobExecution.jobId}") Long jobInstanceId) {
+    DuplicateValidationProcessor<Person> processor = new DuplicateValidationProcessor<>(
+        Person::getName, Boolean.parseBoolean(allowDuplicate),
+        partitionDuplicateKeyStore(null, null, null, null, null));
+    processor.setKeyPoolShared(true);
+    processor.setJournalDirectory(journalDirectory(jobInstanceId));
+    return processor;
+  }
+
+  /**
+   * 파티션 간 중복 검사를 위해 Job 단위로 공유하는 key 저장소
+   * 재시작이면 이전 실행에서 완료된 파티션의 journal로 커밋된 key를 먼저 복원한다.
+   * (실패한 파티션은 다시 실행될 때 자신의 journal을 복원한다)
+   */
+  @Bean(destroyMethod = "close")
+  @JobScope
+  public DuplicateKeyStore partitionDuplicateKeyStore(
+      @Value("#{jobParameters[key_store]}") String keyStore,
+      @Value("#{jobParameters[bloom_filter]}") String bloomFilter,
+      @Value("#{jobParameters[bloom_expected_keys]}") Long bloomExpectedKeys,
+      @Value("#{jobParameters[bloom_false_positive_rate]}") Double bloomFalsePositiveRate,
+      @Value("#{jobExecution}") JobExecution jobExecution) {
+    DuplicateKeyStore keyPool = SavePersonConfiguration.duplicateKeyStore(keyStore, bloomFilter,
+        bloomExpectedKeys, bloomFalsePositiveRate);
+
+    for (JobExecution previous : jobExplorer.getJobExecutions(jobExecution.getJobInstance())) {
+      if (previous.getId().equals(jobExecution.getId())) {
+        continue;
+      }
+      for (StepExecution stepExecution : previous.getStepExecutions()) {
+        if (stepExecution.getStepName().startsWith(WORKER_STEP_NAME)
+            && stepExecution.getStatus() == BatchStatus.COMPLETED) {
+          try {
+            DuplicateValidationProcessor.restore(stepExecution.getExecutionContext(), keyPool);
+          } catch (IOException e) {
+            throw new UncheckedIOException("완료된 파티션의 journal을 복원할 수 없습니다", e);
+          }
+        }
+      }
+    }
+    return keyPool;
+  }
+
+  /**
+   * job이 정상 종료되면 파티션 journal 디렉터리를 지운다. 실패한 경우 재시작에서 사용한다.
+   */
+  private JobExecutionListener journalCleanupListener() {
+    return new JobExecutionListener() {
+      @Override
+      public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+          return;
+        }
+
+        Path directory = journalDirectory(jobExecution.getJobId());
+        if (!Files.exists(directory)) {
+          return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+          for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+            Files.deleteIfExists(path);
+          }
+        } catch (IOException e) {
+          log.warn("파티션 journal을 지울 수 없습니다 : {}", directory, e);
+        }
+      }
+    };
+  }
+
+  private static Path journalDirectory(Long jobInstanceId) {
+    return JOURNAL_DIRECTORY.resolve("partitioned-" + jobInstanceId);
+  }
+
+  private static Resource resource(String inputFile) {
+    return StringUtils.isNotEmpty(inputFile) ? new FileSystemResource(inputFile)
+        : new ClassPathResource("person.csv");
+  }
+
+  private ItemWriter<Person> itemWriter() {
+    return new RepositoryItemWriterBuilder<Person>()
+        .repository(personRepository)
+        .build();
+  }
+}
@@ -0,0 +1,43 @@
+package spring.batch.part3;
+
+import javax.sql.DataSource;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 중복 검사 없이 읽은 그대로 person_staging 테이블에 chunk 단위 batch insert 하는 Writer (dedup_mode=database)
+ * 행마다 job instance id를 함께 저장하므로 재시작 시에는 이미 커밋된 chunk의 행을 그대로 이어서 사용한다.
+ * 중복 제거와 person 테이블 반영은 PromotePersonTasklet이 한다. (테이블은 person.sql에서 만든다)
+ */
+public class PersonStagingItemWriter implements ItemWriter<Person>, StepExecutionListener {
+
+  static final String TABLE = "person_staging";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private long jobInstanceId;
+
+  public PersonStagingItemWriter(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @Override
+  public void beforeStep(StepExecution stepExecution) {
+    jobInstanceId = stepExecution.getJobExecution().getJobId();
+  }
+
+  @Override
+  public void write(Chunk<? extends Person> items) {
+    jdbcTemplate.batchUpdate("insert into " + TABLE
+            + " (job_instance_id, name, age, address) values (?, ?, ?, ?)",
+        items.getItems(), items.size(), (ps, person) -> {
+          ps.setLong(1, jobInstanceId);
+          ps.setString(2, person.getName());
+          ps.setString(3, person.getAge());
+          ps.setString(4, person.getAddress());
+        });
+  }
+}
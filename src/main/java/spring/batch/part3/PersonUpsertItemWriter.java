@@ -0,0 +1,129 @@
+package spring.batch.part3;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.support.DatabaseType;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+/**
+ * natural key(name 또는 name+address)로 person을 insert 하거나 update 하는 Writer
+ * chunk마다 한 번의 JDBC batch로 실행되므로 다시 적재해도 행이 늘어나지 않는다.
+ * <pre>
+ * H2    : merge into person (...) key (name) values (...)
+ * MySQL : insert into person (...) values (...) on duplicate key update ...
+ *         (natural key에 unique index가 필요하다. 예: create unique index person_name on person(name))
+ * </pre>
+ * MySQL은 unique index가 없으면 on duplicate key update가 insert로만 동작하므로, 생성 시점에 natural key와
+ * 같은 컬럼의 unique index가 있는지 확인하고 없으면 IllegalStateException을 던진다.
+ */
+public class PersonUpsertItemWriter extends JdbcBatchItemWriter<Person> {
+
+  public enum NaturalKey {
+    NAME(List.of("name")),
+    NAME_ADDRESS(List.of("name", "address"));
+
+    private final List<String> columns;
+
+    NaturalKey(List<String> columns) {
+      this.columns = columns;
+    }
+
+    public static NaturalKey of(String value) {
+      if (value == null || value.isEmpty()) {
+        return NAME;
+      }
+      return valueOf(value.toUpperCase(Locale.ROOT).replace('+', '_'));
+    }
+  }
+
+  private static final List<String> COLUMNS = List.of("name", "age", "address");
+
+  public PersonUpsertItemWriter(DataSource dataSource, NaturalKey naturalKey) {
+    DatabaseType databaseType = databaseType(dataSource);
+    if (databaseType == DatabaseType.MYSQL || databaseType == DatabaseType.MARIADB) {
+      assertUniqueIndex(dataSource, naturalKey);
+    }
+
+    setDataSource(dataSource);
+    setSql(sql(databaseType, naturalKey));
+    setItemPreparedStatementSetter(new PropertyItemPreparedStatementSetter<>(Person.class,
+        COLUMNS.toArray(String[]::new)));
+    // MySQL은 값이 같은 행을 0, update 된 행을 2로 반환하므로 update 건수를 검사하지 않는다.
+    setAssertUpdates(false);
+  }
+
+  static String sql(DatabaseType databaseType, NaturalKey naturalKey) {
+    String columns = String.join(", ", COLUMNS);
+    String values = String.join(", ", COLUMNS.stream().map(column -> "?").toList());
+
+    return switch (databaseType) {
+      case H2 -> "merge into person (" + columns + ") key (" + String.join(", ",
+          naturalKey.columns) + ") values (" + values + ")";
+      case MYSQL, MARIADB -> "insert into person (" + columns + ") values (" + values + ")"
+          + " on duplicate key update " + String.join(", ", COLUMNS.stream()
+          .filter(column -> !naturalKey.columns.contains(column))
+          .map(column -> column + " = values(" + column + ")")
+          .toList());
+      default -> throw new IllegalArgumentException("upsert를 지원하지 않는 DB 입니다 : " + databaseType);
+    };
+  }
+
+  /**
+   * person 테이블에 naturalKey와 컬럼 구성이 같은 unique index가 있는지 확인한다.
+   */
+  static void assertUniqueIndex(DataSource dataSource, NaturalKey naturalKey) {
+    Set<String> expected = new HashSet<>(naturalKey.columns);
+    boolean exists;
+    try {
+      exists = JdbcUtils.extractDatabaseMetaData(dataSource,
+          metaData -> uniqueIndexes(metaData).containsValue(expected));
+    } catch (MetaDataAccessException e) {
+      throw new IllegalStateException("person 테이블의 index를 확인할 수 없습니다", e);
+    }
+
+    if (!exists) {
+      throw new IllegalStateException("upsert 하려면 person(" + String.join(", ", naturalKey.columns)
+          + ")에 unique index가 필요합니다. 예: create unique index person_"
+          + String.join("_", naturalKey.columns) + " on person(" + String.join(", ",
+          naturalKey.columns) + ")");
+    }
+  }
+
+  /**
+   * index 이름별 컬럼 목록 (컬럼 이름은 소문자)
+   */
+  private static Map<String, Set<String>> uniqueIndexes(DatabaseMetaData metaData)
+      throws SQLException {
+    String table = metaData.storesUpperCaseIdentifiers() ? "PERSON" : "person";
+    Map<String, Set<String>> indexes = new HashMap<>();
+    try (ResultSet resultSet = metaData.getIndexInfo(null, null, table, true, false)) {
+      while (resultSet.next()) {
+        String indexName = resultSet.getString("INDEX_NAME");
+        String columnName = resultSet.getString("COLUMN_NAME");
+        if (indexName != null && columnName != null) {
+          indexes.computeIfAbsent(indexName, name -> new HashSet<>())
+              .add(columnName.toLowerCase(Locale.ROOT));
+        }
+      }
+    }
+    return indexes;
+  }
+
+  private static DatabaseType databaseType(DataSource dataSource) {
+    try {
+      return DatabaseType.fromMetaData(dataSource);
+    } catch (MetaDataAccessException e) {
+      throw new IllegalStateException("DB 종류를 확인할 수 없습니다", e);
+    }
+  }
+}
@@ -1,7 +1,13 @@
 package spring.batch.part3;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.classify.BinaryExceptionClassifier;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.RetryListener;
@@ -9,37 +15,146 @@ import org.springframework.retry.support.RetryTemplate;
 import org.springframework.retry.support.RetryTemplateBuilder;
 
 @Log4j2
-public class PersonValidationRetryProcessor implements ItemProcessor<Person, Person> {
+public class PersonValidationRetryProcessor implements ItemProcessor<Person, Person>,
+    ChunkItemProcessor<Person, Person> {
 
+  /**
+   * FAST : 이름이 없는 item은 예외 없이 바로 UNKNOWN으로 복구하고, 추가 검증(validator)의 실패는 일시적(transient)일
+   * 때만 RetryTemplate으로 재시도한다. 그 외 실패는 step으로 던진다.
+   * RETRY : 모든 item을 RetryTemplate으로 처리한다. (기존 방식)
+   */
+  public enum Mode {
+    FAST, RETRY;
+
+    public static Mode of(String value) {
+      return "retry".equalsIgnoreCase(value) ? RETRY : FAST;
+    }
+  }
+
+  private final Mode mode;
+  private final UnaryOperator<Person> validator;
   private final RetryTemplate retryTemplate;
+  private final SavePersonRetryListener retryListener = new SavePersonRetryListener();
+
+  // 다시 시도하면 성공할 수 있는 실패만 재시도한다.
+  private final BinaryExceptionClassifier transientFailures = new BinaryExceptionClassifier(
+      List.of(TransientDataAccessException.class), true);
 
   public PersonValidationRetryProcessor() {
+    this(Mode.FAST);
+  }
+
+  public PersonValidationRetryProcessor(Mode mode) {
+    this(mode, UnaryOperator.identity());
+  }
+
+  /**
+   * @param validator 이름 검사 뒤에 실행할 추가 검증(외부 조회 등). 실패하면 예외를 던진다.
+   */
+  public PersonValidationRetryProcessor(Mode mode, UnaryOperator<Person> validator) {
+    this.mode = mode;
+    this.validator = validator;
     this.retryTemplate = new RetryTemplateBuilder()
         // NotFoundNameException이 3번 발생할 때까지 재시도
         .maxAttempts(3)
         .retryOn(NotFoundNameException.class)
-        .withListener(new SavePersonRetryListener())
+        .retryOn(TransientDataAccessException.class)
+        .withListener(retryListener)
         .build();
   }
 
   @Override
   public Person process(Person item) throws Exception {
+    if (mode == Mode.RETRY) {
+      return processWithRetry(item);
+    }
+
+    if (!item.isNotEmptyName()) {
+      retryListener.onPermanentFailure();
+      return item.unknownName();
+    }
+    return processFast(item);
+  }
+
+  /**
+   * chunk 단위 검증. FAST 모드는 이름이 빈 item을 한 번에 골라 복구하고, 영구 실패 횟수도 한 번에 더한다.
+   * 예외가 난 item은 그 예외를 해당 item의 실패로 기록한다.
+   */
+  @Override
+  public void process(List<? extends Person> items, ChunkResults<Person> results) {
+    int recovered = 0;
+    for (int i = 0; i < items.size(); i++) {
+      Person item = items.get(i);
+      try {
+        if (mode == Mode.RETRY) {
+          results.set(i, processWithRetry(item));
+        } else if (!item.isNotEmptyName()) {
+          results.set(i, item.unknownName());
+          recovered++;
+        } else {
+          results.set(i, processFast(item));
+        }
+      } catch (RuntimeException e) {
+        results.fail(i, e);
+      }
+    }
+
+    if (recovered > 0) {
+      retryListener.onPermanentFailures(recovered);
+    }
+  }
+
+  private Person processFast(Person item) {
+    try {
+      return validator.apply(item);
+    } catch (RuntimeException e) {
+      if (!transientFailures.classify(e)) {
+        throw e;
+      }
+      return processWithRetry(item);
+    }
+  }
+
+  private Person processWithRetry(Person item) {
     return this.retryTemplate.execute(context -> {
       // RetryCallback : RetryTemplate의 시작점(processor가 시작할 때)
       // RetryCallback이 3번 호출된 후에 RecoveryCallback이 발생
-
-      if (item.isNotEmptyName()) {
-        return item;
-      }
-      throw new NotFoundNameException();
+      return validate(item);
     }, context -> {
       // RecoveryCallback
       return item.unknownName();
     });
   }
 
+  private Person validate(Person item) {
+    if (item.isNotEmptyName()) {
+      return validator.apply(item);
+    }
+    throw new NotFoundNameException();
+  }
+
+  /**
+   * 검증 재시도를 step의 RetryListener(SavePersonMetricsListener 등)에도 알린다.
+   */
+  public void registerRetryListener(RetryListener listener) {
+    retryTemplate.registerListener(listener);
+  }
+
+  public SavePersonRetryListener getRetryListener() {
+    return retryListener;
+  }
+
+  /**
+   * item마다 로그를 남기지 않고 횟수를 모아 LOG_INTERVAL 건마다 INFO로 요약한다. 개별 이벤트는 DEBUG로 남긴다.
+   */
   public static class SavePersonRetryListener implements RetryListener {
 
+    private static final long LOG_INTERVAL = 1_000;
+
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder permanentFailures = new LongAdder();
+    private final AtomicLong events = new AtomicLong();
 
     @Override
     public <T, E extends Throwable> boolean open(RetryContext context,
@@ -50,14 +165,53 @@ public class PersonValidationRetryProcessor implements ItemProcessor<Person, Per
     @Override
     public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
         Throwable throwable) {
-      log.info("close");
+      if (throwable != null) {
+        exhausted.increment();
+      }
+      log.debug("close");
+      sample();
     }
 
     @Override
     public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
         Throwable throwable) {
       // NotFoundNameException이 발생했을 때 동작
-      log.error("onError");
+      errors.increment();
+      log.debug("onError : {}", throwable.getClass().getSimpleName());
+    }
+
+    void onPermanentFailure() {
+      onPermanentFailures(1);
+    }
+
+    void onPermanentFailures(int count) {
+      permanentFailures.add(count);
+      log.debug("permanent failure, recovered without retry : {}", count);
+      sample(count);
+    }
+
+    public long getErrorCount() {
+      return errors.sum();
+    }
+
+    public long getExhaustedCount() {
+      return exhausted.sum();
+    }
+
+    public long getPermanentFailureCount() {
+      return permanentFailures.sum();
+    }
+
+    private void sample() {
+      sample(1);
+    }
+
+    private void sample(int count) {
+      long after = events.addAndGet(count);
+      if (after / LOG_INTERVAL != (after - count) / LOG_INTERVAL) {
+        log.info("retry errors : {}, exhausted : {}, permanent failures : {}", getErrorCount(),
+            getExhaustedCount(), getPermanentFailureCount());
+      }
     }
   }
 }
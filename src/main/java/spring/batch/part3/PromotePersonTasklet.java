@@ -0,0 +1,54 @@
+package spring.batch.part3;
+
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * person_staging에 적재된 행 중 이름별로 처음 읽은 행만 한 번의 INSERT ... SELECT로 person에 반영한다.
+ * DuplicateValidationProcessor와 같은 기준(name, 먼저 읽은 행 우선)이며, 반영한 행은 writeCount, 걸러진 행은 filterCount로 집계한다.
+ * allowDuplicate 이면 중복을 지우지 않고 staging의 모든 행을 읽은 순서대로 반영한다.
+ * 반영과 staging 정리가 한 transaction 이므로 실패 후 다시 실행해도 두 번 반영되지 않는다.
+ */
+@Slf4j
+public class PromotePersonTasklet implements Tasklet {
+
+  private static final String PROMOTE_FIRST_SQL = "insert into person (name, age, address)"
+      + " select name, age, address from ("
+      + "   select seq, name, age, address,"
+      + "     row_number() over (partition by name order by seq) as rn"
+      + "   from " + PersonStagingItemWriter.TABLE + " where job_instance_id = ?"
+      + " ) staged where rn = 1 order by seq";
+  private static final String PROMOTE_ALL_SQL = "insert into person (name, age, address)"
+      + " select name, age, address from " + PersonStagingItemWriter.TABLE
+      + " where job_instance_id = ? order by seq";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean allowDuplicate;
+
+  public PromotePersonTasklet(DataSource dataSource, boolean allowDuplicate) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.allowDuplicate = allowDuplicate;
+  }
+
+  @Override
+  public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+    long jobInstanceId = contribution.getStepExecution().getJobExecution().getJobId();
+
+    long staged = jdbcTemplate.queryForObject("select count(*) from "
+        + PersonStagingItemWriter.TABLE + " where job_instance_id = ?", Long.class, jobInstanceId);
+    int promoted = jdbcTemplate.update(allowDuplicate ? PROMOTE_ALL_SQL : PROMOTE_FIRST_SQL,
+        jobInstanceId);
+    jdbcTemplate.update("delete from " + PersonStagingItemWriter.TABLE
+        + " where job_instance_id = ?", jobInstanceId);
+
+    contribution.incrementWriteCount(promoted);
+    contribution.incrementFilterCount(staged - promoted);
+    log.info("promoted {} of {} staged persons", promoted, staged);
+    return RepeatStatus.FINISHED;
+  }
+}
@@ -0,0 +1,130 @@
+package spring.batch.part3;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 클래스의 필드 값을 읽는 accessor를 LambdaMetafactory로 만들어 클래스마다 한 번만 캐시한다.
+ * getter가 있으면 getter를 직접 호출하는 Function을 만들고, 없으면 필드 MethodHandle을 사용한다.
+ * 만든 뒤에는 item마다 reflection(BeanWrapper) 없이 일반 메서드 호출로 값을 읽는다.
+ */
+public final class PropertyAccessors<T> {
+
+  private static final ClassValue<PropertyAccessors<?>> CACHE = new ClassValue<>() {
+    @Override
+    protected PropertyAccessors<?> computeValue(Class<?> type) {
+      return new PropertyAccessors<>(type);
+    }
+  };
+
+  private final Class<T> type;
+  private final Map<String, Function<T, Object>> accessors = new LinkedHashMap<>();
+
+  @SuppressWarnings("unchecked")
+  public static <T> PropertyAccessors<T> of(Class<T> type) {
+    return (PropertyAccessors<T>) CACHE.get(type);
+  }
+
+  private PropertyAccessors(Class<T> type) {
+    this.type = type;
+
+    try {
+      Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+      for (Field field : fields(type)) {
+        accessors.put(field.getName(), accessor(lookup, field));
+      }
+    } catch (Throwable e) {
+      throw new IllegalStateException("accessor를 만들 수 없습니다 : " + type.getName(), e);
+    }
+  }
+
+  public List<String> names() {
+    return List.copyOf(accessors.keySet());
+  }
+
+  public Function<T, Object> get(String name) {
+    Function<T, Object> accessor = accessors.get(name);
+    if (accessor == null) {
+      throw new IllegalArgumentException(type.getSimpleName() + "에 " + name + " 필드가 없습니다");
+    }
+    return accessor;
+  }
+
+  /**
+   * 상위 클래스의 필드부터 선언 순서대로, static/transient 필드는 제외한다.
+   */
+  private static List<Field> fields(Class<?> type) {
+    Deque<Class<?>> hierarchy = new ArrayDeque<>();
+    for (Class<?> current = type; current != null && current != Object.class;
+        current = current.getSuperclass()) {
+      hierarchy.push(current);
+    }
+
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> current : hierarchy) {
+      for (Field field : current.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)
+            && !field.isSynthetic()) {
+          fields.add(field);
+        }
+      }
+    }
+    return fields;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Function<T, Object> accessor(Lookup lookup, Field field) throws Throwable {
+    Method getter = getter(field);
+    if (getter == null) {
+      MethodHandle handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), lookup)
+          .unreflectGetter(field)
+          .asType(MethodType.methodType(Object.class, Object.class));
+      return item -> {
+        try {
+          return handle.invokeExact((Object) item);
+        } catch (Throwable e) {
+          throw new IllegalStateException(e);
+        }
+      };
+    }
+
+    MethodHandle handle = lookup.unreflect(getter);
+    CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply",
+        MethodType.methodType(Function.class),
+        MethodType.methodType(Object.class, Object.class),
+        handle,
+        MethodType.methodType(MethodType.methodType(getter.getReturnType()).wrap().returnType(),
+            getter.getDeclaringClass()));
+    return (Function<T, Object>) callSite.getTarget().invoke();
+  }
+
+  private static Method getter(Field field) {
+    String name = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+    for (String prefix : new String[]{"get", "is"}) {
+      try {
+        Method method = field.getDeclaringClass().getDeclaredMethod(prefix + name);
+        if (method.getReturnType() == field.getType() && !Modifier.isStatic(method.getModifiers())) {
+          return method;
+        }
+      } catch (NoSuchMethodException ignored) {
+        // 다음 prefix 확인
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,31 @@
+package spring.batch.part3;
+
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.batch.item.file.transform.FieldExtractor;
+
+/**
+ * BeanWrapperFieldExtractor 대신 PropertyAccessors로 필드 값을 꺼내는 FieldExtractor
+ */
+public class PropertyFieldExtractor<T> implements FieldExtractor<T> {
+
+  private final Function<T, Object>[] accessors;
+
+  @SuppressWarnings("unchecked")
+  public PropertyFieldExtractor(Class<T> type, String... names) {
+    PropertyAccessors<T> propertyAccessors = PropertyAccessors.of(type);
+    List<String> fieldNames = names.length > 0 ? List.of(names) : propertyAccessors.names();
+    this.accessors = fieldNames.stream()
+        .map(propertyAccessors::get)
+        .toArray(Function[]::new);
+  }
+
+  @Override
+  public Object[] extract(T item) {
+    Object[] values = new Object[accessors.length];
+    for (int i = 0; i < accessors.length; i++) {
+      values[i] = accessors[i].apply(item);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,33 @@
+package spring.batch.part3;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+/**
+ * BeanPropertyItemSqlParameterSourceProvider 대신 PropertyAccessors로 꺼낸 값을 순서대로 ? 에 바인딩한다.
+ */
+public class PropertyItemPreparedStatementSetter<T> implements ItemPreparedStatementSetter<T> {
+
+  private final Function<T, Object>[] accessors;
+
+  @SuppressWarnings("unchecked")
+  public PropertyItemPreparedStatementSetter(Class<T> type, String... names) {
+    PropertyAccessors<T> propertyAccessors = PropertyAccessors.of(type);
+    List<String> fieldNames = names.length > 0 ? List.of(names) : propertyAccessors.names();
+    this.accessors = fieldNames.stream()
+        .map(propertyAccessors::get)
+        .toArray(Function[]::new);
+  }
+
+  @Override
+  public void setValues(T item, PreparedStatement ps) throws SQLException {
+    for (int i = 0; i < accessors.length; i++) {
+      StatementCreatorUtils.setParameterValue(ps, i + 1, StatementCreatorUtils.TYPE_UNKNOWN,
+          accessors[i].apply(item));
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package spring.batch.part3;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * remote chunking의 worker
+ * ChunkTransport에서 chunk를 받아 processor와 writer를 실행하고, 같은 transaction 안에서 chunkKey를 ledger 테이블에 기록한다.
+ * 이미 ledger에 있는 chunk(재전송, 재시작)는 다시 쓰지 않고 기록된 결과로 응답하므로 각 chunk는 정확히 한 번만 저장된다.
+ * 응답은 transaction이 커밋된 뒤에 보낸다.
+ * 중복 검사(allow_duplicate=false)도 같은 transaction 안에서 remote_chunk_key 테이블에 job instance별로 key를 넣어 한다.
+ * 여러 worker process, thread가 같은 key를 동시에 넣으면 primary key 충돌로 나중 chunk가 rollback되고,
+ * 다시 처리할 때 먼저 커밋된 key로 걸러진다. 테이블은 person.sql에 있다.
+ */
+@Slf4j
+public class RemoteChunkWorker implements SmartLifecycle {
+
+  static final String LEDGER_TABLE = "remote_chunk_ledger";
+  static final String KEY_TABLE = "remote_chunk_key";
+  private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final ChunkTransport transport;
+  private final ItemProcessor<Person, Person> itemProcessor;
+  private final Function<Person, String> duplicateKey;
+  private final ItemWriter<Person> itemWriter;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int concurrency;
+  private final List<Thread> threads = new ArrayList<>();
+
+  private volatile boolean running;
+
+  /**
+   * @param duplicateKey 중복 검사 key. chunk의 allowDuplicate가 false 일 때 itemProcessor를 통과한 item에만 검사한다.
+   */
+  public RemoteChunkWorker(ChunkTransport transport, ItemProcessor<Person, Person> itemProcessor,
+      Function<Person, String> duplicateKey, ItemWriter<Person> itemWriter,
+      DataSource dataSource, PlatformTransactionManager transactionManager, int concurrency) {
+    this.transport = transport;
+    this.itemProcessor = itemProcessor;
+    this.duplicateKey = duplicateKey;
+    this.itemWriter = itemWriter;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.concurrency = concurrency;
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+
+    running = true;
+    for (int i = 0; i < concurrency; i++) {
+      Thread thread = new Thread(this::run, "remote-chunk-worker-" + i);
+      thread.setDaemon(true);
+      thread.start();
+      threads.add(thread);
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    running = false;
+    for (Thread thread : threads) {
+      try {
+        thread.join(POLL_TIMEOUT.toMillis() * 2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    threads.clear();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        ChunkRequest request = transport.pollRequest(POLL_TIMEOUT);
+        if (request != null) {
+          transport.sendResponse(handle(request));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        log.error("remote chunk worker error", e);
+      }
+    }
+  }
+
+  /**
+   * chunk 하나를 처리하고 응답을 만든다. 실패하면 transaction은 rollback되고 실패 응답을 반환한다.
+   * 다른 worker와 chunkKey나 중복 검사 key가 충돌하면 rollback 후 다시 처리한다.
+   */
+  ChunkResponse handle(ChunkRequest request) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(status -> writeChunk(request));
+      } catch (DuplicateKeyException | ConcurrencyFailureException e) {
+        // 다른 worker가 같은 chunk를 먼저 커밋했으면 그 결과로 응답한다.
+        ChunkResponse committed = findCommitted(request.chunkKey());
+        if (committed != null) {
+          return committed;
+        }
+        if (attempt == MAX_ATTEMPTS) {
+          log.error("chunk failed : {}", request.chunkKey(), e);
+          return ChunkResponse.failure(request.chunkKey(), e);
+        }
+        log.info("retry chunk after key conflict : {}", request.chunkKey());
+      } catch (Exception e) {
+        log.error("chunk failed : {}", request.chunkKey(), e);
+        return ChunkResponse.failure(request.chunkKey(), e);
+      }
+    }
+  }
+
+  private ChunkResponse writeChunk(ChunkRequest request) {
+    ChunkResponse committed = findCommitted(request.chunkKey());
+    if (committed != null) {
+      log.info("chunk already written : {}", request.chunkKey());
+      return committed;
+    }
+
+    Chunk<Person> outputs = new Chunk<>();
+    for (Person item : request.items()) {
+      Person output = process(item);
+      if (output != null && !request.allowDuplicate()
+          && !addKey(request.jobInstanceId(), duplicateKey.apply(output))) {
+        output = null;
+      }
+      if (output != null) {
+        outputs.add(output);
+      }
+    }
+    write(outputs);
+
+    int filterCount = request.items().size() - outputs.size();
+    jdbcTemplate.update("insert into " + LEDGER_TABLE
+            + " (chunk_key, job_instance_id, write_count, filter_count) values (?, ?, ?, ?)",
+        request.chunkKey(), request.jobInstanceId(), outputs.size(), filterCount);
+    return ChunkResponse.success(request.chunkKey(), outputs.size(), filterCount);
+  }
+
+  /**
+   * 이 job instance에서 처음 보는 key이면 넣고 true를 반환한다. (chunk가 rollback되면 key도 함께 rollback된다)
+   */
+  private boolean addKey(long jobInstanceId, String key) {
+    if (key == null) {
+      return true;
+    }
+    return jdbcTemplate.update("insert into " + KEY_TABLE + " (job_instance_id, dedup_key)"
+            + " select ?, ? from dual where not exists (select 1 from " + KEY_TABLE
+            + " where job_instance_id = ? and dedup_key = ?)",
+        jobInstanceId, key, jobInstanceId, key) == 1;
+  }
+
+  private ChunkResponse findCommitted(String chunkKey) {
+    return jdbcTemplate.query("select write_count, filter_count from " + LEDGER_TABLE
+            + " where chunk_key = ?",
+        rs -> rs.next() ? ChunkResponse.success(chunkKey, rs.getInt(1), rs.getInt(2)) : null,
+        chunkKey);
+  }
+
+  private Person process(Person item) {
+    try {
+      return itemProcessor.process(item);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void write(Chunk<Person> outputs) {
+    if (outputs.isEmpty()) {
+      return;
+    }
+    try {
+      itemWriter.write(outputs);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * job이 완료되면 그 job instance의 ledger와 중복 검사 key를 지운다. (manager job에 등록한다)
+   * 실패한 job은 재시작에서 사용하므로 남겨 둔다.
+   */
+  public static class LedgerCleanupListener implements JobExecutionListener {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerCleanupListener(DataSource dataSource) {
+      this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+      if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+        return;
+      }
+      long jobInstanceId = jobExecution.getJobId();
+      jdbcTemplate.update("delete from " + LEDGER_TABLE + " where job_instance_id = ?",
+          jobInstanceId);
+      jdbcTemplate.update("delete from " + KEY_TABLE + " where job_instance_id = ?",
+          jobInstanceId);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package spring.batch.part3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.integration.chunk.StepContributionSource;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+
+/**
+ * remote chunking의 manager 쪽 Writer
+ * 읽은 chunk를 ChunkTransport로 worker에게 보내고, 최대 throttleLimit개의 chunk가 응답을 기다리도록 한다.
+ * 남은 응답은 step이 끝날 때(afterStep) 모두 기다리며, 실패 응답이나 timeout이 있으면 step을 FAILED로 끝낸다.
+ * chunk 순번은 ExecutionContext에 저장하므로 재시작이나 rollback 후에 다시 보내는 chunk는 같은 chunkKey를 가진다.
+ * 성공 응답을 받지 못한 chunk(응답 대기 중, 실패)는 내용까지 ExecutionContext에 저장하고, 재시작하면 open에서 다시 보낸다.
+ * (reader는 이미 그 chunk 뒤로 커밋되었기 때문이다. worker는 ledger로 이미 커밋한 chunk를 다시 쓰지 않는다)
+ * <p>
+ * writeCount, filterCount는 worker의 성공 응답으로만 집계한다. 응답마다 StepContribution을 만들어 두면
+ * chunk processor가 write 직후 getStepContributions로 가져가 chunk의 StepContribution에 더하고,
+ * 마지막 chunk 이후에 받은 응답은 afterStep에서 StepExecution에 반영한다.
+ * (ChunkMessageChannelItemWriter와 RemoteChunkHandlerFactoryBean이 집계하는 방식과 같다)
+ */
+@Slf4j
+public class RemoteChunkingItemWriter extends ItemStreamSupport implements
+    ItemStreamWriter<Person>, StepExecutionListener, StepContributionSource {
+
+  private static final String SEQUENCE_KEY = "sequence";
+  private static final String UNACKED_KEY = "unacked";
+
+  private final ChunkTransport transport;
+  private final boolean allowDuplicate;
+  private final int throttleLimit;
+  private final Duration responseTimeout;
+
+  private final Map<String, Integer> inFlight = new LinkedHashMap<>();
+  // 성공 응답을 받기 전까지 보관하는 chunk (재시작 시 다시 보낸다)
+  private final Map<String, ChunkRequest> unacked = new LinkedHashMap<>();
+  private final List<StepContribution> contributions = new ArrayList<>();
+  private final List<String> errors = new ArrayList<>();
+
+  private StepExecution stepExecution;
+  private long sequence;
+  private String pendingKey;
+
+  public RemoteChunkingItemWriter(ChunkTransport transport, boolean allowDuplicate,
+      int throttleLimit, Duration responseTimeout) {
+    this.transport = transport;
+    this.allowDuplicate = allowDuplicate;
+    this.throttleLimit = throttleLimit;
+    this.responseTimeout = responseTimeout;
+    setName(RemoteChunkingItemWriter.class.getSimpleName());
+  }
+
+  @Override
+  public void beforeStep(StepExecution stepExecution) {
+    this.stepExecution = stepExecution;
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) throws ItemStreamException {
+    sequence = executionContext.getLong(getExecutionContextKey(SEQUENCE_KEY), 0L);
+    pendingKey = null;
+    inFlight.clear();
+    unacked.clear();
+    contributions.clear();
+    errors.clear();
+
+    String saved = executionContext.getString(getExecutionContextKey(UNACKED_KEY), "");
+    try {
+      for (ChunkRequest request : decode(saved)) {
+        log.info("resend unacknowledged chunk : {}", request.chunkKey());
+        send(request);
+      }
+    } catch (Exception e) {
+      throw new ItemStreamException("응답받지 못한 chunk를 다시 보낼 수 없습니다", e);
+    }
+  }
+
+  @Override
+  public void write(Chunk<? extends Person> items) throws Exception {
+    // 커밋되지 않은 chunk를 다시 쓰는 경우(rollback 후 재처리)에도 같은 key를 사용한다.
+    pendingKey = chunkKey(sequence + 1);
+    send(new ChunkRequest(pendingKey, jobInstanceId(), allowDuplicate,
+        new ArrayList<>(items.getItems())));
+
+    while (inFlight.size() > throttleLimit) {
+      if (!receive(responseTimeout)) {
+        throw new IllegalStateException("worker 응답 대기 시간을 초과했습니다 : " + inFlight.keySet());
+      }
+    }
+    while (receive(Duration.ZERO)) {
+      // 이미 도착한 응답은 바로 반영한다.
+    }
+    if (!errors.isEmpty()) {
+      throw new IllegalStateException("worker가 chunk 처리에 실패했습니다 : " + errors);
+    }
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) throws ItemStreamException {
+    if (pendingKey != null) {
+      sequence++;
+      pendingKey = null;
+    }
+    executionContext.putLong(getExecutionContextKey(SEQUENCE_KEY), sequence);
+    executionContext.putString(getExecutionContextKey(UNACKED_KEY), encode(unacked.values()));
+  }
+
+  /**
+   * 지금까지 받은 성공 응답의 집계를 넘기고 비운다.
+   */
+  @Override
+  public Collection<StepContribution> getStepContributions() {
+    List<StepContribution> results = new ArrayList<>(contributions);
+    contributions.clear();
+    return results;
+  }
+
+  @Override
+  public ExitStatus afterStep(StepExecution stepExecution) {
+    try {
+      long deadline = System.nanoTime() + responseTimeout.toNanos();
+      while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+        receive(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 0)));
+      }
+    } catch (Exception e) {
+      errors.add(e.toString());
+    }
+    getStepContributions().forEach(stepExecution::apply);
+    // 마지막 커밋 이후에 받은 응답까지 반영해서, 재시작 시 성공한 chunk는 다시 보내지 않도록 한다.
+    stepExecution.getExecutionContext().putString(getExecutionContextKey(UNACKED_KEY),
+        encode(unacked.values()));
+
+    if (!inFlight.isEmpty()) {
+      errors.add("응답을 받지 못한 chunk : " + inFlight.keySet());
+    }
+    if (errors.isEmpty()) {
+      return stepExecution.getExitStatus();
+    }
+
+    log.error("remote chunking failed : {}", errors);
+    stepExecution.setStatus(BatchStatus.FAILED);
+    return ExitStatus.FAILED.addExitDescription(String.join("\n", errors));
+  }
+
+  private void send(ChunkRequest request) throws Exception {
+    transport.sendRequest(request);
+    inFlight.put(request.chunkKey(), request.items().size());
+    unacked.put(request.chunkKey(), request);
+  }
+
+  /**
+   * 응답 하나를 받아 반영한다. timeout 안에 응답이 없으면 false
+   */
+  private boolean receive(Duration timeout) throws Exception {
+    ChunkResponse response = transport.pollResponse(jobInstanceId(), timeout);
+    if (response == null) {
+      return false;
+    }
+
+    // 중복 전달된 chunk의 응답처럼 기다리지 않는 응답은 무시한다.
+    if (inFlight.remove(response.chunkKey()) == null) {
+      log.debug("ignore response : {}", response.chunkKey());
+      return true;
+    }
+
+    if (response.isSuccessful()) {
+      unacked.remove(response.chunkKey());
+      StepContribution contribution = new StepContribution(stepExecution);
+      contribution.incrementWriteCount(response.writeCount());
+      contribution.incrementFilterCount(response.filterCount());
+      contributions.add(contribution);
+    } else {
+      errors.add(response.chunkKey() + " : " + response.error());
+    }
+    return true;
+  }
+
+  private static String encode(Iterable<ChunkRequest> requests) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      for (ChunkRequest request : requests) {
+        request.writeTo(output);
+      }
+      output.flush();
+      return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    } catch (IOException e) {
+      throw new ItemStreamException("chunk를 저장할 수 없습니다", e);
+    }
+  }
+
+  private static List<ChunkRequest> decode(String value) throws IOException {
+    DataInputStream input = new DataInputStream(
+        new ByteArrayInputStream(Base64.getDecoder().decode(value)));
+    List<ChunkRequest> requests = new ArrayList<>();
+    while (input.available() > 0) {
+      requests.add(ChunkRequest.readFrom(input));
+    }
+    return requests;
+  }
+
+  private String chunkKey(long sequence) {
+    return ChunkRequest.chunkKey(jobInstanceId(), sequence);
+  }
+
+  private long jobInstanceId() {
+    return stepExecution != null ? stepExecution.getJobExecution().getJobId() : 0L;
+  }
+}
@@ -0,0 +1,153 @@
+package spring.batch.part3;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.builder.TaskletStepBuilder;
+import org.springframework.batch.core.step.item.ChunkOrientedTasklet;
+import org.springframework.batch.core.step.item.ChunkProcessor;
+import org.springframework.batch.core.step.item.SimpleChunkProcessor;
+import org.springframework.batch.core.step.item.SimpleChunkProvider;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
+import org.springframework.batch.item.support.PassThroughItemProcessor;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.batch.repeat.support.RepeatTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * savePersonJob의 remote chunking 버전 (spring.profiles.active=remote-chunking)
+ * manager는 person.csv를 읽어 chunk를 worker에게 보내고, worker는 CompositeItemProcessor와 writer를 실행한다.
+ * 중복 허용 여부는 job parameter allow_duplicate로 정하며 chunk와 함께 worker에게 전달된다.
+ * <pre>
+ * save-person.remote.transport   memory(기본값, 같은 JVM) | directory(같은 장비의 여러 process)
+ * save-person.remote.directory   directory transport가 사용할 공유 디렉터리
+ * save-person.remote.worker-id   directory transport에서 worker process를 구분하는 id
+ * save-person.remote.workers     이 process에서 실행할 worker thread 수 (manager 전용 process는 0)
+ * </pre>
+ * 예) manager : --job.name=remoteChunkingSavePersonJob --save-person.remote.transport=directory --save-person.remote.workers=0
+ *     worker  : --save-person.remote.transport=directory --save-person.remote.worker-id=worker1
+ */
+@Configuration
+@Profile("remote-chunking")
+@RequiredArgsConstructor
+public class RemoteChunkingSavePersonConfiguration {
+
+  private final JobRepository jobRepository;
+
+  private final PlatformTransactionManager platformTransactionManager;
+
+  private final PersonRepository personRepository;
+
+  private final DataSource dataSource;
+
+  @Bean
+  public Job remoteChunkingSavePersonJob() {
+    return new JobBuilder("remoteChunkingSavePersonJob", jobRepository)
+        .incrementer(new RunIdIncrementer())
+        .listener(new RemoteChunkWorker.LedgerCleanupListener(dataSource))
+        .start(remoteChunkingManagerStep(null, null))
+        .build();
+  }
+
+  /**
+   * manager step : processor 없이 읽은 chunk를 그대로 worker에게 보낸다.
+   */
+  @Bean
+  @JobScope
+  public Step remoteChunkingManagerStep(
+      @Value("#{jobParameters[reader_type]}") String readerType,
+      @Value("#{jobParameters[allow_duplicate]}") String allowDuplicate) {
+    RemoteChunkingItemWriter itemWriter = new RemoteChunkingItemWriter(remoteChunkTransport(
+        null, null, null), Boolean.parseBoolean(allowDuplicate), 4, Duration.ofMinutes(1));
+
+    ItemReader<Person> itemReader = SavePersonConfiguration.itemReader(readerType);
+    RepeatTemplate repeatTemplate = new RepeatTemplate();
+    repeatTemplate.setCompletionPolicy(new SimpleCompletionPolicy(10));
+
+    TaskletStepBuilder stepBuilder = new StepBuilder("remoteChunkingManagerStep", jobRepository)
+        .tasklet(new ChunkOrientedTasklet<>(new SimpleChunkProvider<>(itemReader, repeatTemplate),
+            managerChunkProcessor(itemWriter)), platformTransactionManager);
+    if (itemReader instanceof ItemStream itemStream) {
+      stepBuilder.stream(itemStream);
+    }
+    return stepBuilder
+        .stream(itemWriter)
+        .listener((StepExecutionListener) itemWriter)
+        .build();
+  }
+
+  /**
+   * chunk를 worker에게 보내기만 하므로 보낸 item 수를 writeCount로 세지 않고,
+   * 그 사이 도착한 worker 응답의 writeCount, filterCount를 chunk의 StepContribution에 더한다.
+   * (RemoteChunkHandlerFactoryBean이 manager step의 ChunkProcessor를 바꾸는 방식과 같다)
+   */
+  private ChunkProcessor<Person> managerChunkProcessor(RemoteChunkingItemWriter itemWriter) {
+    return new SimpleChunkProcessor<Person, Person>(new PassThroughItemProcessor<>(), itemWriter) {
+      @Override
+      protected void write(StepContribution contribution, Chunk<Person> inputs,
+          Chunk<Person> outputs) throws Exception {
+        doWrite(outputs);
+        for (StepContribution result : itemWriter.getStepContributions()) {
+          contribution.incrementWriteCount(result.getWriteCount());
+          contribution.incrementFilterCount(result.getFilterCount());
+        }
+      }
+    };
+  }
+
+  @Bean
+  public ChunkTransport remoteChunkTransport(
+      @Value("${save-person.remote.transport:memory}") String transport,
+      @Value("${save-person.remote.directory:}") String directory,
+      @Value("${save-person.remote.worker-id:worker}") String workerId) {
+    if ("directory".equals(transport)) {
+      Path path = directory.isEmpty()
+          ? Path.of(System.getProperty("java.io.tmpdir"), "spring-batch-remote-chunking")
+          : Path.of(directory);
+      return new DirectoryChunkTransport(path, workerId);
+    }
+    return new InMemoryChunkTransport();
+  }
+
+  /**
+   * worker : chunk마다 이름 검증, 중복 검사 후 저장한다. (중복 검사 key는 DB에 job instance마다 따로 기록된다)
+   */
+  @Bean
+  public RemoteChunkWorker remoteChunkWorker(
+      @Value("${save-person.remote.workers:2}") int workers,
+      @Value("${save-person.remote.writer-type:}") String writerType) {
+    return new RemoteChunkWorker(remoteChunkTransport(null, null, null),
+        SavePersonConfiguration.itemProcessor(item -> item), Person::getName,
+        workerItemWriter(writerType), dataSource, platformTransactionManager, workers);
+  }
+
+  /**
+   * writer는 ledger 기록과 같은 transaction에 참여해야 한다.
+   */
+  private ItemWriter<Person> workerItemWriter(String writerType) {
+    if ("jdbc".equals(writerType)) {
+      return ItemWriterConfiguration.jdbcBatchItemWriter(dataSource);
+    }
+    return new RepositoryItemWriterBuilder<Person>()
+        .repository(personRepository)
+        .build();
+  }
+}
@@ -1,21 +1,44 @@
 package spring.batch.part3;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityManagerFactory;
-import java.util.Date;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
-import org.springframework.batch.core.JobParameters;
-import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobInterruptedException;
+import org.springframework.batch.core.SkipListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.builder.TaskletStepBuilder;
+import org.springframework.batch.core.step.item.ChunkOrientedTasklet;
+import org.springframework.batch.core.step.item.SimpleChunkProvider;
+import org.springframework.batch.core.step.skip.LimitCheckingItemSkipPolicy;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
@@ -25,12 +48,25 @@ import org.springframework.batch.item.file.mapping.DefaultLineMapper;
 import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.batch.item.support.CompositeItemProcessor;
 import org.springframework.batch.item.support.builder.CompositeItemProcessorBuilder;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.batch.repeat.support.RepeatTemplate;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.retry.RetryListener;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.transaction.PlatformTransactionManager;
 import spring.batch.part3.SavePersonListener.SavePersonAnnotationStepExecutionListener;
+import spring.batch.part3.SavePersonListener.SavePersonMetricsListener;
+import spring.batch.part3.SavePersonListener.SavePersonMetricsReportListener;
 import spring.batch.part3.SavePersonListener.SavePersonStepExecutionListener;
 
 @Configuration
@@ -38,57 +74,342 @@ import spring.batch.part3.SavePersonListener.SavePersonStepExecutionListener;
 @Log4j2
 public class SavePersonConfiguration {
 
-  private final String JOB_NAME = this.getClass().getSimpleName();
-
   private final JobRepository jobRepository;
 
-  private final JobLauncher jobLauncher;
-
   private final PlatformTransactionManager platformTransactionManager;
 
   private final EntityManagerFactory entityManagerFactory;
 
   private final PersonRepository personRepository;
 
-  @Bean
-  public void savePersonJobScheduler() {
-    try {
-      JobParameters jobParameters = new JobParametersBuilder()
-          .addDate("time", new Date())
-          .toJobParameters();
-      jobLauncher.run(savePersonJob(), jobParameters);
-    } catch (Exception e) {
-      log.error(JOB_NAME, e);
-    }
-  }
+  private final DataSource dataSource;
 
   @Bean
   public Job savePersonJob() {
     final String JOB_NAME = "savePersonJob";
+    JobExecutionDecider dedupModeDecider = dedupModeDecider();
+    Step savePersonStep = flowStep("savePersonStep",
+        savePersonStep(null, null, null, null, null, null, null, null, null, null, null, null,
+            null));
     return new JobBuilder(JOB_NAME, jobRepository)
         .incrementer(new RunIdIncrementer())
-        .start(savePersonStep(null))
+        .listener(savePersonMetricsReportListener())
+        .listener(new ExternalSortTasklet.CleanupListener())
+        .start(dedupModeDecider)
+        .on("DATABASE").to(flowStep("savePersonStagingStep", savePersonStagingStep(null, null)))
+        .next(flowStep("promotePersonStep", promotePersonStep(null)))
+        .from(dedupModeDecider)
+        .on("EXTERNAL_SORT").to(flowStep("sortPersonStep", sortPersonStep(null, null, null, null)))
+        .next(savePersonStep)
+        .from(dedupModeDecider)
+        .on("*").to(savePersonStep)
+        .end()
+        .build();
+  }
+
+  /**
+   * FlowBuilder는 build 시점에 step.getName()을 호출하는데, @JobScope step은 job 밖에서 만들 수 없다.
+   * 이름은 미리 정해 두고 나머지 호출은 job이 실행될 때 scope proxy로 넘긴다.
+   */
+  private static Step flowStep(String name, Step step) {
+    return new Step() {
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public boolean isAllowStartIfComplete() {
+        return step.isAllowStartIfComplete();
+      }
+
+      @Override
+      public int getStartLimit() {
+        return step.getStartLimit();
+      }
+
+      @Override
+      public void execute(StepExecution stepExecution) throws JobInterruptedException {
+        step.execute(stepExecution);
+      }
+    };
+  }
+
+  /**
+   * dedup_mode로 중복 검사 방식을 고른다. (기본값은 DuplicateValidationProcessor를 쓰는 memory)
+   */
+  private JobExecutionDecider dedupModeDecider() {
+    return (jobExecution, stepExecution) -> {
+      String dedupMode = jobExecution.getJobParameters().getString("dedup_mode");
+      return new FlowExecutionStatus(dedupMode == null || dedupMode.isEmpty() ? "MEMORY"
+          : dedupMode.toUpperCase(Locale.ROOT));
+    };
+  }
+
+  /**
+   * dedup_mode=database : 검증만 하고 읽은 그대로 person_staging에 적재한다.
+   */
+  @Bean
+  @JobScope
+  public Step savePersonStagingStep(@Value("#{jobParameters[reader_type]}") String readerType,
+      @Value("#{jobParameters[validation_mode]}") String validationMode) {
+    DuplicateValidationProcessor<Person> allowDuplicate = duplicateValidationProcessor("true",
+        duplicateKeyStore(null, null, null, null));
+    CompletionPolicy completionPolicy = completionPolicy(null);
+    PersonStagingItemWriter itemWriter = new PersonStagingItemWriter(dataSource);
+
+    return faultTolerantStep(new StepBuilder("savePersonStagingStep", jobRepository)
+        .<Person, Person>chunk(completionPolicy, platformTransactionManager)
+        .reader(itemReader(readerType))
+        .processor(itemProcessor(allowDuplicate, validationMode, savePersonMetricsListener()))
+        .writer(itemWriter)
+        .listener(itemWriter), allowDuplicate, completionPolicy);
+  }
+
+  /**
+   * dedup_mode=external_sort : person.csv를 이름 순으로 external merge sort 하면서 중복을 지우고(allow_duplicate=true 이면 정렬만),
+   * savePersonStep은 그 결과 파일을 읽는다. 메모리(sort_memory_mb), run 크기(sort_run_size), 병합 수(sort_fan_in)를 정할 수 있다.
+   * 파일만 다루므로 transaction은 ResourcelessTransactionManager로 충분하다.
+   */
+  @Bean
+  @JobScope
+  public Step sortPersonStep(@Value("#{jobParameters[allow_duplicate]}") String allowDuplicate,
+      @Value("#{jobParameters[sort_memory_mb]}") String memoryMb,
+      @Value("#{jobParameters[sort_run_size]}") String runSize,
+      @Value("#{jobParameters[sort_fan_in]}") String fanIn) {
+    ExternalMergeSorter sorter = new ExternalMergeSorter(ExternalMergeSorter.columns(',', 0));
+    if (memoryMb != null) {
+      sorter.setMemoryBudgetBytes(Long.parseLong(memoryMb) * 1024 * 1024);
+    }
+    if (runSize != null) {
+      sorter.setRunSize(Integer.parseInt(runSize));
+    }
+    if (fanIn != null) {
+      sorter.setFanIn(Integer.parseInt(fanIn));
+    }
+
+    return new StepBuilder("sortPersonStep", jobRepository)
+        .tasklet(new ExternalSortTasklet(new ClassPathResource("person.csv"), Path.of("output"),
+            sorter, !Boolean.parseBoolean(allowDuplicate)), new ResourcelessTransactionManager())
         .build();
   }
 
+  /**
+   * staging 테이블에서 이름별 첫 행만 person으로 옮긴다. (allow_duplicate=true 이면 모든 행)
+   */
   @Bean
   @JobScope
-  public Step savePersonStep(@Value("#{jobParameters[allow_duplicate]}") String allowDuplicate) {
+  public Step promotePersonStep(
+      @Value("#{jobParameters[allow_duplicate]}") String allowDuplicate) {
+    return new StepBuilder("promotePersonStep", jobRepository)
+        .tasklet(new PromotePersonTasklet(dataSource, Boolean.parseBoolean(allowDuplicate)),
+            platformTransactionManager)
+        .build();
+  }
+
+  @Bean
+  @JobScope
+  public Step savePersonStep(@Value("#{jobParameters[allow_duplicate]}") String allowDuplicate,
+      @Value("#{jobParameters[reader_type]}") String readerType,
+      @Value("#{jobParameters[key_store]}") String keyStore,
+      @Value("#{jobParameters[bloom_filter]}") String bloomFilter,
+      @Value("#{jobParameters[bloom_expected_keys]}") Long bloomExpectedKeys,
+      @Value("#{jobParameters[bloom_false_positive_rate]}") Double bloomFalsePositiveRate,
+      @Value("#{jobParameters[writer_type]}") String writerType,
+      @Value("#{jobParameters[validation_mode]}") String validationMode,
+      @Value("#{jobParameters[async]}") String async,
+      @Value("#{jobParameters[adaptive_chunk]}") String adaptiveChunk,
+      @Value("#{jobParameters[natural_key]}") String naturalKey,
+      @Value("#{jobParameters[processor_mode]}") String processorMode,
+      @Value("#{jobExecutionContext[person_file]}") String personFile) {
     final String STEP_NAME = "savePersonStep";
-    return new StepBuilder(STEP_NAME, jobRepository)
-        .<Person, Person>chunk(10, platformTransactionManager)
-        .reader(itemReader())
-        .processor(itemProcessor(allowDuplicate))
-        .writer(itemWriter())
+    // sortPersonStep의 결과 파일을 읽을 때는 중복 검사가 이미 끝났다.
+    DuplicateValidationProcessor<Person> duplicateValidationProcessor =
+        duplicateValidationProcessor(personFile != null ? "true" : allowDuplicate,
+            duplicateKeyStore(keyStore, bloomFilter, bloomExpectedKeys, bloomFalsePositiveRate));
+
+    // processor_mode=bulk 이면 item 하나씩이 아니라 chunk 전체를 한 번에 검증, 중복 검사한다. (async는 무시)
+    if ("bulk".equals(processorMode)) {
+      return bulkStep(STEP_NAME, itemReader(readerType, personFile),
+          itemWriter(writerType, naturalKey),
+          chunkItemProcessor(duplicateValidationProcessor, validationMode,
+              savePersonMetricsListener()), duplicateValidationProcessor,
+          completionPolicy(adaptiveChunk));
+    }
+
+    ItemProcessor<Person, Person> itemProcessor = itemProcessor(duplicateValidationProcessor,
+        validationMode, savePersonMetricsListener());
+    CompletionPolicy completionPolicy = completionPolicy(adaptiveChunk);
+
+    // async=true 이면 chunk의 item을 별도 thread에서 처리하고, processor 쪽에서 Future를 풀어 writer에 넘긴다.
+    // 중복된 이름 중 어느 행이 저장될지는 thread 실행 순서에 따라 달라진다.
+    if (Boolean.parseBoolean(async)) {
+      AsyncItemProcessor<Person, Person> asyncItemProcessor = new AsyncItemProcessor<>();
+      asyncItemProcessor.setDelegate(itemProcessor);
+      asyncItemProcessor.setTaskExecutor(savePersonTaskExecutor());
+
+      return bulkStep(STEP_NAME, itemReader(readerType, personFile),
+          itemWriter(writerType, naturalKey), new AsyncChunkItemProcessor<>(asyncItemProcessor),
+          duplicateValidationProcessor, completionPolicy);
+    }
+
+    return faultTolerantStep(new StepBuilder(STEP_NAME, jobRepository)
+        .<Person, Person>chunk(completionPolicy, platformTransactionManager)
+        .reader(itemReader(readerType, personFile))
+        .processor(itemProcessor)
+        .writer(itemWriter(writerType, naturalKey)), duplicateValidationProcessor,
+        completionPolicy);
+  }
+
+  /**
+   * SimpleChunkProvider + BulkChunkProcessor로 chunk step을 직접 조립한다.
+   * skip 정책(NotFoundNameException, 2건)은 faultTolerantStep과 같고, item 단위로 적용된다.
+   */
+  private Step bulkStep(String stepName, ItemReader<Person> itemReader,
+      ItemWriter<Person> itemWriter, ChunkItemProcessor<Person, Person> itemProcessor,
+      DuplicateValidationProcessor<Person> duplicateValidationProcessor,
+      CompletionPolicy completionPolicy) {
+    RepeatTemplate repeatTemplate = new RepeatTemplate();
+    repeatTemplate.setCompletionPolicy(completionPolicy);
+
+    SimpleChunkProvider<Person> chunkProvider = new SimpleChunkProvider<>(itemReader,
+        repeatTemplate);
+    chunkProvider.registerListener(savePersonMetricsListener());
+
+    BulkChunkProcessor<Person, Person> chunkProcessor = new BulkChunkProcessor<>(itemProcessor,
+        itemWriter, new LimitCheckingItemSkipPolicy(2, Map.of(NotFoundNameException.class, true)));
+    chunkProcessor.registerListener(savePersonMetricsListener());
+
+    TaskletStepBuilder stepBuilder = new StepBuilder(stepName, jobRepository)
+        .tasklet(new ChunkOrientedTasklet<>(chunkProvider, chunkProcessor),
+            platformTransactionManager);
+    if (itemReader instanceof ItemStream itemStream) {
+      stepBuilder.stream(itemStream);
+    }
+    if (itemWriter instanceof ItemStream itemStream) {
+      stepBuilder.stream(itemStream);
+    }
+    if (completionPolicy instanceof AdaptiveCompletionPolicy adaptiveCompletionPolicy) {
+      stepBuilder.listener((ChunkListener) adaptiveCompletionPolicy)
+          .stream(adaptiveCompletionPolicy);
+    }
+
+    return stepBuilder
+        .stream(duplicateValidationProcessor)
+        .listener(duplicateValidationProcessor)
         .listener(new SavePersonStepExecutionListener())
         .listener(new SavePersonAnnotationStepExecutionListener())
+        .listener((StepExecutionListener) savePersonMetricsListener())
+        .listener((ChunkListener) savePersonMetricsListener())
+        .build();
+  }
+
+  /**
+   * adaptive_chunk=true 이면 커밋 시간과 처리량에 맞춰 chunk 크기를 10 ~ 1000 사이에서 조정한다.
+   */
+  private CompletionPolicy completionPolicy(String adaptiveChunk) {
+    if (Boolean.parseBoolean(adaptiveChunk)) {
+      return new AdaptiveCompletionPolicy(10, 10, 1000, Duration.ofSeconds(1));
+    }
+    return new SimpleCompletionPolicy(10);
+  }
+
+  private <O> Step faultTolerantStep(SimpleStepBuilder<Person, O> stepBuilder,
+      DuplicateValidationProcessor<Person> duplicateValidationProcessor,
+      CompletionPolicy completionPolicy) {
+    if (completionPolicy instanceof AdaptiveCompletionPolicy adaptiveCompletionPolicy) {
+      stepBuilder.listener((ChunkListener) adaptiveCompletionPolicy)
+          .stream(adaptiveCompletionPolicy);
+    }
+
+    return stepBuilder
+        .stream(duplicateValidationProcessor) // 재시작 시 이미 커밋된 key를 복원
+        .listener(duplicateValidationProcessor)
+        .listener(new SavePersonStepExecutionListener())
+        .listener(new SavePersonAnnotationStepExecutionListener())
+        .listener((StepExecutionListener) savePersonMetricsListener())
+        .listener((ChunkListener) savePersonMetricsListener())
+        .listener((ItemReadListener<Object>) savePersonMetricsListener())
+        .listener((ItemProcessListener<Object, Object>) savePersonMetricsListener())
+        .listener((ItemWriteListener<Object>) savePersonMetricsListener())
         .faultTolerant() // skip 예외처리 메서드 제공
+        .listener((SkipListener<Object, Object>) savePersonMetricsListener())
+        .listener((RetryListener) savePersonMetricsListener())
         .skip(NotFoundNameException.class)
         .skipLimit(2)
         .build();
   }
 
-  private ItemReader<Person> itemReader() {
+  /**
+   * 시작 시점에 모든 @Entity의 PropertyAccessors를 미리 만들어 둔다.
+   */
+  @Bean
+  public SmartInitializingSingleton propertyAccessorsInitializer() {
+    return () -> entityManagerFactory.getMetamodel().getEntities()
+        .forEach(entityType -> PropertyAccessors.of(entityType.getJavaType()));
+  }
+
+  /**
+   * 외부 모니터링 시스템 없이 process 안에서 metric을 모으는 registry
+   */
+  @Bean
+  public MeterRegistry savePersonMeterRegistry() {
+    return new SimpleMeterRegistry();
+  }
+
+  /**
+   * chunk 측정 상태를 step execution마다 따로 두기 위해 step scope로 만든다.
+   */
+  @Bean
+  @StepScope
+  public SavePersonMetricsListener savePersonMetricsListener() {
+    return new SavePersonMetricsListener(savePersonMeterRegistry());
+  }
+
+  @Bean
+  public SavePersonMetricsReportListener savePersonMetricsReportListener() {
+    return new SavePersonMetricsReportListener(savePersonMeterRegistry());
+  }
+
+  /**
+   * 가상 스레드(Java 21+)를 쓸 수 있으면 item마다 가상 스레드를 만들고, 아니면 chunk 크기만큼의 thread pool을 사용한다.
+   * context가 닫힐 때 shutdown 한다.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService savePersonExecutorService() {
+    try {
+      return (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(10, new CustomizableThreadFactory("save-person-"));
+    }
+  }
+
+  @Bean
+  public TaskExecutor savePersonTaskExecutor() {
+    return new ConcurrentTaskExecutor(savePersonExecutorService());
+  }
+
+  static ItemReader<Person> itemReader(String readerType) {
+    return itemReader(readerType, null);
+  }
+
+  /**
+   * reader_type=mapped 이면 FileChannel.map 기반 Reader를 사용한다.
+   * personFile(sortPersonStep의 결과)이 있으면 classpath의 person.csv 대신 그 파일을 읽는다.
+   */
+  static ItemReader<Person> itemReader(String readerType, String personFile) {
+    Resource resource = personFile != null ? new FileSystemResource(personFile)
+        : new ClassPathResource("person.csv");
+
+    if ("mapped".equals(readerType)) {
+      MappedPersonItemReader itemReader = new MappedPersonItemReader(resource, 1, "name", "age",
+          "address");
+      itemReader.setName("savePersonItemReader");
+      return itemReader;
+    }
+
     DefaultLineMapper<Person> lineMapper = new DefaultLineMapper<>();
     DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
     lineTokenizer.setNames("name", "age", "address");
@@ -101,17 +422,41 @@ public class SavePersonConfiguration {
         .name("savePersonItemReader")
         .encoding("UTF-8")
         .linesToSkip(1)
-        .resource(new ClassPathResource("person.csv"))
+        .resource(resource)
         .lineMapper(lineMapper)
         .build();
 
     return itemReader;
   }
 
-  private ItemProcessor<Person, Person> itemProcessor(String allowDuplicate) {
-    DuplicateValidationProcessor<Person> duplicateValidationProcessor = new DuplicateValidationProcessor<>(
-        Person::getName, Boolean.parseBoolean(allowDuplicate));
+  static DuplicateValidationProcessor<Person> duplicateValidationProcessor(String allowDuplicate,
+      DuplicateKeyStore keyStore) {
+    return new DuplicateValidationProcessor<>(Person::getName, Boolean.parseBoolean(allowDuplicate),
+        keyStore);
+  }
+
+  /**
+   * key_store(hash, fingerprint, off_heap, spill)와 bloom_filter(bloom_expected_keys, bloom_false_positive_rate)로
+   * 중복 key 저장 방식을 고른다.
+   */
+  static DuplicateKeyStore duplicateKeyStore(String keyStore, String bloomFilter,
+      Long bloomExpectedKeys, Double bloomFalsePositiveRate) {
+    return DuplicateKeyStores.create(keyStore, Boolean.parseBoolean(bloomFilter),
+        bloomExpectedKeys, bloomFalsePositiveRate);
+  }
+
+  static ItemProcessor<Person, Person> itemProcessor(
+      ItemProcessor<Person, Person> duplicateValidationProcessor) {
+    return itemProcessor(duplicateValidationProcessor, null, null);
+  }
 
+  /**
+   * validation_mode=retry 이면 모든 item을 RetryTemplate으로 검증한다. (기본값은 fast)
+   * retryListener가 있으면 검증 재시도도 그 listener에 알린다.
+   */
+  static ItemProcessor<Person, Person> itemProcessor(
+      ItemProcessor<Person, Person> duplicateValidationProcessor, String validationMode,
+      RetryListener retryListener) {
     ItemProcessor<Person, Person> validationProcessor = item -> {
       if (item.isNotEmptyName()) {
         return item;
@@ -120,13 +465,58 @@ public class SavePersonConfiguration {
     };
 
     CompositeItemProcessor<Person, Person> itemProcessor = new CompositeItemProcessorBuilder<Person, Person>()
-        .delegates(new PersonValidationRetryProcessor(), validationProcessor, duplicateValidationProcessor)
+        .delegates(validationRetryProcessor(validationMode, retryListener),
+            validationProcessor, duplicateValidationProcessor)
         .build();
 
     return itemProcessor;
   }
 
-  private ItemWriter<Person> itemWriter() {
+  /**
+   * itemProcessor와 같은 검증, 중복 검사를 chunk 단위로 수행한다.
+   */
+  static ChunkItemProcessor<Person, Person> chunkItemProcessor(
+      ChunkItemProcessor<Person, Person> duplicateValidationProcessor, String validationMode,
+      RetryListener retryListener) {
+    ChunkItemProcessor<Person, Person> validationProcessor = (items, results) -> {
+      for (int i = 0; i < items.size(); i++) {
+        Person item = items.get(i);
+        if (item.isNotEmptyName()) {
+          results.set(i, item);
+        } else {
+          results.fail(i, new NotFoundNameException());
+        }
+      }
+    };
+
+    return validationRetryProcessor(validationMode, retryListener)
+        .andThen(validationProcessor)
+        .andThen(duplicateValidationProcessor);
+  }
+
+  private static PersonValidationRetryProcessor validationRetryProcessor(String validationMode,
+      RetryListener retryListener) {
+    PersonValidationRetryProcessor processor = new PersonValidationRetryProcessor(
+        PersonValidationRetryProcessor.Mode.of(validationMode));
+    if (retryListener != null) {
+      processor.registerRetryListener(retryListener);
+    }
+    return processor;
+  }
+
+  /**
+   * writer_type=jdbc 이면 RepositoryItemWriter 대신 JdbcBatchItemWriter로 chunk 단위 batch insert를 한다.
+   * Person은 IDENTITY 전략이라 Hibernate가 insert를 batch로 묶지 못하기 때문이다.
+   * writer_type=upsert 이면 natural_key(name 기본, name_address) 기준으로 upsert 하므로 다시 실행해도 행이 늘지 않는다.
+   */
+  private ItemWriter<Person> itemWriter(String writerType, String naturalKey) {
+    if ("jdbc".equals(writerType)) {
+      return ItemWriterConfiguration.jdbcBatchItemWriter(dataSource);
+    }
+    if ("upsert".equals(writerType)) {
+      return ItemWriterConfiguration.upsertItemWriter(dataSource, naturalKey);
+    }
+
     return new RepositoryItemWriterBuilder<Person>()
         .repository(personRepository)
         .build();
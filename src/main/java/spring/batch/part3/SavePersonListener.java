@@ -1,15 +1,38 @@
 package spring.batch.part3;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.SkipListener;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.annotation.AfterJob;
 import org.springframework.batch.core.annotation.AfterStep;
 import org.springframework.batch.core.annotation.BeforeJob;
 import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
 
 @Slf4j
 public class SavePersonListener {
@@ -74,4 +97,249 @@ public class SavePersonListener {
       return stepExecution.getExitStatus();
     }
   }
+
+  /**
+   * chunk마다 read/process/write/commit 시간과 처리량을 Micrometer registry에 기록하는 Listener
+   * 모든 meter에 job, execution(job execution id), step tag를 붙이고, retry는 step의 재시도와
+   * PersonValidationRetryProcessor의 재시도를 함께 센다.
+   * commit 시간은 마지막 write가 끝난 시점부터 afterChunk까지로 잰다.
+   * chunk 상태를 필드에 두므로 step execution마다 새로 만든다. (@StepScope bean)
+   */
+  public static class SavePersonMetricsListener implements StepExecutionListener, ChunkListener,
+      ItemReadListener<Object>, ItemProcessListener<Object, Object>, ItemWriteListener<Object>,
+      SkipListener<Object, Object>, RetryListener {
+
+    private static final String PREFIX = "save.person.";
+
+    private final MeterRegistry meterRegistry;
+
+    private Tags tags = Tags.empty();
+    private Timer readTimer;
+    private Timer processTimer;
+    private Timer writeTimer;
+    private Timer commitTimer;
+    private DistributionSummary chunkThroughput;
+
+    private long chunkStart;
+    private long readStart;
+    private long readNanos;
+    private long processStart;
+    private long processNanos;
+    private long writeStart;
+    private long writeNanos;
+    private long writeEnd;
+    private long chunkItems;
+
+    public SavePersonMetricsListener(MeterRegistry meterRegistry) {
+      this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+      tags = Tags.of("job", stepExecution.getJobExecution().getJobInstance().getJobName(),
+          "execution", String.valueOf(stepExecution.getJobExecutionId()),
+          "step", stepExecution.getStepName());
+      readTimer = timer("chunk.read");
+      processTimer = timer("chunk.process");
+      writeTimer = timer("chunk.write");
+      commitTimer = timer("chunk.commit");
+      chunkThroughput = DistributionSummary.builder(PREFIX + "chunk.throughput")
+          .baseUnit("items/s")
+          .tags(tags)
+          .publishPercentiles(0.5, 0.95, 0.99)
+          .register(meterRegistry);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+      Counter.builder(PREFIX + "items").tags(tags).tag("type", "read").register(meterRegistry)
+          .increment(stepExecution.getReadCount());
+      Counter.builder(PREFIX + "items").tags(tags).tag("type", "write").register(meterRegistry)
+          .increment(stepExecution.getWriteCount());
+
+      if (stepExecution.getStartTime() != null) {
+        long millis = Duration.between(stepExecution.getStartTime(), LocalDateTime.now())
+            .toMillis();
+        DistributionSummary.builder(PREFIX + "step.throughput")
+            .baseUnit("items/s")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(stepExecution.getWriteCount() * 1000.0 / Math.max(millis, 1));
+      }
+      return stepExecution.getExitStatus();
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+      chunkStart = System.nanoTime();
+      readNanos = 0;
+      processNanos = 0;
+      writeNanos = 0;
+      writeEnd = 0;
+      chunkItems = 0;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+      long now = System.nanoTime();
+      readTimer.record(readNanos, TimeUnit.NANOSECONDS);
+      processTimer.record(processNanos, TimeUnit.NANOSECONDS);
+      writeTimer.record(writeNanos, TimeUnit.NANOSECONDS);
+      if (writeEnd > 0) {
+        commitTimer.record(now - writeEnd, TimeUnit.NANOSECONDS);
+      }
+      if (chunkItems > 0) {
+        chunkThroughput.record(chunkItems * 1e9 / Math.max(now - chunkStart, 1));
+      }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+      counter("chunk.error").increment();
+    }
+
+    @Override
+    public void beforeRead() {
+      readStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Object item) {
+      readNanos += System.nanoTime() - readStart;
+      chunkItems++;
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+      readNanos += System.nanoTime() - readStart;
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+      processStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+      processNanos += System.nanoTime() - processStart;
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+      processNanos += System.nanoTime() - processStart;
+    }
+
+    @Override
+    public void beforeWrite(Chunk<?> items) {
+      writeStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(Chunk<?> items) {
+      writeEnd = System.nanoTime();
+      writeNanos += writeEnd - writeStart;
+    }
+
+    @Override
+    public void onWriteError(Exception exception, Chunk<?> items) {
+      writeNanos += System.nanoTime() - writeStart;
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+      counter("skip", "type", "read").increment();
+    }
+
+    @Override
+    public void onSkipInProcess(Object item, Throwable t) {
+      counter("skip", "type", "process").increment();
+    }
+
+    @Override
+    public void onSkipInWrite(Object item, Throwable t) {
+      counter("skip", "type", "write").increment();
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context,
+        RetryCallback<T, E> callback, Throwable throwable) {
+      counter("retry").increment();
+    }
+
+    private Timer timer(String name) {
+      return Timer.builder(PREFIX + name)
+          .tags(tags)
+          .publishPercentiles(0.5, 0.95, 0.99)
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+    }
+
+    private Counter counter(String name, String... extraTags) {
+      return Counter.builder(PREFIX + name).tags(tags).tags(extraTags).register(meterRegistry);
+    }
+  }
+
+  /**
+   * Job이 끝나면 registry에 모인 save.person.* 값 중 이번 job execution의 값만 요약해서 로그로 남기는 Listener
+   * 요약한 meter는 registry에서 지우므로, 다음 실행의 요약에 섞이지 않고 registry도 계속 커지지 않는다.
+   */
+  public static class SavePersonMetricsReportListener implements JobExecutionListener {
+
+    private static final String PREFIX = SavePersonMetricsListener.PREFIX;
+
+    private final MeterRegistry meterRegistry;
+
+    public SavePersonMetricsReportListener(MeterRegistry meterRegistry) {
+      this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+      String jobName = jobExecution.getJobInstance().getJobName();
+      String executionId = String.valueOf(jobExecution.getId());
+      StringBuilder report = new StringBuilder("metrics summary : ").append(jobName)
+          .append(" (execution ").append(executionId).append(")");
+      List<Meter> reported = new ArrayList<>();
+
+      for (Meter meter : meterRegistry.getMeters()) {
+        Meter.Id id = meter.getId();
+        if (!id.getName().startsWith(PREFIX) || !jobName.equals(id.getTag("job"))
+            || !executionId.equals(id.getTag("execution"))) {
+          continue;
+        }
+        reported.add(meter);
+
+        report.append(System.lineSeparator()).append("  ").append(id.getName());
+        if (id.getTag("step") != null) {
+          report.append(" [").append(id.getTag("step")).append("]");
+        }
+        if (id.getTag("type") != null) {
+          report.append(" [").append(id.getTag("type")).append("]");
+        }
+
+        if (meter instanceof Timer timer) {
+          report.append(String.format(" count=%d, mean=%.2fms, max=%.2fms, p95=%.2fms",
+              timer.count(), timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS),
+              percentile(timer.takeSnapshot(), TimeUnit.MILLISECONDS)));
+        } else if (meter instanceof DistributionSummary summary) {
+          report.append(String.format(" count=%d, mean=%.1f, max=%.1f %s", summary.count(),
+              summary.mean(), summary.max(), id.getBaseUnit()));
+        } else if (meter instanceof Counter counter) {
+          report.append(String.format(" %.0f", counter.count()));
+        }
+      }
+
+      log.info(report.toString());
+      reported.forEach(meterRegistry::remove);
+    }
+
+    private double percentile(HistogramSnapshot snapshot, TimeUnit unit) {
+      for (ValueAtPercentile value : snapshot.percentileValues()) {
+        if (value.percentile() == 0.95) {
+          return value.value(unit);
+        }
+      }
+      return Double.NaN;
+    }
+  }
 }
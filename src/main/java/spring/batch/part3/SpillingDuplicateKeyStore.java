@@ -0,0 +1,283 @@
+package spring.batch.part3;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 메모리에는 최대 maxInMemoryKeys개의 fingerprint만 두고, 넘치면 정렬된 run 파일로 내보내는 저장소
+ * run 파일은 memory-mapped 상태로 이진 탐색한다. 같은 level의 run이 maxRuns개 모이면 한 level 위의 run 하나로
+ * 병합하므로(size-tiered), key 하나가 병합으로 다시 쓰이는 횟수는 log_maxRuns(spill 횟수)번을 넘지 않고
+ * 조회할 run 수도 level마다 maxRuns개 미만으로 유지된다.
+ * RAM보다 큰 cardinality의 중복 검사에 사용한다.
+ */
+public class SpillingDuplicateKeyStore implements DuplicateKeyStore {
+
+  private static final int DEFAULT_MAX_RUNS = 8;
+
+  private final FingerprintDuplicateKeyStore memory;
+  private final long maxInMemoryKeys;
+  private final int maxRuns;
+  private final Path directory;
+  private final List<SpillRun> runs = new ArrayList<>();
+
+  private long spilledKeys;
+
+  public SpillingDuplicateKeyStore(long maxInMemoryKeys, Path directory) {
+    this(maxInMemoryKeys, DEFAULT_MAX_RUNS, directory);
+  }
+
+  public SpillingDuplicateKeyStore(long maxInMemoryKeys, int maxRuns, Path directory) {
+    if (maxRuns < 2) {
+      throw new IllegalArgumentException("maxRuns는 2 이상이어야 합니다 : " + maxRuns);
+    }
+    this.memory = new FingerprintDuplicateKeyStore(maxInMemoryKeys, false);
+    this.maxInMemoryKeys = maxInMemoryKeys;
+    this.maxRuns = maxRuns;
+    this.directory = directory;
+  }
+
+  @Override
+  public synchronized boolean add(String key) {
+    long fingerprint = FingerprintDuplicateKeyStore.fingerprint(key);
+    if (containsFingerprint(fingerprint)) {
+      return false;
+    }
+    addFingerprint(fingerprint);
+    return true;
+  }
+
+  /**
+   * 블룸 필터 등으로 이미 없다고 확인된 key는 run 파일을 탐색하지 않고 저장한다.
+   */
+  @Override
+  public synchronized void addUnchecked(String key) {
+    addFingerprint(FingerprintDuplicateKeyStore.fingerprint(key));
+  }
+
+  @Override
+  public synchronized boolean contains(String key) {
+    return containsFingerprint(FingerprintDuplicateKeyStore.fingerprint(key));
+  }
+
+  @Override
+  public synchronized long size() {
+    return memory.size() + spilledKeys;
+  }
+
+  @Override
+  public synchronized long memoryUsage() {
+    return memory.memoryUsage();
+  }
+
+  public synchronized long diskUsage() {
+    return spilledKeys * Long.BYTES;
+  }
+
+  @Override
+  public synchronized void close() {
+    runs.forEach(SpillRun::delete);
+    runs.clear();
+    spilledKeys = 0;
+    memory.clear();
+  }
+
+  private boolean containsFingerprint(long fingerprint) {
+    if (memory.containsFingerprint(fingerprint)) {
+      return true;
+    }
+    for (SpillRun run : runs) {
+      if (run.contains(fingerprint)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void addFingerprint(long fingerprint) {
+    if (memory.addFingerprint(fingerprint) && memory.size() >= maxInMemoryKeys) {
+      spill();
+    }
+  }
+
+  private void spill() {
+    try {
+      Files.createDirectories(directory);
+      long[] fingerprints = memory.toSortedArray();
+      Path file = Files.createTempFile(directory, "dedup-run-", ".bin");
+
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (long fingerprint : fingerprints) {
+          if (!buffer.hasRemaining()) {
+            writeFully(channel, buffer);
+          }
+          buffer.putLong(fingerprint);
+        }
+        writeFully(channel, buffer);
+      }
+
+      runs.add(new SpillRun(file, fingerprints.length, 0));
+      spilledKeys += fingerprints.length;
+      memory.clear();
+
+      for (int level = 0; ; level++) {
+        List<SpillRun> group = runsAt(level);
+        if (group.size() < maxRuns) {
+          break;
+        }
+        mergeRuns(group, level + 1);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("중복 검사 key를 디스크로 내보낼 수 없습니다", e);
+    }
+  }
+
+  private List<SpillRun> runsAt(int level) {
+    List<SpillRun> group = new ArrayList<>();
+    for (SpillRun run : runs) {
+      if (run.level == level) {
+        group.add(run);
+      }
+    }
+    return group;
+  }
+
+  /**
+   * group의 run을 k-way merge로 level의 정렬된 run 하나로 합친다. run끼리는 key가 겹치지 않는다.
+   */
+  private void mergeRuns(List<SpillRun> group, int level) throws IOException {
+    Path file = Files.createTempFile(directory, "dedup-run-", ".bin");
+    PriorityQueue<RunCursor> queue = new PriorityQueue<>();
+    for (SpillRun run : group) {
+      RunCursor cursor = new RunCursor(run);
+      if (cursor.hasValue()) {
+        queue.add(cursor);
+      }
+    }
+
+    long count = 0;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+      while (!queue.isEmpty()) {
+        RunCursor cursor = queue.poll();
+        if (!buffer.hasRemaining()) {
+          writeFully(channel, buffer);
+        }
+        buffer.putLong(cursor.value());
+        count++;
+        if (cursor.advance()) {
+          queue.add(cursor);
+        }
+      }
+      writeFully(channel, buffer);
+    }
+
+    group.forEach(SpillRun::delete);
+    runs.removeAll(group);
+    runs.add(new SpillRun(file, count, level));
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * 정렬된 fingerprint 파일. 2GB 제한 때문에 일정 크기의 segment로 나눠 매핑한다.
+   */
+  private static class SpillRun {
+
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final Path file;
+    private final long count;
+    private final int level;
+    private final LongBuffer[] segments;
+
+    SpillRun(Path file, long count, int level) throws IOException {
+      this.file = file;
+      this.count = count;
+      this.level = level;
+      this.segments = new LongBuffer[(int) ((count + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        for (int i = 0; i < segments.length; i++) {
+          long start = i * SEGMENT_SIZE;
+          long length = Math.min(SEGMENT_SIZE, count - start);
+          segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start * Long.BYTES,
+              length * Long.BYTES).asLongBuffer();
+        }
+      }
+    }
+
+    long get(long index) {
+      return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & (SEGMENT_SIZE - 1)));
+    }
+
+    boolean contains(long fingerprint) {
+      long low = 0;
+      long high = count - 1;
+      while (low <= high) {
+        long mid = (low + high) >>> 1;
+        long value = get(mid);
+        if (value < fingerprint) {
+          low = mid + 1;
+        } else if (value > fingerprint) {
+          high = mid - 1;
+        } else {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void delete() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static class RunCursor implements Comparable<RunCursor> {
+
+    private final SpillRun run;
+    private long index;
+
+    RunCursor(SpillRun run) {
+      this.run = run;
+    }
+
+    boolean hasValue() {
+      return index < run.count;
+    }
+
+    long value() {
+      return run.get(index);
+    }
+
+    boolean advance() {
+      index++;
+      return hasValue();
+    }
+
+    @Override
+    public int compareTo(RunCursor other) {
+      return Long.compare(value(), other.value());
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package spring.batch.part3;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+/**
+ * Hibernate StatelessSession으로 query 결과를 forward-only로 흘려 읽는 Reader
+ * persistence context가 없어 읽은 entity가 관리 대상으로 쌓이지 않으므로, 테이블 크기와 관계없이 메모리가 일정하다.
+ * JDBC fetch size와 read-only 힌트를 지정할 수 있다. (MySQL에서 row 단위로 흘려 받으려면 useCursorFetch=true가 필요하다)
+ */
+public class StatelessSessionItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final String queryString;
+  private final Class<T> type;
+  private final int fetchSize;
+
+  private boolean readOnly = true;
+
+  private StatelessSession session;
+  private ScrollableResults<T> results;
+
+  public StatelessSessionItemReader(EntityManagerFactory entityManagerFactory, String queryString,
+      Class<T> type, int fetchSize) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.queryString = queryString;
+    this.type = type;
+    this.fetchSize = fetchSize;
+    setName(StatelessSessionItemReader.class.getSimpleName());
+  }
+
+  public void setReadOnly(boolean readOnly) {
+    this.readOnly = readOnly;
+  }
+
+  @Override
+  protected void doOpen() {
+    session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+    results = session.createQuery(queryString, type)
+        .setFetchSize(fetchSize)
+        .setReadOnly(readOnly)
+        .scroll(ScrollMode.FORWARD_ONLY);
+  }
+
+  @Override
+  protected T doRead() {
+    return results.next() ? results.get() : null;
+  }
+
+  @Override
+  protected void doClose() {
+    if (results != null) {
+      results.close();
+      results = null;
+    }
+    if (session != null) {
+      session.close();
+      session = null;
+    }
+  }
+}
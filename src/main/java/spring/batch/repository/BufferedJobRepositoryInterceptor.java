@@ -0,0 +1,288 @@
+package spring.batch.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * chunk마다 호출되는 JobRepository.update(StepExecution) / updateExecutionContext(StepExecution)를 가로채는 interceptor
+ * <pre>
+ * BUFFERED   : step execution마다 마지막 상태만 남겨 두고 flushInterval마다 별도 thread에서 모아서 기록한다.
+ * FINAL_ONLY : 중간 갱신은 버리고 step이 끝날 때의 상태만 기록한다. (재시작이 필요 없는 job 용)
+ * </pre>
+ * step이 끝나는(running이 아닌) 갱신과 terminateOnly가 설정된 갱신은 남은 갱신을 먼저 기록한 뒤 바로 기록한다.
+ * 메타데이터 갱신이 chunk transaction 밖에서 일어나 기록된 위치가 커밋된 chunk와 어긋나므로, 재시작할 수 없는 job
+ * (preventRestart)만 버퍼링한다. bufferedJobs가 허용하지 않은 job의 갱신은 가로채지 않고 그대로 기록한다.
+ * <p>
+ * flush thread는 step thread가 계속 바꾸는 StepExecution을 읽지 않는다. 갱신 요청 시점에 step thread에서
+ * 집계 값과 ExecutionContext를 복사해 두고 그 복사본을 기록한다. 복사본에 반영된 version과 중지 요청은
+ * 다음 갱신 요청 때 원본에 옮기고, 기록에 실패하면 다음 갱신 요청에서 그 예외를 던져 step을 실패시킨다.
+ * proxy는 AutoCloseable을 구현하며, close는 남은 갱신을 기록하고 flush thread를 종료한다.
+ */
+@Slf4j
+public class BufferedJobRepositoryInterceptor implements MethodInterceptor, AutoCloseable {
+
+  public enum Mode {
+    BUFFERED, FINAL_ONLY;
+
+    public static Mode of(String value) {
+      return value == null || value.isEmpty() ? BUFFERED
+          : valueOf(value.toUpperCase(Locale.ROOT));
+    }
+  }
+
+  private final JobRepository delegate;
+  private final Mode mode;
+  private final Predicate<String> bufferedJobs;
+  private final Object lock = new Object();
+  private final Map<Long, PendingUpdate> pending = new LinkedHashMap<>();
+  private final Map<Long, Statistics> statistics = new HashMap<>();
+  // flush thread가 기록한 결과 (step thread가 다음 갱신 요청 때 원본에 반영한다)
+  private final Map<Long, Integer> versions = new HashMap<>();
+  private final Map<Long, Boolean> terminateRequests = new HashMap<>();
+  private final Map<Long, RuntimeException> failures = new HashMap<>();
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * @param bufferedJobs 버퍼링할 job 이름. 재시작할 수 없는 job만 허용해야 한다.
+   */
+  public BufferedJobRepositoryInterceptor(JobRepository delegate, Mode mode,
+      Duration flushInterval, Predicate<String> bufferedJobs) {
+    this.delegate = delegate;
+    this.mode = mode;
+    this.bufferedJobs = bufferedJobs;
+
+    if (mode == Mode.BUFFERED) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-repository-flush");
+        thread.setDaemon(true);
+        return thread;
+      });
+      long millis = flushInterval.toMillis();
+      scheduler.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+    } else {
+      scheduler = null;
+    }
+  }
+
+  /**
+   * 반환한 proxy는 JobRepository와 AutoCloseable을 구현한다. 다 쓴 뒤에는 close로 flush thread를 종료해야 한다.
+   */
+  public static JobRepository proxy(JobRepository jobRepository, Mode mode,
+      Duration flushInterval, Predicate<String> bufferedJobs) {
+    ProxyFactory proxyFactory = new ProxyFactory();
+    proxyFactory.setTarget(jobRepository);
+    proxyFactory.setInterfaces(JobRepository.class, AutoCloseable.class);
+    proxyFactory.addAdvice(new BufferedJobRepositoryInterceptor(jobRepository, mode,
+        flushInterval, bufferedJobs));
+    return (JobRepository) proxyFactory.getProxy();
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (invocation.getMethod().getDeclaringClass() == AutoCloseable.class) {
+      close();
+      return null;
+    }
+
+    Object[] arguments = invocation.getArguments();
+    String name = invocation.getMethod().getName();
+
+    if (arguments.length == 1 && arguments[0] instanceof StepExecution stepExecution
+        && bufferedJobs.test(stepExecution.getJobExecution().getJobInstance().getJobName())) {
+      if ("update".equals(name)) {
+        return defer(invocation, stepExecution, true, false);
+      }
+      if ("updateExecutionContext".equals(name)) {
+        return defer(invocation, stepExecution, false, true);
+      }
+    }
+    return invocation.proceed();
+  }
+
+  private Object defer(MethodInvocation invocation, StepExecution stepExecution,
+      boolean execution, boolean context) throws Throwable {
+    synchronized (lock) {
+      Statistics stepStatistics = statistics.computeIfAbsent(stepExecution.getId(),
+          id -> new Statistics());
+      stepStatistics.requested++;
+      applyFlushed(stepExecution);
+
+      if (stepExecution.getStatus().isRunning() && !stepExecution.isTerminateOnly()) {
+        if (mode == Mode.BUFFERED) {
+          PendingUpdate update = pending.computeIfAbsent(stepExecution.getId(),
+              id -> new PendingUpdate());
+          update.snapshot = snapshot(stepExecution);
+          update.mark(execution, context);
+        }
+        return null;
+      }
+
+      PendingUpdate update = pending.remove(stepExecution.getId());
+      if (update != null) {
+        write(update);
+        applyFlushed(stepExecution);
+      }
+
+      long start = System.nanoTime();
+      try {
+        return invocation.proceed();
+      } finally {
+        stepStatistics.record(1, System.nanoTime() - start);
+        if (execution) {
+          log(stepExecution, statistics.remove(stepExecution.getId()));
+        }
+      }
+    }
+  }
+
+  /**
+   * 모아 둔 갱신을 기록한다. (BUFFERED 모드에서 flushInterval마다 호출)
+   * 실패한 갱신은 failures에 남겨 해당 step의 다음 갱신 요청에서 던진다.
+   */
+  void flush() {
+    synchronized (lock) {
+      List<PendingUpdate> updates = new ArrayList<>(pending.values());
+      pending.clear();
+      for (PendingUpdate update : updates) {
+        try {
+          write(update);
+        } catch (RuntimeException e) {
+          log.error("step execution 메타데이터를 기록하지 못했습니다 : {}",
+              update.snapshot.getStepName(), e);
+          failures.putIfAbsent(update.snapshot.getId(), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * 남은 갱신을 기록하고 flush thread를 종료한다.
+   */
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    flush();
+  }
+
+  /**
+   * flush thread가 복사본에 남긴 version과 중지 요청을 원본에 옮기고, 기록 실패가 있으면 던진다.
+   */
+  private void applyFlushed(StepExecution stepExecution) {
+    Long id = stepExecution.getId();
+    Integer version = versions.remove(id);
+    if (version != null) {
+      stepExecution.setVersion(version);
+    }
+    if (terminateRequests.remove(id) != null) {
+      stepExecution.setTerminateOnly();
+    }
+    RuntimeException failure = failures.remove(id);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * JobRepository가 기록하는 값만 복사한다. (step thread에서 호출)
+   */
+  private StepExecution snapshot(StepExecution stepExecution) {
+    StepExecution snapshot = new StepExecution(stepExecution.getStepName(),
+        stepExecution.getJobExecution());
+    snapshot.setId(stepExecution.getId());
+    Integer version = versions.get(stepExecution.getId());
+    snapshot.setVersion(version != null ? version : stepExecution.getVersion());
+    snapshot.setStatus(stepExecution.getStatus());
+    snapshot.setExitStatus(stepExecution.getExitStatus());
+    snapshot.setReadCount(stepExecution.getReadCount());
+    snapshot.setWriteCount(stepExecution.getWriteCount());
+    snapshot.setFilterCount(stepExecution.getFilterCount());
+    snapshot.setCommitCount(stepExecution.getCommitCount());
+    snapshot.setRollbackCount(stepExecution.getRollbackCount());
+    snapshot.setReadSkipCount(stepExecution.getReadSkipCount());
+    snapshot.setProcessSkipCount(stepExecution.getProcessSkipCount());
+    snapshot.setWriteSkipCount(stepExecution.getWriteSkipCount());
+    snapshot.setCreateTime(stepExecution.getCreateTime());
+    snapshot.setStartTime(stepExecution.getStartTime());
+    snapshot.setEndTime(stepExecution.getEndTime());
+    snapshot.setLastUpdated(stepExecution.getLastUpdated());
+    snapshot.setExecutionContext(new ExecutionContext(stepExecution.getExecutionContext()));
+    return snapshot;
+  }
+
+  private void write(PendingUpdate update) {
+    StepExecution stepExecution = update.snapshot;
+    long start = System.nanoTime();
+    try {
+      if (update.context) {
+        delegate.updateExecutionContext(stepExecution);
+      }
+      if (update.execution) {
+        delegate.update(stepExecution);
+        versions.put(stepExecution.getId(), stepExecution.getVersion());
+        if (stepExecution.isTerminateOnly()) {
+          terminateRequests.put(stepExecution.getId(), true);
+        }
+      }
+    } finally {
+      Statistics stepStatistics = statistics.get(stepExecution.getId());
+      if (stepStatistics != null) {
+        stepStatistics.record((update.context ? 1 : 0) + (update.execution ? 1 : 0),
+            System.nanoTime() - start);
+      }
+    }
+  }
+
+  private void log(StepExecution stepExecution, Statistics stepStatistics) {
+    if (stepStatistics == null) {
+      return;
+    }
+
+    long chunks = Math.max(stepExecution.getCommitCount(), 1);
+    log.info("{} metadata ({}) : chunk {}, 갱신 요청 {}, 기록 {}, {} ms ({} µs/chunk)",
+        stepExecution.getStepName(), mode, stepExecution.getCommitCount(),
+        stepStatistics.requested, stepStatistics.written, stepStatistics.nanos / 1_000_000,
+        stepStatistics.nanos / 1_000 / chunks);
+  }
+
+  private static class PendingUpdate {
+
+    private StepExecution snapshot;
+    private boolean execution;
+    private boolean context;
+
+    private void mark(boolean execution, boolean context) {
+      this.execution |= execution;
+      this.context |= context;
+    }
+  }
+
+  private static class Statistics {
+
+    private long requested;
+    private long written;
+    private long nanos;
+
+    private void record(int writes, long elapsed) {
+      written += writes;
+      nanos += elapsed;
+    }
+  }
+}
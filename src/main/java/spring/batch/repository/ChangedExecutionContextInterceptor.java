@@ -0,0 +1,105 @@
+package spring.batch.repository;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * 바뀐 값이 없는 ExecutionContext는 JobRepository에 다시 기록하지 않는다.
+ * ExecutionContext.put은 값이 달라질 때만 dirty로 표시하므로, 기록한 뒤 dirty 표시를 지우고 다음 변경까지 기록을 건너뛴다.
+ * ExecutionContext.remove는 dirty로 표시하지 않으므로, execution마다 마지막으로 기록한 key 목록을 두고
+ * key 목록이 달라졌으면 dirty가 아니어도 기록한다. key 목록은 execution이 끝나는 update에서 지운다.
+ */
+public class ChangedExecutionContextInterceptor implements MethodInterceptor {
+
+  // "step:{id}" / "job:{id}" -> 마지막으로 기록한 key 목록
+  private final Map<String, Set<String>> persistedKeys = new ConcurrentHashMap<>();
+
+  public static JobRepository proxy(JobRepository jobRepository) {
+    ProxyFactory proxyFactory = new ProxyFactory();
+    proxyFactory.setTarget(jobRepository);
+    proxyFactory.setInterfaces(JobRepository.class);
+    proxyFactory.addAdvice(new ChangedExecutionContextInterceptor());
+    return (JobRepository) proxyFactory.getProxy();
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    Object[] arguments = invocation.getArguments();
+    String name = invocation.getMethod().getName();
+    if (arguments.length != 1) {
+      return invocation.proceed();
+    }
+    if ("update".equals(name)) {
+      Object result = invocation.proceed();
+      if (!isRunning(arguments[0])) {
+        persistedKeys.remove(executionKey(arguments[0]));
+      }
+      return result;
+    }
+    if (!"updateExecutionContext".equals(name)) {
+      return invocation.proceed();
+    }
+
+    ExecutionContext executionContext = executionContext(arguments[0]);
+    if (executionContext == null) {
+      return invocation.proceed();
+    }
+    String executionKey = executionKey(arguments[0]);
+    Set<String> keys = keys(executionContext);
+    if (!executionContext.isDirty() && keys.equals(persistedKeys.get(executionKey))) {
+      return null;
+    }
+
+    Object result = invocation.proceed();
+    executionContext.clearDirtyFlag();
+    persistedKeys.put(executionKey, keys);
+    return result;
+  }
+
+  private static ExecutionContext executionContext(Object argument) {
+    if (argument instanceof StepExecution stepExecution) {
+      return stepExecution.getExecutionContext();
+    }
+    if (argument instanceof JobExecution jobExecution) {
+      return jobExecution.getExecutionContext();
+    }
+    return null;
+  }
+
+  private static String executionKey(Object argument) {
+    if (argument instanceof StepExecution stepExecution) {
+      return "step:" + stepExecution.getId();
+    }
+    if (argument instanceof JobExecution jobExecution) {
+      return "job:" + jobExecution.getId();
+    }
+    return "";
+  }
+
+  private static boolean isRunning(Object argument) {
+    if (argument instanceof StepExecution stepExecution) {
+      return stepExecution.getStatus().isRunning();
+    }
+    if (argument instanceof JobExecution jobExecution) {
+      return jobExecution.isRunning();
+    }
+    return true;
+  }
+
+  private static Set<String> keys(ExecutionContext executionContext) {
+    Set<String> keys = new HashSet<>();
+    for (Map.Entry<String, Object> entry : executionContext.entrySet()) {
+      keys.add(entry.getKey());
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,254 @@
+package spring.batch.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.DefaultExecutionContextSerializer;
+
+/**
+ * ExecutionContext를 type tag + varint 기반의 binary로 직렬화하는 ExecutionContextSerializer
+ * <pre>
+ * "CEC1:" + Base64( flags(1 byte) + [entry 수][key][type][value]... )
+ * </pre>
+ * String, Integer, Long, Double, Boolean, Date, byte[]는 직접 기록하고, 그 밖의 값은 Java 직렬화로 기록한다.
+ * compress가 켜져 있으면 일정 크기 이상일 때 Deflate로 압축한다. (더 작아질 때만)
+ * 메타데이터 테이블은 문자열 column이므로 Base64로 감싸며,
+ * prefix가 없는 기존 데이터는 DefaultExecutionContextSerializer로 읽는다.
+ */
+public class CompactExecutionContextSerializer implements ExecutionContextSerializer {
+
+  static final String PREFIX = "CEC1:";
+
+  private static final byte[] PREFIX_BYTES = PREFIX.getBytes(StandardCharsets.US_ASCII);
+  private static final int FLAG_DEFLATE = 1;
+  private static final int COMPRESS_THRESHOLD = 256;
+
+  private static final int STRING = 1;
+  private static final int INTEGER = 2;
+  private static final int LONG = 3;
+  private static final int DOUBLE = 4;
+  private static final int BOOLEAN = 5;
+  private static final int DATE = 6;
+  private static final int BYTES = 7;
+  private static final int SERIALIZED = 8;
+
+  private final boolean compress;
+  private final ExecutionContextSerializer fallback = new DefaultExecutionContextSerializer();
+
+  public CompactExecutionContextSerializer(boolean compress) {
+    this.compress = compress;
+  }
+
+  @Override
+  public void serialize(Map<String, Object> context, OutputStream outputStream)
+      throws IOException {
+    ByteArrayOutputStream raw = new ByteArrayOutputStream(256);
+    DataOutputStream output = new DataOutputStream(raw);
+    writeVarLong(output, context.size());
+    for (Map.Entry<String, Object> entry : context.entrySet()) {
+      writeString(output, entry.getKey());
+      writeValue(output, entry.getValue());
+    }
+    output.flush();
+
+    byte[] payload = raw.toByteArray();
+    int flags = 0;
+    if (compress && payload.length >= COMPRESS_THRESHOLD) {
+      byte[] deflated = deflate(payload);
+      if (deflated.length < payload.length) {
+        payload = deflated;
+        flags |= FLAG_DEFLATE;
+      }
+    }
+
+    byte[] body = new byte[payload.length + 1];
+    body[0] = (byte) flags;
+    System.arraycopy(payload, 0, body, 1, payload.length);
+
+    outputStream.write(PREFIX_BYTES);
+    outputStream.write(Base64.getEncoder().encode(body));
+  }
+
+  @Override
+  public Map<String, Object> deserialize(InputStream inputStream) throws IOException {
+    byte[] bytes = inputStream.readAllBytes();
+    if (!startsWithPrefix(bytes)) {
+      return fallback.deserialize(new ByteArrayInputStream(bytes));
+    }
+
+    byte[] body = Base64.getDecoder().decode(
+        Arrays.copyOfRange(bytes, PREFIX_BYTES.length, bytes.length));
+    byte[] payload = Arrays.copyOfRange(body, 1, body.length);
+    if ((body[0] & FLAG_DEFLATE) != 0) {
+      payload = inflate(payload);
+    }
+
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+    int size = (int) readVarLong(input);
+    Map<String, Object> context = new HashMap<>((int) (size / 0.75f) + 1);
+    for (int i = 0; i < size; i++) {
+      String key = readString(input);
+      context.put(key, readValue(input));
+    }
+    return context;
+  }
+
+  private static void writeValue(DataOutputStream output, Object value) throws IOException {
+    if (value instanceof String string) {
+      output.writeByte(STRING);
+      writeString(output, string);
+    } else if (value instanceof Integer number) {
+      output.writeByte(INTEGER);
+      writeVarLong(output, zigzag(number));
+    } else if (value instanceof Long number) {
+      output.writeByte(LONG);
+      writeVarLong(output, zigzag(number));
+    } else if (value instanceof Double number) {
+      output.writeByte(DOUBLE);
+      output.writeDouble(number);
+    } else if (value instanceof Boolean bool) {
+      output.writeByte(BOOLEAN);
+      output.writeBoolean(bool);
+    } else if (value != null && value.getClass() == Date.class) {
+      output.writeByte(DATE);
+      writeVarLong(output, zigzag(((Date) value).getTime()));
+    } else if (value instanceof byte[] array) {
+      output.writeByte(BYTES);
+      writeBytes(output, array);
+    } else {
+      output.writeByte(SERIALIZED);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+        objectOutput.writeObject(value);
+      }
+      writeBytes(output, bytes.toByteArray());
+    }
+  }
+
+  private static Object readValue(DataInputStream input) throws IOException {
+    int type = input.readUnsignedByte();
+    return switch (type) {
+      case STRING -> readString(input);
+      case INTEGER -> (int) unzigzag(readVarLong(input));
+      case LONG -> unzigzag(readVarLong(input));
+      case DOUBLE -> input.readDouble();
+      case BOOLEAN -> input.readBoolean();
+      case DATE -> new Date(unzigzag(readVarLong(input)));
+      case BYTES -> readBytes(input);
+      case SERIALIZED -> {
+        try (ObjectInputStream objectInput = new ObjectInputStream(
+            new ByteArrayInputStream(readBytes(input)))) {
+          yield objectInput.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IOException("ExecutionContext 값을 복원할 수 없습니다", e);
+        }
+      }
+      default -> throw new IOException("알 수 없는 type : " + type);
+    };
+  }
+
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    return new String(readBytes(input), StandardCharsets.UTF_8);
+  }
+
+  private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+    writeVarLong(output, bytes.length);
+    output.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    byte[] bytes = new byte[(int) readVarLong(input)];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      output.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    output.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream input) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = input.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("잘못된 varint");
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static byte[] deflate(byte[] bytes) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 2 + 16);
+      byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        output.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] bytes) throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes);
+      ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+      byte[] buffer = new byte[4096];
+      while (!inflater.finished()) {
+        int length = inflater.inflate(buffer);
+        if (length == 0 && inflater.needsInput()) {
+          throw new IOException("압축된 ExecutionContext가 손상되었습니다");
+        }
+        output.write(buffer, 0, length);
+      }
+      return output.toByteArray();
+    } catch (DataFormatException e) {
+      throw new IOException("압축된 ExecutionContext가 손상되었습니다", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static boolean startsWithPrefix(byte[] bytes) {
+    return bytes.length >= PREFIX_BYTES.length && Arrays.equals(bytes, 0, PREFIX_BYTES.length,
+        PREFIX_BYTES, 0, PREFIX_BYTES.length);
+  }
+}
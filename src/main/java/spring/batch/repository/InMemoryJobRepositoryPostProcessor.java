@@ -0,0 +1,68 @@
+package spring.batch.repository;
+
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.JobExplorerFactoryBean;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * JobRepository와 JobExplorer를 업무 DB와 분리된 in-memory H2의 메타데이터로 바꾼다.
+ * process가 끝나면 메타데이터도 사라지므로 재시작이 필요 없는 job에만 사용한다.
+ * 버퍼링(BufferedJobRepositoryInterceptor)보다 먼저 적용되도록 가장 높은 우선순위를 가진다.
+ */
+public class InMemoryJobRepositoryPostProcessor implements BeanPostProcessor, PriorityOrdered,
+    DisposableBean {
+
+  private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder()
+      .setType(EmbeddedDatabaseType.H2)
+      .generateUniqueName(true)
+      .addScript("/org/springframework/batch/core/schema-h2.sql")
+      .build();
+
+  private final DataSourceTransactionManager transactionManager =
+      new DataSourceTransactionManager(dataSource);
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName)
+      throws BeansException {
+    try {
+      if (bean instanceof JobRepository) {
+        JobRepositoryFactoryBean factoryBean = new JobRepositoryFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setTransactionManager(transactionManager);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+      }
+      if (bean instanceof JobExplorer) {
+        JobExplorerFactoryBean factoryBean = new JobExplorerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setTransactionManager(transactionManager);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+      }
+    } catch (Exception e) {
+      throw new BeanCreationException(beanName, "in-memory 메타데이터 저장소를 만들 수 없습니다", e);
+    }
+    return bean;
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  @Override
+  public void destroy() {
+    dataSource.shutdown();
+  }
+}
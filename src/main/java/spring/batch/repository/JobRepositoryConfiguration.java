@@ -0,0 +1,118 @@
+package spring.batch.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 자주 실행되는 작은 job을 위해 메타데이터 기록 비용을 줄이는 JobRepository 설정 (profile로 선택)
+ * <pre>
+ * buffered-job-repository  : preventRestart()로 재시작을 막은 job의 StepExecution/ExecutionContext 갱신을 모아서 비동기로 기록
+ *                            batch.repository.mode=buffered(기본값)|final_only, batch.repository.flush-interval-ms=1000
+ * in-memory-job-repository : 메타데이터를 별도의 in-memory H2에 기록 (재시작이 필요 없는 job 용)
+ * compact-execution-context : ExecutionContext를 binary로 직렬화하고(batch.execution-context.compress=true),
+ *                             바뀐 ExecutionContext만 기록
+ * </pre>
+ * 두 profile을 함께 켜면 in-memory 메타데이터 저장소에 버퍼링이 적용된다.
+ */
+@Configuration
+@Slf4j
+public class JobRepositoryConfiguration {
+
+  @Bean
+  @Profile("in-memory-job-repository")
+  public static InMemoryJobRepositoryPostProcessor inMemoryJobRepositoryPostProcessor() {
+    return new InMemoryJobRepositoryPostProcessor();
+  }
+
+  @Bean
+  @Profile("buffered-job-repository")
+  public static BeanPostProcessor bufferedJobRepositoryPostProcessor(
+      @Value("${batch.repository.mode:buffered}") String mode,
+      @Value("${batch.repository.flush-interval-ms:1000}") long flushIntervalMillis) {
+    return new BufferedJobRepositoryPostProcessor(BufferedJobRepositoryInterceptor.Mode.of(mode),
+        Duration.ofMillis(flushIntervalMillis));
+  }
+
+  /**
+   * EnableBatchProcessing은 "executionContextSerializer" 라는 이름의 bean을 JobRepository와 JobExplorer에 사용한다.
+   */
+  @Bean
+  @Profile("compact-execution-context")
+  public ExecutionContextSerializer executionContextSerializer(
+      @Value("${batch.execution-context.compress:true}") boolean compress) {
+    return new CompactExecutionContextSerializer(compress);
+  }
+
+  @Bean
+  @Profile("compact-execution-context")
+  public static BeanPostProcessor changedExecutionContextPostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof JobRepository jobRepository) {
+          return ChangedExecutionContextInterceptor.proxy(jobRepository);
+        }
+        return bean;
+      }
+    };
+  }
+
+  /**
+   * JobRepository를 BufferedJobRepositoryInterceptor로 감싸고, context가 닫힐 때 남은 갱신을 기록한 뒤 flush thread를 종료한다.
+   * (JobRepository는 FactoryBean이 만든 객체라 proxy 자체에는 destroy 콜백이 오지 않는다)
+   * 버퍼링은 재시작할 수 없는 Job bean에만 적용한다. 재시작 가능한 job은 chunk마다 바로 기록한다.
+   */
+  private static class BufferedJobRepositoryPostProcessor implements BeanPostProcessor,
+      DisposableBean {
+
+    private final BufferedJobRepositoryInterceptor.Mode mode;
+    private final Duration flushInterval;
+    private final List<AutoCloseable> repositories = new ArrayList<>();
+    // JobRepository가 Job보다 먼저 만들어지므로 실행 시점에 조회한다.
+    private final Set<String> nonRestartableJobs = ConcurrentHashMap.newKeySet();
+
+    private BufferedJobRepositoryPostProcessor(BufferedJobRepositoryInterceptor.Mode mode,
+        Duration flushInterval) {
+      this.mode = mode;
+      this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (bean instanceof JobRepository jobRepository) {
+        JobRepository proxy = BufferedJobRepositoryInterceptor.proxy(jobRepository, mode,
+            flushInterval, nonRestartableJobs::contains);
+        repositories.add((AutoCloseable) proxy);
+        return proxy;
+      }
+      if (bean instanceof Job job) {
+        if (job.isRestartable()) {
+          log.info("재시작할 수 있는 job은 메타데이터를 버퍼링하지 않습니다 : {}", job.getName());
+        } else {
+          nonRestartableJobs.add(job.getName());
+        }
+      }
+      return bean;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+      for (AutoCloseable repository : repositories) {
+        repository.close();
+      }
+    }
+  }
+}
@@ -5,6 +5,31 @@ create table person (
   address varchar(255)
 );
 
+-- dedup_mode=database : 읽은 그대로 적재한 뒤 PromotePersonTasklet이 person으로 옮긴다. (PersonStagingItemWriter)
+create table person_staging (
+  seq bigint primary key auto_increment,
+  job_instance_id bigint not null,
+  name varchar(255),
+  age varchar(255),
+  address varchar(255)
+);
+
+create index person_staging_job_instance_idx on person_staging (job_instance_id);
+
+-- remote chunking worker : 커밋한 chunk와 job instance별 중복 검사 key (RemoteChunkWorker)
+create table remote_chunk_ledger (
+  chunk_key varchar(64) primary key,
+  job_instance_id bigint not null,
+  write_count int not null,
+  filter_count int not null
+);
+
+create table remote_chunk_key (
+  job_instance_id bigint not null,
+  dedup_key varchar(255) not null,
+  primary key (job_instance_id, dedup_key)
+);
+
 insert into person(name, age, address) values('한성민', '24', '서울');
 insert into person(name, age, address) values('짱구', '5', '떡잎마을');
 insert into person(name, age, address) values('상디', '20', '올블루');
\ No newline at end of file
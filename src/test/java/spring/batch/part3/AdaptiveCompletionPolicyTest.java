@@ -0,0 +1,74 @@
+package spring.batch.part3;
+
+import java.time.Duration;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+public class AdaptiveCompletionPolicyTest {
+
+  private final StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+  private final ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+  @Test
+  void test_shrink_when_commit_latency_exceeds_target() throws Exception {
+    // given (목표 커밋 시간이 0이므로 모든 chunk가 목표를 넘는다)
+    AdaptiveCompletionPolicy completionPolicy = new AdaptiveCompletionPolicy(100, 10, 1000,
+        Duration.ZERO);
+
+    // when
+    chunk(completionPolicy, 100, 0, new ExecutionContext());
+    chunk(completionPolicy, 66, 0, new ExecutionContext());
+
+    // then
+    Assertions.assertThat(completionPolicy.getChunkSize()).isEqualTo(44);
+  }
+
+  @Test
+  void test_grow_again_when_commit_latency_recovers() throws Exception {
+    // given (첫 chunk만 목표 커밋 시간을 넘는다)
+    AdaptiveCompletionPolicy completionPolicy = new AdaptiveCompletionPolicy(100, 10, 1000,
+        Duration.ofMillis(200));
+
+    // when
+    chunk(completionPolicy, 100, 400, new ExecutionContext());
+    chunk(completionPolicy, 66, 0, new ExecutionContext());
+
+    // then
+    Assertions.assertThat(completionPolicy.getChunkSize()).isEqualTo(99);
+  }
+
+  @Test
+  void test_restart_from_saved_chunk_size() throws Exception {
+    // given (목표 커밋 시간 안에 끝나므로 chunk 크기를 키운다)
+    AdaptiveCompletionPolicy completionPolicy = new AdaptiveCompletionPolicy(10, 10, 1000,
+        Duration.ofHours(1));
+    ExecutionContext executionContext = new ExecutionContext();
+    completionPolicy.open(executionContext);
+    chunk(completionPolicy, 10, 0, executionContext);
+
+    // when
+    AdaptiveCompletionPolicy restarted = new AdaptiveCompletionPolicy(10, 10, 1000,
+        Duration.ofHours(1));
+    restarted.open(executionContext);
+
+    // then (TaskletStep은 update를 afterChunk보다 먼저 호출하므로 커밋된 chunk의 크기가 저장된다)
+    Assertions.assertThat(restarted.getChunkSize()).isEqualTo(10);
+  }
+
+  /**
+   * TaskletStep과 같은 순서로 호출한다. (beforeChunk -> update -> commit -> afterChunk)
+   */
+  private void chunk(AdaptiveCompletionPolicy completionPolicy, int items, long sleepMillis,
+      ExecutionContext executionContext) throws InterruptedException {
+    completionPolicy.beforeChunk(chunkContext);
+    Thread.sleep(sleepMillis);
+    stepExecution.setReadCount(stepExecution.getReadCount() + items);
+    completionPolicy.update(executionContext);
+    completionPolicy.afterChunk(chunkContext);
+  }
+}
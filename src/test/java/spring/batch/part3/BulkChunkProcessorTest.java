@@ -0,0 +1,134 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.step.skip.LimitCheckingItemSkipPolicy;
+import org.springframework.batch.core.step.skip.SkipLimitExceededException;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+public class BulkChunkProcessorTest {
+
+  private final List<Person> written = new ArrayList<>();
+  private final List<Person> skipped = new ArrayList<>();
+
+  @Test
+  void test_failure_is_skipped_per_item() throws Exception {
+    // given (이름이 빈 item 하나는 실패, 중복된 item 하나는 filter)
+    BulkChunkProcessor<Person, Person> chunkProcessor = chunkProcessor(2);
+    StepContribution contribution = contribution();
+
+    // when
+    chunkProcessor.process(contribution, chunk());
+
+    // then (실패한 item만 skip 되고 나머지는 그대로 쓰인다)
+    Assertions.assertThat(contribution.getProcessSkipCount()).isEqualTo(1);
+    Assertions.assertThat(contribution.getFilterCount()).isEqualTo(1);
+    Assertions.assertThat(contribution.getWriteCount()).isEqualTo(2);
+    Assertions.assertThat(written).extracting(Person::getName).containsExactly("한성민", "짱구");
+    Assertions.assertThat(skipped).extracting(Person::getName).containsExactly("");
+  }
+
+  @Test
+  void test_skip_listener_not_called_when_write_fails() {
+    // given (writer가 실패하면 chunk가 rollback 된다)
+    BulkChunkProcessor<Person, Person> chunkProcessor = chunkProcessor(2, items -> {
+      throw new IllegalStateException("write failed");
+    });
+
+    // when, then (rollback 되는 chunk의 skip은 listener에 알리지 않는다)
+    Assertions.assertThatThrownBy(() -> chunkProcessor.process(contribution(), chunk()))
+        .isInstanceOf(IllegalStateException.class);
+    Assertions.assertThat(skipped).isEmpty();
+  }
+
+  @Test
+  void test_skip_limit_exceeded() {
+    // given (skip을 허용하지 않는다)
+    BulkChunkProcessor<Person, Person> chunkProcessor = chunkProcessor(0);
+
+    // when, then (chunk 전체가 실패하고 아무것도 쓰지 않는다)
+    Assertions.assertThatThrownBy(() -> chunkProcessor.process(contribution(), chunk()))
+        .isInstanceOf(SkipLimitExceededException.class);
+    Assertions.assertThat(written).isEmpty();
+  }
+
+  @Test
+  void test_async_processor_failure_is_skipped_in_process() throws Exception {
+    // given (processor를 별도 thread에서 실행한다)
+    AsyncItemProcessor<Person, Person> asyncItemProcessor = new AsyncItemProcessor<>();
+    asyncItemProcessor.setDelegate(item -> {
+      if (item.isNotEmptyName()) {
+        return "한성민".equals(item.getName()) ? null : item;
+      }
+      throw new NotFoundNameException();
+    });
+    asyncItemProcessor.setTaskExecutor(new SimpleAsyncTaskExecutor());
+    BulkChunkProcessor<Person, Person> chunkProcessor = chunkProcessor(2,
+        new AsyncChunkItemProcessor<>(asyncItemProcessor),
+        items -> written.addAll(items.getItems()));
+    StepContribution contribution = contribution();
+
+    // when
+    chunkProcessor.process(contribution, chunk());
+
+    // then (null은 filter로, 예외는 write skip이 아니라 process skip으로 집계된다)
+    Assertions.assertThat(contribution.getFilterCount()).isEqualTo(2);
+    Assertions.assertThat(contribution.getProcessSkipCount()).isEqualTo(1);
+    Assertions.assertThat(contribution.getWriteSkipCount()).isZero();
+    Assertions.assertThat(contribution.getWriteCount()).isEqualTo(1);
+    Assertions.assertThat(written).extracting(Person::getName).containsExactly("짱구");
+    Assertions.assertThat(skipped).extracting(Person::getName).containsExactly("");
+  }
+
+  private BulkChunkProcessor<Person, Person> chunkProcessor(int skipLimit) {
+    return chunkProcessor(skipLimit, items -> written.addAll(items.getItems()));
+  }
+
+  private BulkChunkProcessor<Person, Person> chunkProcessor(int skipLimit,
+      ItemWriter<Person> itemWriter) {
+    ChunkItemProcessor<Person, Person> validationProcessor = ChunkItemProcessor.of(item -> {
+      if (item.isNotEmptyName()) {
+        return item;
+      }
+      throw new NotFoundNameException();
+    });
+    DuplicateValidationProcessor<Person> duplicateValidationProcessor =
+        new DuplicateValidationProcessor<>(Person::getName, false);
+
+    return chunkProcessor(skipLimit, validationProcessor.andThen(duplicateValidationProcessor),
+        itemWriter);
+  }
+
+  private BulkChunkProcessor<Person, Person> chunkProcessor(int skipLimit,
+      ChunkItemProcessor<Person, Person> itemProcessor, ItemWriter<Person> itemWriter) {
+    BulkChunkProcessor<Person, Person> chunkProcessor = new BulkChunkProcessor<>(itemProcessor,
+        itemWriter,
+        new LimitCheckingItemSkipPolicy(skipLimit, Map.of(NotFoundNameException.class, true)));
+    chunkProcessor.registerListener(new SkipListener<Person, Person>() {
+      @Override
+      public void onSkipInProcess(Person item, Throwable t) {
+        skipped.add(item);
+      }
+    });
+    return chunkProcessor;
+  }
+
+  private Chunk<Person> chunk() {
+    return new Chunk<>(new Person("한성민", "24", "서울"), new Person("", "5", "떡잎마을"),
+        new Person("한성민", "24", "서울"), new Person("짱구", "5", "떡잎마을"));
+  }
+
+  private StepContribution contribution() {
+    return new StepContribution(new StepExecution("bulkStep", new JobExecution(1L)));
+  }
+}
@@ -0,0 +1,84 @@
+package spring.batch.part3;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+public class ByteRangePartitionerTest {
+
+  private final Resource resource = new ClassPathResource("person.csv");
+
+  @Test
+  void test_partitions_cover_all_lines() throws Exception {
+    // given
+    List<String> lines = Files.readAllLines(resource.getFile().toPath(), StandardCharsets.UTF_8);
+    List<String> expected = lines.subList(1, lines.size());
+
+    // when
+    Map<String, ExecutionContext> partitions = new ByteRangePartitioner(resource, 1).partition(7);
+
+    // then (파티션을 순서대로 이어 읽으면 헤더를 제외한 원본과 같아야 한다)
+    List<String> actual = new ArrayList<>();
+    for (ExecutionContext context : partitions.values()) {
+      actual.addAll(readAll(context));
+    }
+
+    Assertions.assertThat(partitions).hasSize(7);
+    Assertions.assertThat(actual).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  void test_restart_from_saved_offset() throws Exception {
+    // given
+    ExecutionContext partition = new ByteRangePartitioner(resource, 1).partition(1)
+        .get("partition0");
+    ByteRangeItemReader<String> itemReader = itemReader(partition);
+    ExecutionContext executionContext = new ExecutionContext();
+    itemReader.open(executionContext);
+    for (int i = 0; i < 10; i++) {
+      itemReader.read();
+    }
+    itemReader.update(executionContext);
+    itemReader.close();
+
+    // when (저장된 offset으로 다시 열면 11번째 줄부터 읽는다)
+    ByteRangeItemReader<String> restarted = itemReader(partition);
+    restarted.open(executionContext);
+    List<String> rest = new ArrayList<>();
+    String line;
+    while ((line = restarted.read()) != null) {
+      rest.add(line);
+    }
+    restarted.close();
+
+    // then
+    Assertions.assertThat(rest).hasSize(90);
+  }
+
+  private List<String> readAll(ExecutionContext partition) throws Exception {
+    ByteRangeItemReader<String> itemReader = itemReader(partition);
+    itemReader.open(new ExecutionContext());
+
+    List<String> lines = new ArrayList<>();
+    String line;
+    while ((line = itemReader.read()) != null) {
+      lines.add(line);
+    }
+    itemReader.close();
+    return lines;
+  }
+
+  private ByteRangeItemReader<String> itemReader(ExecutionContext partition) {
+    return new ByteRangeItemReader<>(resource, new PassThroughLineMapper(),
+        partition.getLong(ByteRangePartitioner.START_OFFSET),
+        partition.getLong(ByteRangePartitioner.END_OFFSET));
+  }
+}
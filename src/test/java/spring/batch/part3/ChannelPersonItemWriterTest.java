@@ -0,0 +1,84 @@
+package spring.batch.part3;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ChannelPersonItemWriterTest {
+
+  @TempDir
+  Path tempDir;
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void test_restart_truncates_uncommitted_chunk(boolean gzip) throws Exception {
+    // given (두 번째 chunk는 쓰고 나서 커밋 전에 실패)
+    Path path = tempDir.resolve("output.csv");
+    ExecutionContext executionContext = new ExecutionContext();
+    ChannelPersonItemWriter itemWriter = ItemWriterConfiguration.channelCsvItemWriter(path, gzip);
+    itemWriter.open(executionContext);
+    itemWriter.write(new Chunk<>(List.of(new Person(1, "한성민", "24", "서울"),
+        new Person(2, "짱구", "5", "떡잎마을"))));
+    itemWriter.update(executionContext);
+    itemWriter.write(new Chunk<>(List.of(new Person(3, "상디", "20", "올블루"))));
+    itemWriter.close();
+
+    // when
+    ChannelPersonItemWriter restarted = ItemWriterConfiguration.channelCsvItemWriter(path, gzip);
+    restarted.open(executionContext);
+    restarted.write(new Chunk<>(List.of(new Person(3, "상디", "20", "올블루"))));
+    restarted.update(executionContext);
+    restarted.close();
+
+    // then
+    Assertions.assertThat(read(path, gzip)).isEqualTo(
+        "id,이름,나이,거주지\n1,한성민,24,서울\n2,짱구,5,떡잎마을\n3,상디,20,올블루\n---------------\n");
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void test_rollback_truncates_chunk(boolean gzip) throws Exception {
+    // given (두 번째 chunk의 transaction이 rollback 된다)
+    Path path = tempDir.resolve("output.csv");
+    ExecutionContext executionContext = new ExecutionContext();
+    ChannelPersonItemWriter itemWriter = ItemWriterConfiguration.channelCsvItemWriter(path, gzip);
+    itemWriter.open(executionContext);
+    itemWriter.write(new Chunk<>(List.of(new Person(1, "한성민", "24", "서울"))));
+    itemWriter.update(executionContext);
+
+    // when
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      itemWriter.write(new Chunk<>(List.of(new Person(2, "짱구", "5", "떡잎마을"))));
+      TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+          synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    itemWriter.write(new Chunk<>(List.of(new Person(3, "상디", "20", "올블루"))));
+    itemWriter.update(executionContext);
+    itemWriter.close();
+
+    // then (gzip이어도 하나의 member로 끝까지 읽힌다)
+    Assertions.assertThat(read(path, gzip)).isEqualTo(
+        "id,이름,나이,거주지\n1,한성민,24,서울\n3,상디,20,올블루\n---------------\n");
+  }
+
+  private String read(Path path, boolean gzip) throws Exception {
+    try (InputStream input = gzip ? new GZIPInputStream(Files.newInputStream(path))
+        : Files.newInputStream(path)) {
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package spring.batch.part3;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ParseException;
+import org.springframework.core.io.FileSystemResource;
+
+public class ColumnarPersonItemReaderTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void test_read_written_persons() throws Exception {
+    // given (null 값과 반복되는 age, address를 섞어서 여러 block으로 쓴다)
+    Path path = tempDir.resolve("persons.pcol");
+    List<Person> persons = persons(2_500);
+    write(path, persons, 300);
+
+    // when
+    List<Person> read = readAll(reader(path), new ExecutionContext());
+
+    // then
+    Assertions.assertThat(read).isEqualTo(persons);
+  }
+
+  @Test
+  void test_restart_skips_to_saved_block() throws Exception {
+    // given (1,234건을 읽고 커밋한 뒤 실패)
+    Path path = tempDir.resolve("persons.pcol");
+    List<Person> persons = persons(2_500);
+    write(path, persons, 300);
+
+    ExecutionContext executionContext = new ExecutionContext();
+    ColumnarPersonItemReader itemReader = reader(path);
+    itemReader.open(executionContext);
+    List<Person> read = new ArrayList<>();
+    for (int i = 0; i < 1_234; i++) {
+      read.add(itemReader.read());
+    }
+    itemReader.update(executionContext);
+    itemReader.close();
+
+    // when (저장된 ExecutionContext로 재시작)
+    read.addAll(readAll(reader(path), executionContext));
+
+    // then (빠지거나 중복된 item 없이 이어서 읽는다)
+    Assertions.assertThat(read).isEqualTo(persons);
+  }
+
+  @Test
+  void test_writer_restart_truncates_uncommitted_block() throws Exception {
+    // given (두 번째 chunk는 쓰고 나서 커밋 전에 실패)
+    Path path = tempDir.resolve("persons.pcol");
+    List<Person> persons = persons(20);
+    ExecutionContext executionContext = new ExecutionContext();
+    ColumnarPersonItemWriter itemWriter = ItemWriterConfiguration.columnarItemWriter(path);
+    itemWriter.open(executionContext);
+    itemWriter.write(new Chunk<>(persons.subList(0, 10)));
+    itemWriter.update(executionContext);
+    itemWriter.write(new Chunk<>(persons.subList(10, 20)));
+    itemWriter.close();
+
+    // when
+    ColumnarPersonItemWriter restarted = ItemWriterConfiguration.columnarItemWriter(path);
+    restarted.open(executionContext);
+    restarted.write(new Chunk<>(persons.subList(10, 20)));
+    restarted.update(executionContext);
+    restarted.close();
+
+    // then
+    Assertions.assertThat(readAll(reader(path), new ExecutionContext())).isEqualTo(persons);
+  }
+
+  @Test
+  void test_corrupted_block() throws Exception {
+    // given (마지막 block의 payload 1 byte를 바꾼다)
+    Path path = tempDir.resolve("persons.pcol");
+    write(path, persons(100), 1_000);
+    byte[] bytes = Files.readAllBytes(path);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(path, bytes);
+
+    // when, then
+    Assertions.assertThatThrownBy(() -> readAll(reader(path), new ExecutionContext()))
+        .isInstanceOf(ParseException.class);
+  }
+
+  @Test
+  void test_corrupted_block_header() throws Exception {
+    // given (header는 CRC 대상이 아니다. 첫 block의 행 수와 payload 길이를 각각 터무니없는 값으로 바꾼다)
+    Path path = tempDir.resolve("persons.pcol");
+    write(path, persons(100), 1_000);
+    byte[] bytes = Files.readAllBytes(path);
+    Path rows = tempDir.resolve("rows.pcol");
+    Files.write(rows, ByteBuffer.wrap(bytes.clone())
+        .putInt(ColumnarPersonFormat.FILE_HEADER_SIZE, Integer.MAX_VALUE).array());
+    Path payload = tempDir.resolve("payload.pcol");
+    Files.write(payload, ByteBuffer.wrap(bytes.clone())
+        .putInt(ColumnarPersonFormat.FILE_HEADER_SIZE + 4, Integer.MAX_VALUE).array());
+
+    // when, then (배열을 만들기 전에 ParseException으로 실패한다)
+    Assertions.assertThatThrownBy(() -> readAll(reader(rows), new ExecutionContext()))
+        .isInstanceOf(ParseException.class);
+    Assertions.assertThatThrownBy(() -> readAll(reader(payload), new ExecutionContext()))
+        .isInstanceOf(ParseException.class);
+  }
+
+  @Test
+  void test_missing_file_is_empty_when_not_strict() throws Exception {
+    // given
+    ColumnarPersonItemReader itemReader = reader(tempDir.resolve("missing.pcol"));
+    itemReader.setStrict(false);
+
+    // when, then
+    Assertions.assertThat(readAll(itemReader, new ExecutionContext())).isEmpty();
+  }
+
+  private ColumnarPersonItemReader reader(Path path) {
+    ColumnarPersonItemReader itemReader = ItemReaderConfiguration.columnarItemReader(
+        new FileSystemResource(path));
+    itemReader.setWindowSize(4 * 1024); // block이 window 경계에 걸치도록 작게 잡는다.
+    return itemReader;
+  }
+
+  private void write(Path path, List<Person> persons, int blockSize) throws Exception {
+    ColumnarPersonItemWriter itemWriter = ItemWriterConfiguration.columnarItemWriter(path);
+    itemWriter.setBlockSize(blockSize);
+    ExecutionContext executionContext = new ExecutionContext();
+    itemWriter.open(executionContext);
+    for (int from = 0; from < persons.size(); from += 1_000) {
+      itemWriter.write(new Chunk<>(persons.subList(from, Math.min(from + 1_000, persons.size()))));
+      itemWriter.update(executionContext);
+    }
+    itemWriter.close();
+  }
+
+  private List<Person> readAll(ColumnarPersonItemReader itemReader,
+      ExecutionContext executionContext) throws Exception {
+    List<Person> read = new ArrayList<>();
+    itemReader.open(executionContext);
+    try {
+      Person person;
+      while ((person = itemReader.read()) != null) {
+        read.add(person);
+      }
+    } finally {
+      itemReader.close();
+    }
+    return read;
+  }
+
+  private List<Person> persons(int size) {
+    String[] addresses = {"서울", "떡잎마을", "올블루", null};
+    List<Person> persons = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      persons.add(new Person(i * 3 - 5, i % 7 == 0 ? null : "name" + i,
+          String.valueOf(20 + i % 50), addresses[i % addresses.length]));
+    }
+    return persons;
+  }
+}
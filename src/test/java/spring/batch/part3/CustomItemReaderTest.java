@@ -0,0 +1,88 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+
+public class CustomItemReaderTest {
+
+  private final List<Integer> items = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+  @Test
+  void test_restart_from_saved_position() {
+    // given (30개를 읽고 커밋한 뒤 실패)
+    ExecutionContext executionContext = new ExecutionContext();
+    CustomItemReader<Integer> itemReader = new CustomItemReader<>(items);
+    itemReader.open(executionContext);
+    for (int i = 0; i < 30; i++) {
+      itemReader.read();
+    }
+    itemReader.update(executionContext);
+
+    // when
+    CustomItemReader<Integer> restarted = new CustomItemReader<>(items);
+    restarted.open(executionContext);
+
+    // then
+    Assertions.assertThat(readAll(restarted)).containsExactlyElementsOf(items.subList(30, 100));
+  }
+
+  @Test
+  void test_restart_iterator_source() {
+    // given
+    ExecutionContext executionContext = new ExecutionContext();
+    CustomItemReader<Integer> itemReader = new CustomItemReader<>(items.iterator());
+    itemReader.open(executionContext);
+    for (int i = 0; i < 30; i++) {
+      itemReader.read();
+    }
+    itemReader.update(executionContext);
+
+    // when
+    CustomItemReader<Integer> restarted = new CustomItemReader<>(items.iterator());
+    restarted.open(executionContext);
+
+    // then
+    Assertions.assertThat(readAll(restarted)).containsExactlyElementsOf(items.subList(30, 100));
+  }
+
+  @Test
+  void test_concurrent_read_returns_each_item_once() throws Exception {
+    // given
+    List<Integer> source = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+    CustomItemReader<Integer> itemReader = new CustomItemReader<>(source);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    // when
+    List<Future<List<Integer>>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(executorService.submit(() -> readAll(itemReader)));
+    }
+    List<Integer> result = new ArrayList<>();
+    for (Future<List<Integer>> future : futures) {
+      result.addAll(future.get());
+    }
+    executorService.shutdown();
+
+    // then
+    Collections.sort(result);
+    Assertions.assertThat(result).containsExactlyElementsOf(source);
+  }
+
+  private List<Integer> readAll(CustomItemReader<Integer> itemReader) {
+    List<Integer> result = new ArrayList<>();
+    Integer item;
+    while ((item = itemReader.read()) != null) {
+      result.add(item);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,48 @@
+package spring.batch.part3;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class DuplicateKeyStoreTest {
+
+  @TempDir
+  static Path tempDir;
+
+  static Stream<DuplicateKeyStore> keyStores() {
+    return Stream.of(
+        new HashDuplicateKeyStore(),
+        new FingerprintDuplicateKeyStore(16, false),
+        new FingerprintDuplicateKeyStore(16, true),
+        new SpillingDuplicateKeyStore(1_000, 2, tempDir),
+        new BloomFilterDuplicateKeyStore(new SpillingDuplicateKeyStore(500, 3, tempDir), 20_000,
+            0.01));
+  }
+
+  @ParameterizedTest
+  @MethodSource("keyStores")
+  void test_same_result_as_hash_set(DuplicateKeyStore keyStore) {
+    // given
+    Set<String> expected = new HashSet<>();
+    Random random = new Random(1);
+
+    // when & then (매번 HashSet과 같은 판단을 내려야 한다)
+    for (int i = 0; i < 60_000; i++) {
+      String key = "name" + random.nextInt(20_000);
+      Assertions.assertThat(keyStore.add(key)).isEqualTo(expected.add(key));
+    }
+
+    Assertions.assertThat(keyStore.size()).isEqualTo(expected.size());
+    Assertions.assertThat(keyStore.contains("name1")).isEqualTo(expected.contains("name1"));
+    Assertions.assertThat(keyStore.contains("unknown")).isFalse();
+    Assertions.assertThat(keyStore.bytesPerEntry()).isPositive();
+
+    keyStore.close();
+  }
+}
@@ -0,0 +1,45 @@
+package spring.batch.part3;
+
+import java.nio.file.Path;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+public class DuplicateValidationProcessorTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void test_restart_restores_committed_keys() throws Exception {
+    // given (첫 실행에서 두 chunk를 처리하고, 세 번째 chunk는 커밋 전에 실패)
+    ExecutionContext executionContext = new ExecutionContext();
+    DuplicateValidationProcessor<Person> processor = processor();
+    processor.open(executionContext);
+
+    processor.process(new Person("한성민", "24", "서울"));
+    processor.update(executionContext);
+    processor.process(new Person("짱구", "5", "떡잎마을"));
+    processor.update(executionContext);
+    processor.process(new Person("상디", "20", "올블루"));
+    processor.close();
+
+    // when (저장된 ExecutionContext로 재시작)
+    DuplicateValidationProcessor<Person> restarted = processor();
+    restarted.open(executionContext);
+
+    // then (커밋된 key는 중복으로 걸러지고, 커밋되지 않은 key는 다시 처리된다)
+    Assertions.assertThat(restarted.process(new Person("한성민", "24", "서울"))).isNull();
+    Assertions.assertThat(restarted.process(new Person("짱구", "5", "떡잎마을"))).isNull();
+    Assertions.assertThat(restarted.process(new Person("상디", "20", "올블루"))).isNotNull();
+    restarted.close();
+  }
+
+  private DuplicateValidationProcessor<Person> processor() {
+    DuplicateValidationProcessor<Person> processor = new DuplicateValidationProcessor<>(
+        Person::getName, false);
+    processor.setJournalDirectory(tempDir);
+    return processor;
+  }
+}
@@ -0,0 +1,119 @@
+package spring.batch.part3;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExternalMergeSorterTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void test_sort_unique_with_multiple_merge_passes() throws Exception {
+    // given (이름 500개로 만든 10,000줄, run은 100줄, 4개씩 병합하므로 병합을 여러 번 한다)
+    Map<String, String> firstLines = new LinkedHashMap<>();
+    Path input = generate(10_000, 500, firstLines);
+    Path output = tempDir.resolve("sorted.csv");
+
+    ExternalMergeSorter sorter = sorter();
+    sorter.setRunSize(100);
+    sorter.setFanIn(4);
+
+    // when
+    ExternalMergeSorter.Result result = sorter.sortUnique(input, output, 1);
+
+    // then (이름 순으로 정렬되고, 이름마다 입력에서 처음 나온 줄만 남는다)
+    List<String> expected = new ArrayList<>(firstLines.values());
+    expected.sort(Comparator.comparing(line -> line.substring(0, line.indexOf(','))));
+
+    List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+    Assertions.assertThat(lines.get(0)).isEqualTo("이름,나이,거주지");
+    Assertions.assertThat(lines.subList(1, lines.size())).isEqualTo(expected);
+    Assertions.assertThat(result.inputLines()).isEqualTo(10_000);
+    Assertions.assertThat(result.outputLines()).isEqualTo(500);
+    Assertions.assertThat(result.duplicates()).isEqualTo(9_500);
+    Assertions.assertThat(result.runs()).isEqualTo(100);
+    Assertions.assertThat(result.passes()).isEqualTo(4);
+    Assertions.assertThat(Files.list(tempDir.resolve("tmp"))).isEmpty();
+  }
+
+  @Test
+  void test_sort_keeps_duplicates_in_input_order() throws Exception {
+    // given
+    Path input = generate(10_000, 500, new LinkedHashMap<>());
+    Path output = tempDir.resolve("sorted.csv");
+
+    ExternalMergeSorter sorter = sorter();
+    sorter.setRunSize(100);
+    sorter.setFanIn(4);
+
+    // when
+    ExternalMergeSorter.Result result = sorter.sort(Files.newInputStream(input), output, 1);
+
+    // then (중복을 지우지 않고, 같은 이름끼리는 입력 순서를 유지한다)
+    List<String> expected = new ArrayList<>(Files.readAllLines(input, StandardCharsets.UTF_8));
+    expected.remove(0);
+    expected.sort(Comparator.comparing(line -> line.substring(0, line.indexOf(','))));
+
+    List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+    Assertions.assertThat(lines.subList(1, lines.size())).isEqualTo(expected);
+    Assertions.assertThat(result.outputLines()).isEqualTo(10_000);
+    Assertions.assertThat(result.duplicates()).isZero();
+  }
+
+  @Test
+  void test_memory_budget_limits_run_size() throws Exception {
+    // given (run 크기는 넉넉하지만 메모리 한도가 작아서 한도만큼씩 run을 나눈다)
+    Map<String, String> firstLines = new LinkedHashMap<>();
+    Path input = generate(1_000, 1_000, firstLines);
+
+    ExternalMergeSorter sorter = sorter();
+    sorter.setMemoryBudgetBytes(16 * 1024);
+
+    // when
+    ExternalMergeSorter.Result result = sorter.sortUnique(input, tempDir.resolve("sorted.csv"), 1);
+
+    // then
+    Assertions.assertThat(result.runs()).isGreaterThan(1);
+    Assertions.assertThat(result.outputLines()).isEqualTo(firstLines.size());
+  }
+
+  @Test
+  void test_fan_in_must_be_at_least_two() {
+    Assertions.assertThatThrownBy(() -> sorter().setFanIn(1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private ExternalMergeSorter sorter() {
+    ExternalMergeSorter sorter = new ExternalMergeSorter(ExternalMergeSorter.columns(',', 0));
+    sorter.setTempDirectory(tempDir.resolve("tmp"));
+    return sorter;
+  }
+
+  private Path generate(int lines, int names, Map<String, String> firstLines) throws Exception {
+    Random random = new Random(42);
+    List<String> content = new ArrayList<>(lines + 1);
+    content.add("이름,나이,거주지");
+
+    for (int i = 0; i < lines; i++) {
+      String name = "name" + random.nextInt(names);
+      String line = name + "," + i + ",address" + random.nextInt(10);
+      content.add(line);
+      firstLines.putIfAbsent(name, line);
+    }
+
+    Path input = tempDir.resolve("person.csv");
+    Files.write(input, content, StandardCharsets.UTF_8);
+    return input;
+  }
+}
@@ -0,0 +1,117 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class KeysetPersonItemReaderTest {
+
+  private static final int ROW_COUNT = 95;
+
+  private EmbeddedDatabase dataSource;
+
+  @BeforeEach
+  public void setUp() {
+    dataSource = new EmbeddedDatabaseBuilder()
+        .setType(EmbeddedDatabaseType.H2)
+        .generateUniqueName(true)
+        .build();
+
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table person (id bigint primary key auto_increment, "
+        + "name varchar(255), age varchar(255), address varchar(255))");
+    for (int i = 0; i < ROW_COUNT; i++) {
+      jdbcTemplate.update("insert into person(name, age, address) values(?, ?, ?)",
+          "name" + i, String.valueOf(i), "address" + i);
+    }
+  }
+
+  @AfterEach
+  public void tearDown() {
+    dataSource.shutdown();
+  }
+
+  @Test
+  void test_restart_from_last_id() {
+    // given (page 크기 10으로 25개를 읽고 커밋한 뒤 실패)
+    ExecutionContext executionContext = new ExecutionContext();
+    KeysetPersonItemReader itemReader = new KeysetPersonItemReader(dataSource, 10);
+    itemReader.open(executionContext);
+    for (int i = 0; i < 25; i++) {
+      itemReader.read();
+    }
+    itemReader.update(executionContext);
+    itemReader.close();
+
+    // when
+    KeysetPersonItemReader restarted = new KeysetPersonItemReader(dataSource, 10);
+    restarted.open(executionContext);
+    List<Integer> ids = readIds(restarted);
+
+    // then
+    Assertions.assertThat(ids).hasSize(ROW_COUNT - 25).startsWith(26).endsWith(ROW_COUNT);
+  }
+
+  @Test
+  void test_id_range_partitions_cover_all_rows() {
+    // given
+    Map<String, ExecutionContext> partitions = new IdRangePartitioner(dataSource).partition(4);
+
+    // when
+    List<Integer> ids = new ArrayList<>();
+    for (ExecutionContext partition : partitions.values()) {
+      KeysetPersonItemReader itemReader = new KeysetPersonItemReader(dataSource, 7,
+          partition.getLong(IdRangePartitioner.MIN_ID),
+          partition.getLong(IdRangePartitioner.MAX_ID));
+      itemReader.open(new ExecutionContext());
+      ids.addAll(readIds(itemReader));
+    }
+
+    // then (겹치거나 빠지는 id 없이 모든 row를 읽는다)
+    Assertions.assertThat(partitions).hasSize(4);
+    Assertions.assertThat(ids).hasSize(ROW_COUNT).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void test_concurrent_read_returns_each_row_once() throws Exception {
+    // given
+    KeysetPersonItemReader itemReader = new KeysetPersonItemReader(dataSource, 10);
+    itemReader.open(new ExecutionContext());
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    // when
+    List<Future<List<Integer>>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(executorService.submit(() -> readIds(itemReader)));
+    }
+    List<Integer> ids = new ArrayList<>();
+    for (Future<List<Integer>> future : futures) {
+      ids.addAll(future.get());
+    }
+    executorService.shutdown();
+
+    // then
+    Assertions.assertThat(ids).hasSize(ROW_COUNT).doesNotHaveDuplicates();
+  }
+
+  private List<Integer> readIds(KeysetPersonItemReader itemReader) {
+    List<Integer> ids = new ArrayList<>();
+    Person person;
+    while ((person = itemReader.read()) != null) {
+      ids.add(person.getId());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,94 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+public class MappedPersonItemReaderTest {
+
+  @Test
+  void test_same_result_as_flat_file_reader_person_csv() throws Exception {
+    String[] names = {"name", "age", "address"};
+
+    List<Person> expected = readAll(flatFileItemReader("person.csv", names));
+    List<Person> actual = readAll(
+        new MappedPersonItemReader(new ClassPathResource("person.csv"), 1, names));
+
+    Assertions.assertThat(actual).hasSize(100).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  void test_same_result_as_flat_file_reader_test_csv() throws Exception {
+    String[] names = {"id", "name", "age", "address"};
+
+    List<Person> expected = readAll(flatFileItemReader("test.csv", names));
+    List<Person> actual = readAll(
+        new MappedPersonItemReader(new ClassPathResource("test.csv"), 1, names));
+
+    Assertions.assertThat(actual).hasSize(3).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  void test_restart_from_saved_offset() throws Exception {
+    // given (window를 작게 잡아 줄이 window 경계에 걸치도록 한다)
+    MappedPersonItemReader itemReader = new MappedPersonItemReader(
+        new ClassPathResource("person.csv"), 1, "name", "age", "address");
+    itemReader.setWindowSize(64);
+    ExecutionContext executionContext = new ExecutionContext();
+    itemReader.open(executionContext);
+    for (int i = 0; i < 30; i++) {
+      itemReader.read();
+    }
+    itemReader.update(executionContext);
+    itemReader.close();
+
+    // when
+    MappedPersonItemReader restarted = new MappedPersonItemReader(
+        new ClassPathResource("person.csv"), 1, "name", "age", "address");
+    restarted.setWindowSize(64);
+    restarted.open(executionContext);
+    List<Person> rest = new ArrayList<>();
+    Person person;
+    while ((person = restarted.read()) != null) {
+      rest.add(person);
+    }
+    restarted.close();
+
+    // then
+    Assertions.assertThat(rest).hasSize(70);
+  }
+
+  private FlatFileItemReader<Person> flatFileItemReader(String path, String... names) {
+    return new FlatFileItemReaderBuilder<Person>()
+        .name("flatFileItemReader")
+        .encoding("UTF-8")
+        .resource(new ClassPathResource(path))
+        .linesToSkip(1)
+        .delimited()
+        .names(names)
+        .fieldSetMapper(fieldSet -> new Person(
+            names.length == 4 ? fieldSet.readInt("id") : 0,
+            fieldSet.readString("name"),
+            fieldSet.readString("age"),
+            fieldSet.readString("address")))
+        .build();
+  }
+
+  private List<Person> readAll(ItemStreamReader<Person> itemReader) throws Exception {
+    itemReader.open(new ExecutionContext());
+
+    List<Person> items = new ArrayList<>();
+    Person person;
+    while ((person = itemReader.read()) != null) {
+      items.add(person);
+    }
+    itemReader.close();
+    return items;
+  }
+}
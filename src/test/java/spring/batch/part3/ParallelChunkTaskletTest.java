@@ -0,0 +1,51 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+public class ParallelChunkTaskletTest {
+
+  @Test
+  void test_uneven_last_slice_and_ordered_merge() throws Exception {
+    // given (103개를 10개씩 나누면 마지막 slice는 3개, 5의 배수는 filter)
+    List<Integer> items = IntStream.range(0, 103).boxed().collect(Collectors.toList());
+    List<Integer> written = new ArrayList<>();
+    ParallelChunkTasklet<Integer, Integer> tasklet = new ParallelChunkTasklet<>(items, 10, 4,
+        item -> item % 5 == 0 ? null : item * 2, chunk -> written.addAll(chunk.getItems()));
+    StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+    ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+    // when (TaskletStep처럼 FINISHED가 나올 때까지 반복)
+    RepeatStatus status;
+    int executions = 0;
+    do {
+      StepContribution contribution = stepExecution.createStepContribution();
+      status = tasklet.execute(contribution, chunkContext);
+      stepExecution.apply(contribution);
+      executions++;
+    } while (status == RepeatStatus.CONTINUABLE);
+    tasklet.afterStep(stepExecution);
+
+    // then
+    Assertions.assertThat(written).containsExactlyElementsOf(items.stream()
+        .filter(item -> item % 5 != 0)
+        .map(item -> item * 2)
+        .collect(Collectors.toList()));
+    Assertions.assertThat(executions).isEqualTo(3);
+    Assertions.assertThat(stepExecution.getReadCount()).isEqualTo(103);
+    Assertions.assertThat(stepExecution.getFilterCount()).isEqualTo(21);
+    Assertions.assertThat(stepExecution.getWriteCount()).isEqualTo(82);
+    Assertions.assertThat(stepExecution.getExecutionContext()
+        .getLong(ParallelChunkTasklet.SLICE_COUNT_KEY)).isEqualTo(11);
+  }
+}
@@ -0,0 +1,119 @@
+package spring.batch.part3;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import spring.batch.TestConfiguration;
+
+@SpringBatchTest
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {PartitionedSavePersonConfiguration.class,
+    TestConfiguration.class})
+public class PartitionedSavePersonJobTest {
+
+  @Autowired
+  private JobLauncherTestUtils jobLauncherTestUtils;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @TempDir
+  Path tempDir;
+
+  @AfterEach
+  public void tearDown() {
+    personRepository.deleteAll();
+  }
+
+  @Test
+  void test_not_allow_duplicate() throws Exception {
+    // given (파티션이 나뉘어도 중복 검사는 job 전체 기준이다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(workerWriteCount(jobExecution))
+        .isEqualTo(personRepository.count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  void test_allow_duplicate() throws Exception {
+    // given
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "true")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(workerWriteCount(jobExecution))
+        .isEqualTo(personRepository.count())
+        .isEqualTo(100);
+  }
+
+  @Test
+  void test_restart_failed_partition() throws Exception {
+    // given (이름 10개로 만든 40줄, 마지막 줄은 구분자가 잘못되어 마지막 파티션만 실패한다)
+    Path input = tempDir.resolve("person.csv");
+    List<String> lines = new ArrayList<>();
+    lines.add("이름,나이,거주지");
+    for (int i = 0; i < 40; i++) {
+      lines.add("name" + (i % 10) + "," + i + ",address");
+    }
+    lines.set(40, "name9;39;address");
+    Files.write(input, lines, StandardCharsets.UTF_8);
+
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .addString("input_file", input.toString())
+        .addString("grid_size", "4")
+        .toJobParameters();
+    JobExecution failed = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // when (같은 길이로 고친 뒤 재시작)
+    lines.set(40, "name9,39,address");
+    Files.write(input, lines, StandardCharsets.UTF_8);
+    JobExecution restarted = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then (실패한 파티션만 다시 실행하고, 완료된 파티션이 저장한 이름은 다시 저장하지 않는다)
+    Assertions.assertThat(failed.getStatus()).isEqualTo(BatchStatus.FAILED);
+    Assertions.assertThat(restarted.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(restarted.getStepExecutions().stream()
+            .filter(stepExecution -> stepExecution.getStepName().startsWith("savePersonWorkerStep"))
+            .count())
+        .isEqualTo(1);
+    Assertions.assertThat(personRepository.count()).isEqualTo(10);
+  }
+
+  private long workerWriteCount(JobExecution jobExecution) {
+    return jobExecution.getStepExecutions().stream()
+        .filter(stepExecution -> stepExecution.getStepName().startsWith("savePersonWorkerStep"))
+        .mapToLong(StepExecution::getWriteCount)
+        .sum();
+  }
+}
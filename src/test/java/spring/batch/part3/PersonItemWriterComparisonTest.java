@@ -0,0 +1,101 @@
+package spring.batch.part3;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.batch.TestConfiguration;
+
+/**
+ * H2에서 RepositoryItemWriter와 JdbcBatchItemWriter의 결과와 처리량을 비교한다.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {SavePersonConfiguration.class, TestConfiguration.class})
+public class PersonItemWriterComparisonTest {
+
+  private static final int ITEM_COUNT = 10_000;
+  private static final int CHUNK_SIZE = 100;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private PlatformTransactionManager platformTransactionManager;
+
+  @AfterEach
+  public void tearDown() {
+    personRepository.deleteAll();
+  }
+
+  @Test
+  void test_jdbc_writer_same_rows_as_repository_writer() throws Exception {
+    // given
+    ItemWriter<Person> repositoryItemWriter = new RepositoryItemWriterBuilder<Person>()
+        .repository(personRepository)
+        .build();
+    ItemWriter<Person> jdbcBatchItemWriter = ItemWriterConfiguration.jdbcBatchItemWriter(
+        dataSource);
+
+    // when
+    long repositoryNanos = write(repositoryItemWriter);
+    List<String> repositoryRows = rows();
+    personRepository.deleteAll();
+
+    long jdbcNanos = write(jdbcBatchItemWriter);
+    List<String> jdbcRows = rows();
+
+    // then
+    log.info("repository writer : {} items/s, jdbc batch writer : {} items/s",
+        ITEM_COUNT * 1_000_000_000L / repositoryNanos, ITEM_COUNT * 1_000_000_000L / jdbcNanos);
+
+    Assertions.assertThat(jdbcRows).hasSize(ITEM_COUNT).containsExactlyElementsOf(repositoryRows);
+  }
+
+  private long write(ItemWriter<Person> itemWriter) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(platformTransactionManager);
+    long start = System.nanoTime();
+
+    for (int from = 0; from < ITEM_COUNT; from += CHUNK_SIZE) {
+      Chunk<Person> chunk = new Chunk<>(persons(from, CHUNK_SIZE));
+      transactionTemplate.executeWithoutResult(status -> {
+        try {
+          itemWriter.write(chunk);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    }
+
+    return System.nanoTime() - start;
+  }
+
+  private List<String> rows() {
+    return new JdbcTemplate(dataSource).queryForList(
+        "select concat(name, ',', age, ',', address) from person order by id", String.class);
+  }
+
+  private List<Person> persons(int from, int size) {
+    List<Person> items = new ArrayList<>();
+    for (int i = from; i < from + size; i++) {
+      items.add(new Person("name" + i, String.valueOf(i % 100), "address" + i % 7));
+    }
+    return items;
+  }
+}
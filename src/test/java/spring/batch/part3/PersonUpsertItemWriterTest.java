@@ -0,0 +1,78 @@
+package spring.batch.part3;
+
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.support.DatabaseType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import spring.batch.part3.PersonUpsertItemWriter.NaturalKey;
+
+public class PersonUpsertItemWriterTest {
+
+  private EmbeddedDatabase dataSource;
+
+  @BeforeEach
+  public void setUp() {
+    dataSource = new EmbeddedDatabaseBuilder()
+        .setType(EmbeddedDatabaseType.H2)
+        .generateUniqueName(true)
+        .addScript("classpath:person.sql")
+        .build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    dataSource.shutdown();
+  }
+
+  @Test
+  void test_merge_by_name_and_address() throws Exception {
+    // given (person.sql로 3건이 들어 있음)
+    ItemWriter<Person> itemWriter = ItemWriterConfiguration.upsertItemWriter(dataSource,
+        "name_address");
+
+    // when
+    itemWriter.write(new Chunk<>(List.of(new Person("한성민", "25", "서울"),
+        new Person("한성민", "25", "부산"))));
+
+    // then
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    Assertions.assertThat(jdbcTemplate.queryForList(
+            "select age from person where name = '한성민' order by address", String.class))
+        .containsExactly("25", "25");
+    Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from person",
+        Integer.class)).isEqualTo(4);
+  }
+
+  @Test
+  void test_unique_index_check() {
+    // given (person.sql에는 natural key index가 없다)
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    // when & then
+    Assertions.assertThatThrownBy(
+            () -> PersonUpsertItemWriter.assertUniqueIndex(dataSource, NaturalKey.NAME))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("unique index");
+
+    jdbcTemplate.execute("create unique index person_name on person(name)");
+    PersonUpsertItemWriter.assertUniqueIndex(dataSource, NaturalKey.NAME);
+    Assertions.assertThatThrownBy(
+            () -> PersonUpsertItemWriter.assertUniqueIndex(dataSource, NaturalKey.NAME_ADDRESS))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void test_mysql_sql() {
+    Assertions.assertThat(PersonUpsertItemWriter.sql(DatabaseType.MYSQL, NaturalKey.NAME))
+        .isEqualTo("insert into person (name, age, address) values (?, ?, ?)"
+            + " on duplicate key update age = values(age), address = values(address)");
+  }
+}
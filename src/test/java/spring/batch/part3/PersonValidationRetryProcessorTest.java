@@ -0,0 +1,99 @@
+package spring.batch.part3;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import spring.batch.part3.PersonValidationRetryProcessor.Mode;
+
+public class PersonValidationRetryProcessorTest {
+
+  @Test
+  void test_fast_mode_recovers_permanent_failure_without_retry() throws Exception {
+    // given
+    PersonValidationRetryProcessor processor = new PersonValidationRetryProcessor(Mode.FAST);
+
+    // when
+    Person valid = processor.process(new Person("한성민", "24", "서울"));
+    Person invalid = processor.process(new Person("", "24", "서울"));
+
+    // then (이름이 없는 실패는 permanent이므로 재시도하지 않는다)
+    Assertions.assertThat(valid.getName()).isEqualTo("한성민");
+    Assertions.assertThat(invalid.getName()).isEqualTo("UNKNOWN");
+    Assertions.assertThat(processor.getRetryListener().getErrorCount()).isZero();
+    Assertions.assertThat(processor.getRetryListener().getPermanentFailureCount()).isEqualTo(1);
+  }
+
+  @Test
+  void test_fast_mode_retries_transient_failure() throws Exception {
+    // given
+    AtomicInteger calls = new AtomicInteger();
+    PersonValidationRetryProcessor processor = new PersonValidationRetryProcessor(Mode.FAST,
+        person -> {
+          if (calls.incrementAndGet() < 3) {
+            throw new QueryTimeoutException("timeout");
+          }
+          return person;
+        });
+
+    // when
+    Person valid = processor.process(new Person("한성민", "24", "서울"));
+
+    // then (바로 실행 1번 + RetryTemplate 안에서 2번)
+    Assertions.assertThat(valid.getName()).isEqualTo("한성민");
+    Assertions.assertThat(calls.get()).isEqualTo(3);
+    Assertions.assertThat(processor.getRetryListener().getErrorCount()).isEqualTo(1);
+    Assertions.assertThat(processor.getRetryListener().getPermanentFailureCount()).isZero();
+  }
+
+  @Test
+  void test_fast_mode_rethrows_permanent_validator_failure() {
+    // given
+    PersonValidationRetryProcessor processor = new PersonValidationRetryProcessor(Mode.FAST,
+        person -> {
+          throw new IllegalArgumentException("invalid address");
+        });
+
+    // when & then
+    Assertions.assertThatThrownBy(() -> processor.process(new Person("한성민", "24", "서울")))
+        .isInstanceOf(IllegalArgumentException.class);
+    Assertions.assertThat(processor.getRetryListener().getErrorCount()).isZero();
+  }
+
+  @Test
+  void test_retry_mode_retries_three_times() throws Exception {
+    // given
+    PersonValidationRetryProcessor processor = new PersonValidationRetryProcessor(Mode.RETRY);
+
+    // when
+    Person invalid = processor.process(new Person("", "24", "서울"));
+
+    // then
+    Assertions.assertThat(invalid.getName()).isEqualTo("UNKNOWN");
+    Assertions.assertThat(processor.getRetryListener().getErrorCount()).isEqualTo(3);
+    Assertions.assertThat(processor.getRetryListener().getExhaustedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void test_registered_retry_listener_counts_validation_retries() throws Exception {
+    // given
+    PersonValidationRetryProcessor processor = new PersonValidationRetryProcessor(Mode.RETRY);
+    AtomicInteger errors = new AtomicInteger();
+    processor.registerRetryListener(new RetryListener() {
+      @Override
+      public <T, E extends Throwable> void onError(RetryContext context,
+          RetryCallback<T, E> callback, Throwable throwable) {
+        errors.incrementAndGet();
+      }
+    });
+
+    // when
+    processor.process(new Person("", "24", "서울"));
+
+    // then
+    Assertions.assertThat(errors.get()).isEqualTo(3);
+  }
+}
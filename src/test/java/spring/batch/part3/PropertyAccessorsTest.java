@@ -0,0 +1,41 @@
+package spring.batch.part3;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PropertyAccessorsTest {
+
+  @Test
+  void test_same_values_as_getters() {
+    // given
+    Person person = new Person(1, "한성민", "24", "서울");
+
+    // when
+    PropertyAccessors<Person> accessors = PropertyAccessors.of(Person.class);
+
+    // then
+    Assertions.assertThat(accessors.names()).containsExactly("id", "name", "age", "address");
+    Assertions.assertThat(accessors.get("id").apply(person)).isEqualTo(1);
+    Assertions.assertThat(accessors.get("name").apply(person)).isEqualTo("한성민");
+    Assertions.assertThat(PropertyAccessors.of(Person.class)).isSameAs(accessors);
+  }
+
+  @Test
+  void test_field_extractor() {
+    // given
+    PropertyFieldExtractor<Person> fieldExtractor = new PropertyFieldExtractor<>(Person.class,
+        "id", "name", "age", "address");
+
+    // when
+    Object[] values = fieldExtractor.extract(new Person(2, "짱구", "5", "떡잎마을"));
+
+    // then
+    Assertions.assertThat(values).containsExactly(2, "짱구", "5", "떡잎마을");
+  }
+
+  @Test
+  void test_unknown_field() {
+    Assertions.assertThatThrownBy(() -> PropertyAccessors.of(Person.class).get("unknown"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
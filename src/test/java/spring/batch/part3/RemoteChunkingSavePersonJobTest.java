@@ -0,0 +1,116 @@
+package spring.batch.part3;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.context.SpringBatchTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import spring.batch.TestConfiguration;
+
+@SpringBatchTest
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {RemoteChunkingSavePersonConfiguration.class,
+    TestConfiguration.class})
+@ActiveProfiles("remote-chunking")
+@TestPropertySource(properties = "save-person.remote.workers=0")
+public class RemoteChunkingSavePersonJobTest {
+
+  @Autowired
+  private JobLauncherTestUtils jobLauncherTestUtils;
+
+  @Autowired
+  private PersonRepository personRepository;
+
+  @Autowired
+  private ChunkTransport remoteChunkTransport;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private RemoteChunkWorker worker;
+
+  @AfterEach
+  public void tearDown() {
+    if (worker != null) {
+      worker.stop();
+    }
+    personRepository.deleteAll();
+  }
+
+  @Test
+  void test_restart_after_failed_chunk() throws Exception {
+    // given (worker의 세 번째 write가 실패하므로 manager step이 FAILED로 끝난다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addLong("run", System.nanoTime())
+        .addString("allow_duplicate", "true")
+        .toJobParameters();
+    ItemWriter<Person> jdbcItemWriter = ItemWriterConfiguration.jdbcBatchItemWriter(dataSource);
+    AtomicInteger writes = new AtomicInteger();
+    startWorker(items -> {
+      if (writes.incrementAndGet() == 3) {
+        throw new IllegalStateException("write failed");
+      }
+      jdbcItemWriter.write(items);
+    });
+    JobExecution failed = jobLauncherTestUtils.launchJob(jobParameters);
+    worker.stop();
+
+    // when (정상 worker로 재시작)
+    startWorker(jdbcItemWriter);
+    JobExecution restarted = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then (실패한 chunk까지 다시 보내 100건이 빠짐없이 한 번씩 저장된다)
+    Assertions.assertThat(failed.getStatus()).isEqualTo(BatchStatus.FAILED);
+    Assertions.assertThat(restarted.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(personRepository.count()).isEqualTo(100);
+  }
+
+  @Test
+  void test_not_allow_duplicate() throws Exception {
+    // given
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addLong("run", System.nanoTime())
+        .addString("allow_duplicate", "false")
+        .toJobParameters();
+    startWorker(ItemWriterConfiguration.jdbcBatchItemWriter(dataSource));
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then (worker가 DB의 key로 중복을 거르고, job이 완료되면 ledger를 지운다)
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(stepExecution.getWriteCount()).isEqualTo(3);
+    Assertions.assertThat(stepExecution.getFilterCount()).isEqualTo(97);
+    Assertions.assertThat(personRepository.count()).isEqualTo(3);
+    Assertions.assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from remote_chunk_ledger", Integer.class)).isZero();
+  }
+
+  private void startWorker(ItemWriter<Person> itemWriter) {
+    worker = new RemoteChunkWorker(remoteChunkTransport,
+        SavePersonConfiguration.itemProcessor(item -> item), Person::getName, itemWriter,
+        dataSource, transactionManager, 1);
+    worker.start();
+  }
+}
@@ -0,0 +1,289 @@
+package spring.batch.part3;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class RemoteChunkingTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  @TempDir
+  Path tempDir;
+
+  private EmbeddedDatabase dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private RemoteChunkWorker worker;
+
+  @BeforeEach
+  public void setUp() {
+    dataSource = new EmbeddedDatabaseBuilder()
+        .setType(EmbeddedDatabaseType.H2)
+        .generateUniqueName(true)
+        .addScript("classpath:person.sql")
+        .build();
+
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("delete from person");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (worker != null) {
+      worker.stop();
+    }
+    dataSource.shutdown();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"memory", "directory"})
+  void test_redelivered_chunk_is_written_once(String type) throws Exception {
+    // given
+    ChunkTransport transport = transport(type, "manager");
+    startWorker(type.equals("memory") ? transport : transport(type, "worker"));
+    ChunkRequest request = new ChunkRequest("1-000000000001", 1L, false, List.of(
+        new Person("한성민", "24", "서울"), new Person("짱구", "5", "떡잎마을"),
+        new Person("상디", "20", "올블루")));
+
+    // when (같은 chunk가 두 번 전달됨)
+    transport.sendRequest(request);
+    ChunkResponse first = transport.pollResponse(1L, TIMEOUT);
+    transport.sendRequest(request);
+    ChunkResponse second = transport.pollResponse(1L, TIMEOUT);
+
+    // then
+    Assertions.assertThat(first).isEqualTo(ChunkResponse.success("1-000000000001", 3, 0));
+    Assertions.assertThat(second).isEqualTo(first);
+    Assertions.assertThat(personCount()).isEqualTo(3);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"memory", "directory"})
+  void test_manager_writer_counts(String type) throws Exception {
+    // given
+    ChunkTransport transport = transport(type, "manager");
+    startWorker(type.equals("memory") ? transport : transport(type, "worker"));
+
+    StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+    ExecutionContext executionContext = new ExecutionContext();
+    RemoteChunkingItemWriter itemWriter = new RemoteChunkingItemWriter(transport, false, 1,
+        TIMEOUT);
+    itemWriter.beforeStep(stepExecution);
+    itemWriter.open(executionContext);
+
+    // when (chunk processor처럼 write 직후 받은 응답의 집계를 가져가고, 남은 응답은 afterStep에서 반영된다)
+    itemWriter.write(new Chunk<>(List.of(new Person("a", "1", "서울"),
+        new Person("b", "2", "서울"), new Person("a", "3", "서울"))));
+    itemWriter.getStepContributions().forEach(stepExecution::apply);
+    itemWriter.update(executionContext);
+    itemWriter.write(new Chunk<>(List.of(new Person("c", "4", "서울"),
+        new Person("", "5", "서울"))));
+    itemWriter.getStepContributions().forEach(stepExecution::apply);
+    itemWriter.update(executionContext);
+    ExitStatus exitStatus = itemWriter.afterStep(stepExecution);
+
+    // then (worker가 쓴 item만 writeCount, 걸러낸 item은 filterCount로 집계된다)
+    Assertions.assertThat(exitStatus).isEqualTo(stepExecution.getExitStatus());
+    Assertions.assertThat(stepExecution.getWriteCount()).isEqualTo(4);
+    Assertions.assertThat(stepExecution.getFilterCount()).isEqualTo(1);
+    Assertions.assertThat(personCount()).isEqualTo(4);
+    Assertions.assertThat(executionContext.getLong("RemoteChunkingItemWriter.sequence"))
+        .isEqualTo(2);
+  }
+
+  @Test
+  void test_rolled_back_chunk_keeps_no_keys() throws Exception {
+    // given (첫 번째 write는 실패한다)
+    ChunkTransport transport = new InMemoryChunkTransport();
+    ItemWriter<Person> jdbcItemWriter = ItemWriterConfiguration.jdbcBatchItemWriter(dataSource);
+    AtomicInteger writes = new AtomicInteger();
+    startWorker(transport, items -> {
+      if (writes.incrementAndGet() == 1) {
+        throw new IllegalStateException("write failed");
+      }
+      jdbcItemWriter.write(items);
+    });
+    ChunkRequest request = new ChunkRequest("1-000000000001", 1L, false, List.of(
+        new Person("한성민", "24", "서울"), new Person("짱구", "5", "떡잎마을")));
+
+    // when (rollback된 chunk를 다시 보낸다)
+    transport.sendRequest(request);
+    ChunkResponse failed = transport.pollResponse(1L, TIMEOUT);
+    transport.sendRequest(request);
+    ChunkResponse retried = transport.pollResponse(1L, TIMEOUT);
+
+    // then (rollback된 chunk의 key는 되돌려졌으므로 다시 보낸 chunk는 걸러지지 않는다)
+    Assertions.assertThat(failed.isSuccessful()).isFalse();
+    Assertions.assertThat(retried).isEqualTo(ChunkResponse.success("1-000000000001", 2, 0));
+    Assertions.assertThat(personCount()).isEqualTo(2);
+  }
+
+  @Test
+  void test_duplicate_keys_are_kept_per_job_instance() throws Exception {
+    // given
+    ChunkTransport transport = new InMemoryChunkTransport();
+    startWorker(transport);
+    List<Person> persons = List.of(new Person("한성민", "24", "서울"), new Person("한성민", "24", "서울"));
+
+    // when (두 job instance가 같은 이름을 보낸다)
+    transport.sendRequest(new ChunkRequest("1-000000000001", 1L, false, persons));
+    ChunkResponse first = transport.pollResponse(1L, TIMEOUT);
+    transport.sendRequest(new ChunkRequest("2-000000000001", 2L, false, persons));
+    ChunkResponse second = transport.pollResponse(2L, TIMEOUT);
+
+    // then (job instance 안에서만 중복을 거른다)
+    Assertions.assertThat(first).isEqualTo(ChunkResponse.success("1-000000000001", 1, 1));
+    Assertions.assertThat(second).isEqualTo(ChunkResponse.success("2-000000000001", 1, 1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"memory", "directory"})
+  void test_response_is_delivered_to_its_job_instance(String type) throws Exception {
+    // given (두 manager(job instance)가 같은 transport를 쓴다)
+    ChunkTransport transport = transport(type, "manager");
+    startWorker(type.equals("memory") ? transport : transport(type, "worker"));
+    transport.sendRequest(new ChunkRequest("1-000000000001", 1L, false,
+        List.of(new Person("한성민", "24", "서울"))));
+    transport.sendRequest(new ChunkRequest("2-000000000001", 2L, false,
+        List.of(new Person("짱구", "5", "떡잎마을"))));
+
+    // when (job instance 2가 먼저 응답을 기다린다)
+    ChunkResponse second = transport.pollResponse(2L, TIMEOUT);
+    ChunkResponse first = transport.pollResponse(1L, TIMEOUT);
+
+    // then (다른 job instance의 응답을 가져가지 않는다)
+    Assertions.assertThat(second.chunkKey()).isEqualTo("2-000000000001");
+    Assertions.assertThat(first.chunkKey()).isEqualTo("1-000000000001");
+  }
+
+  @Test
+  void test_duplicate_keys_survive_worker_restart() throws Exception {
+    // given (첫 worker가 '한성민'을 커밋한 뒤 멈춘다)
+    ChunkTransport transport = new InMemoryChunkTransport();
+    startWorker(transport);
+    transport.sendRequest(new ChunkRequest("1-000000000001", 1L, false,
+        List.of(new Person("한성민", "24", "서울"))));
+    transport.pollResponse(1L, TIMEOUT);
+    worker.stop();
+
+    // when (새 worker가 같은 job instance의 같은 이름을 받는다)
+    startWorker(transport);
+    transport.sendRequest(new ChunkRequest("1-000000000002", 1L, false,
+        List.of(new Person("한성민", "25", "부산"), new Person("짱구", "5", "떡잎마을"))));
+    ChunkResponse response = transport.pollResponse(1L, TIMEOUT);
+
+    // then (중복 검사 key는 DB에 있으므로 worker가 바뀌어도 걸러진다)
+    Assertions.assertThat(response).isEqualTo(ChunkResponse.success("1-000000000002", 1, 1));
+    Assertions.assertThat(personCount()).isEqualTo(2);
+  }
+
+  @Test
+  void test_allow_duplicate_from_request() throws Exception {
+    // given
+    ChunkTransport transport = new InMemoryChunkTransport();
+    startWorker(transport);
+    List<Person> persons = List.of(new Person("한성민", "24", "서울"), new Person("한성민", "24", "서울"));
+
+    // when (manager가 allow_duplicate=true로 보낸 chunk)
+    transport.sendRequest(new ChunkRequest("1-000000000001", 1L, true, persons));
+    ChunkResponse response = transport.pollResponse(1L, TIMEOUT);
+
+    // then
+    Assertions.assertThat(response).isEqualTo(ChunkResponse.success("1-000000000001", 2, 0));
+    Assertions.assertThat(personCount()).isEqualTo(2);
+  }
+
+  @Test
+  void test_ledger_cleanup_after_completed_job() throws Exception {
+    // given
+    ChunkTransport transport = new InMemoryChunkTransport();
+    startWorker(transport);
+    JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution();
+    long jobInstanceId = jobExecution.getJobId();
+    transport.sendRequest(new ChunkRequest(jobInstanceId + "-000000000001", jobInstanceId, false,
+        List.of(new Person("한성민", "24", "서울"))));
+    transport.pollResponse(jobInstanceId, TIMEOUT);
+
+    // when
+    jobExecution.setStatus(BatchStatus.COMPLETED);
+    new RemoteChunkWorker.LedgerCleanupListener(dataSource).afterJob(jobExecution);
+
+    // then
+    Assertions.assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from remote_chunk_ledger", Integer.class)).isZero();
+    Assertions.assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from remote_chunk_key", Integer.class)).isZero();
+  }
+
+  @Test
+  void test_writer_resends_unacknowledged_chunks_on_restart() throws Exception {
+    // given (worker 없이 chunk를 보내고 커밋한 뒤 step이 실패)
+    ChunkTransport transport = new InMemoryChunkTransport();
+    StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+    ExecutionContext executionContext = new ExecutionContext();
+    RemoteChunkingItemWriter itemWriter = new RemoteChunkingItemWriter(transport, false, 4,
+        Duration.ofMillis(100));
+    itemWriter.beforeStep(stepExecution);
+    itemWriter.open(executionContext);
+    itemWriter.write(new Chunk<>(List.of(new Person("a", "1", "서울"))));
+    itemWriter.update(executionContext);
+    itemWriter.afterStep(stepExecution);
+    transport.pollRequest(Duration.ZERO); // 전달되지 않은 요청
+
+    // when (worker를 띄우고 저장된 ExecutionContext로 재시작)
+    startWorker(transport);
+    StepExecution restartedExecution = MetaDataInstanceFactory.createStepExecution();
+    RemoteChunkingItemWriter restarted = new RemoteChunkingItemWriter(transport, false, 4,
+        TIMEOUT);
+    restarted.beforeStep(restartedExecution);
+    restarted.open(stepExecution.getExecutionContext());
+    ExitStatus exitStatus = restarted.afterStep(restartedExecution);
+
+    // then (응답받지 못한 chunk를 같은 key로 다시 보내 저장한다)
+    Assertions.assertThat(exitStatus).isEqualTo(restartedExecution.getExitStatus());
+    Assertions.assertThat(restartedExecution.getWriteCount()).isEqualTo(1);
+    Assertions.assertThat(personCount()).isEqualTo(1);
+  }
+
+  private void startWorker(ChunkTransport transport) {
+    startWorker(transport, ItemWriterConfiguration.jdbcBatchItemWriter(dataSource));
+  }
+
+  private void startWorker(ChunkTransport transport, ItemWriter<Person> itemWriter) {
+    worker = new RemoteChunkWorker(transport, SavePersonConfiguration.itemProcessor(item -> item),
+        Person::getName, itemWriter, dataSource, new DataSourceTransactionManager(dataSource), 2);
+    worker.start();
+  }
+
+  private ChunkTransport transport(String type, String workerId) {
+    if (type.equals("directory")) {
+      return new DirectoryChunkTransport(tempDir.resolve("transport"), workerId);
+    }
+    return new InMemoryChunkTransport();
+  }
+
+  private int personCount() {
+    return jdbcTemplate.queryForObject("select count(*) from person", Integer.class);
+  }
+}
@@ -1,9 +1,17 @@
 package spring.batch.part3;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
@@ -26,6 +34,9 @@ public class SavePersonConfigurationTest {
   @Autowired
   private PersonRepository personRepository;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   @AfterEach
   public void tearDown() throws Exception {
     personRepository.deleteAll();
@@ -67,6 +78,246 @@ public class SavePersonConfigurationTest {
         .isEqualTo(100);
   }
 
+  @Test
+  void test_bloom_filter_parameters() throws Exception {
+    // given (bloom filter 크기를 job parameter로 정한다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .addString("key_store", "spill")
+        .addString("bloom_filter", "true")
+        .addLong("bloom_expected_keys", 1_000L)
+        .addDouble("bloom_false_positive_rate", 0.001)
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(personRepository.count()).isEqualTo(3);
+  }
+
+  @Test
+  public void test_jdbc_writer() throws Exception {
+    // given (RepositoryItemWriter 대신 JdbcBatchItemWriter 사용)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .addString("writer_type", "jdbc")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    Assertions.assertThat(jobExecution.getStepExecutions().stream()
+            .mapToInt(StepExecution::getWriteCount)
+            .sum())
+        .isEqualTo(personRepository.count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  void test_upsert_writer_reload() throws Exception {
+    // given (중복을 허용해도 name 기준으로 upsert 하므로 같은 파일을 두 번 적재해도 행이 늘지 않는다)
+    JobParametersBuilder jobParametersBuilder = new JobParametersBuilder()
+        .addString("allow_duplicate", "true")
+        .addString("writer_type", "upsert");
+
+    // when
+    JobExecution first = jobLauncherTestUtils.launchJob(jobParametersBuilder
+        .addLong("run", 1L)
+        .toJobParameters());
+    JobExecution second = jobLauncherTestUtils.launchJob(jobParametersBuilder
+        .addLong("run", 2L)
+        .toJobParameters());
+
+    // then
+    Assertions.assertThat(first.getStepExecutions().stream()
+            .mapToInt(StepExecution::getWriteCount)
+            .sum())
+        .isEqualTo(100);
+    Assertions.assertThat(second.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(personRepository.count()).isEqualTo(3);
+  }
+
+  @Test
+  void test_database_dedup() throws Exception {
+    // given (staging 테이블에 100건을 적재한 뒤 이름별 첫 행만 person으로 옮긴다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .addString("dedup_mode", "database")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then (promotePersonStep의 집계는 DuplicateValidationProcessor를 쓴 savePersonStep과 같다)
+    StepExecution promoteStepExecution = jobExecution.getStepExecutions().stream()
+        .filter(stepExecution -> stepExecution.getStepName().equals("promotePersonStep"))
+        .findFirst()
+        .orElseThrow();
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(promoteStepExecution.getFilterCount()).isEqualTo(97);
+    Assertions.assertThat(promoteStepExecution.getWriteCount())
+        .isEqualTo(personRepository.count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  void test_database_dedup_allow_duplicate() throws Exception {
+    // given (중복을 허용하면 staging의 100건을 모두 person으로 옮긴다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "true")
+        .addString("dedup_mode", "database")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    StepExecution promoteStepExecution = jobExecution.getStepExecutions().stream()
+        .filter(stepExecution -> stepExecution.getStepName().equals("promotePersonStep"))
+        .findFirst()
+        .orElseThrow();
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(promoteStepExecution.getFilterCount()).isZero();
+    Assertions.assertThat(promoteStepExecution.getWriteCount())
+        .isEqualTo(personRepository.count())
+        .isEqualTo(100);
+  }
+
+  @Test
+  void test_external_sort_dedup() throws Exception {
+    // given (sortPersonStep이 파일에서 중복을 지운 뒤 savePersonStep이 읽는다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .addString("dedup_mode", "external_sort")
+        .addString("sort_run_size", "10")
+        .addString("sort_fan_in", "2")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    StepExecution sortStepExecution = jobExecution.getStepExecutions().stream()
+        .filter(stepExecution -> stepExecution.getStepName().equals("sortPersonStep"))
+        .findFirst()
+        .orElseThrow();
+    StepExecution saveStepExecution = jobExecution.getStepExecutions().stream()
+        .filter(stepExecution -> stepExecution.getStepName().equals("savePersonStep"))
+        .findFirst()
+        .orElseThrow();
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(sortStepExecution.getReadCount()).isEqualTo(100);
+    Assertions.assertThat(sortStepExecution.getFilterCount()).isEqualTo(97);
+    Assertions.assertThat(saveStepExecution.getFilterCount()).isZero();
+    Assertions.assertThat(saveStepExecution.getWriteCount())
+        .isEqualTo(personRepository.count())
+        .isEqualTo(3);
+    Assertions.assertThat(Path.of(jobExecution.getExecutionContext()
+        .getString(ExternalSortTasklet.OUTPUT_KEY))).doesNotExist();
+  }
+
+  @Test
+  void test_external_sort_allow_duplicate() throws Exception {
+    // given (중복을 허용하면 sortPersonStep은 정렬만 한다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "true")
+        .addString("dedup_mode", "external_sort")
+        .addString("sort_run_size", "10")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(jobExecution.getStepExecutions().stream()
+            .filter(stepExecution -> stepExecution.getStepName().equals("savePersonStep"))
+            .mapToInt(StepExecution::getWriteCount)
+            .sum())
+        .isEqualTo(personRepository.count())
+        .isEqualTo(100);
+  }
+
+  @Test
+  void test_async_processor() throws Exception {
+    // given (processor를 별도 thread에서 실행해도 중복으로 걸러진 item은 filter로 집계된다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .addString("async", "true")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(stepExecution.getFilterCount()).isEqualTo(97);
+    Assertions.assertThat(stepExecution.getWriteCount())
+        .isEqualTo(personRepository.count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  void test_bulk_processor() throws Exception {
+    // given (검증과 중복 검사를 chunk 단위로 실행해도 결과는 item 단위와 같다)
+    JobParameters jobParameters = new JobParametersBuilder()
+        .addString("allow_duplicate", "false")
+        .addString("processor_mode", "bulk")
+        .toJobParameters();
+
+    // when
+    JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+    // then
+    StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(stepExecution.getReadCount()).isEqualTo(100);
+    Assertions.assertThat(stepExecution.getFilterCount()).isEqualTo(97);
+    Assertions.assertThat(stepExecution.getWriteCount())
+        .isEqualTo(personRepository.count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  void test_metrics() throws Exception {
+    // given (요약이 끝난 meter는 registry에서 지워지므로 지워지는 meter를 모은다)
+    List<Meter> reported = new CopyOnWriteArrayList<>();
+    meterRegistry.config().onMeterRemoved(reported::add);
+    JobParametersBuilder jobParametersBuilder = new JobParametersBuilder()
+        .addString("allow_duplicate", "false");
+
+    // when
+    JobExecution first = jobLauncherTestUtils.launchJob(
+        jobParametersBuilder.addLong("metrics_run", 1L).toJobParameters());
+    personRepository.deleteAll();
+    JobExecution second = jobLauncherTestUtils.launchJob(
+        jobParametersBuilder.addLong("metrics_run", 2L).toJobParameters());
+
+    // then (100건을 chunk 10으로 처리했으므로 chunk마다 timer가 기록되고, 실행마다 따로 집계된다)
+    for (JobExecution jobExecution : List.of(first, second)) {
+      String executionId = String.valueOf(jobExecution.getId());
+      Assertions.assertThat(reported.stream()
+              .filter(meter -> executionId.equals(meter.getId().getTag("execution")))
+              .filter(meter -> meter.getId().getName().equals("save.person.items"))
+              .filter(meter -> "read".equals(meter.getId().getTag("type")))
+              .mapToDouble(meter -> ((Counter) meter).count())
+              .sum())
+          .isEqualTo(100);
+      Assertions.assertThat(reported.stream()
+              .filter(meter -> executionId.equals(meter.getId().getTag("execution")))
+              .filter(meter -> meter.getId().getName().equals("save.person.chunk.write"))
+              .mapToLong(meter -> ((Timer) meter).count())
+              .sum())
+          .isGreaterThanOrEqualTo(10);
+    }
+    Assertions.assertThat(meterRegistry.getMeters())
+        .noneMatch(meter -> reported.stream().map(Meter::getId).anyMatch(meter.getId()::equals));
+  }
+
   @Test
   void test_step() {
     // JobParameter가 없으면 Boolean.parseBoolean은 false를 동작
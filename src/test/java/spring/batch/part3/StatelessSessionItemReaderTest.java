@@ -0,0 +1,99 @@
+package spring.batch.part3;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.database.builder.JpaCursorItemReaderBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+/**
+ * person.sql로 만든 데이터를 JpaCursorItemReader와 같은 결과로 읽는지 확인한다.
+ */
+public class StatelessSessionItemReaderTest {
+
+  private EmbeddedDatabase dataSource;
+  private EntityManagerFactory entityManagerFactory;
+
+  @BeforeEach
+  public void setUp() {
+    dataSource = new EmbeddedDatabaseBuilder()
+        .setType(EmbeddedDatabaseType.H2)
+        .generateUniqueName(true)
+        .setScriptEncoding("UTF-8")
+        .addScript("classpath:person.sql")
+        .build();
+
+    LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+    factoryBean.setDataSource(dataSource);
+    factoryBean.setPackagesToScan("spring.batch.part3");
+    factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+    factoryBean.afterPropertiesSet();
+    entityManagerFactory = factoryBean.getObject();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    entityManagerFactory.close();
+    dataSource.shutdown();
+  }
+
+  @Test
+  void test_same_result_as_jpa_cursor_reader() throws Exception {
+    // given
+    ItemStreamReader<Person> jpaCursorItemReader = new JpaCursorItemReaderBuilder<Person>()
+        .name("jpaCursorItemReader")
+        .entityManagerFactory(entityManagerFactory)
+        .queryString("select p from Person p order by p.id")
+        .build();
+    ItemStreamReader<Person> statelessItemReader = ItemReaderConfiguration.statelessItemReader(
+        entityManagerFactory, 2);
+
+    // when
+    List<Person> expected = readAll(jpaCursorItemReader, new ExecutionContext());
+    List<Person> actual = readAll(statelessItemReader, new ExecutionContext());
+
+    // then
+    Assertions.assertThat(actual).hasSize(3).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  void test_restart_from_read_count() throws Exception {
+    // given (1개를 읽고 커밋한 뒤 실패)
+    ExecutionContext executionContext = new ExecutionContext();
+    ItemStreamReader<Person> itemReader = ItemReaderConfiguration.statelessItemReader(
+        entityManagerFactory, 2);
+    itemReader.open(executionContext);
+    itemReader.read();
+    itemReader.update(executionContext);
+    itemReader.close();
+
+    // when
+    List<Person> remaining = readAll(ItemReaderConfiguration.statelessItemReader(
+        entityManagerFactory, 2), executionContext);
+
+    // then
+    Assertions.assertThat(remaining).extracting(Person::getName).containsExactly("짱구", "상디");
+  }
+
+  private List<Person> readAll(ItemStreamReader<Person> itemReader,
+      ExecutionContext executionContext) throws Exception {
+    List<Person> items = new ArrayList<>();
+    itemReader.open(executionContext);
+    Person person;
+    while ((person = itemReader.read()) != null) {
+      items.add(person);
+    }
+    itemReader.close();
+    return items;
+  }
+}
@@ -0,0 +1,129 @@
+package spring.batch.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.builder.SimpleJobBuilder;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import spring.batch.repository.BufferedJobRepositoryInterceptor.Mode;
+
+public class BufferedJobRepositoryInterceptorTest {
+
+  private EmbeddedDatabase dataSource;
+  private DataSourceTransactionManager transactionManager;
+
+  @BeforeEach
+  public void setUp() {
+    dataSource = new EmbeddedDatabaseBuilder()
+        .setType(EmbeddedDatabaseType.H2)
+        .generateUniqueName(true)
+        .addScript("/org/springframework/batch/core/schema-h2.sql")
+        .build();
+    transactionManager = new DataSourceTransactionManager(dataSource);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    dataSource.shutdown();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void test_step_execution_written_at_end(Mode mode) throws Exception {
+    // given (flush 주기가 step보다 길어서 중간 갱신은 기록되지 않는다)
+    JobRepositoryFactoryBean factoryBean = new JobRepositoryFactoryBean();
+    factoryBean.setDataSource(dataSource);
+    factoryBean.setTransactionManager(transactionManager);
+    factoryBean.afterPropertiesSet();
+    JobRepository jobRepository = jobRepository(mode);
+    List<Long> commitCountsWhileRunning = new ArrayList<>();
+    Job job = job("bufferedJob", jobRepository, commitCountsWhileRunning).preventRestart()
+        .build();
+
+    // when
+    JobExecution jobExecution = run(jobRepository, job, mode);
+
+    // then
+    StepExecution stepExecution = jobRepository.getLastStepExecution(
+        jobExecution.getJobInstance(), "bufferedStep");
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(commitCountsWhileRunning).hasSize(10).containsOnly(0L);
+    Assertions.assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(stepExecution.getReadCount()).isEqualTo(95);
+    Assertions.assertThat(stepExecution.getWriteCount()).isEqualTo(95);
+    Assertions.assertThat(stepExecution.getCommitCount()).isEqualTo(10);
+    ((AutoCloseable) jobRepository).close();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Mode.class)
+  void test_restartable_job_written_every_chunk(Mode mode) throws Exception {
+    // given (재시작할 수 있는 job은 버퍼링하지 않는다)
+    JobRepository jobRepository = jobRepository(mode);
+    List<Long> commitCountsWhileRunning = new ArrayList<>();
+    Job job = job("restartableJob", jobRepository, commitCountsWhileRunning).build();
+
+    // when
+    JobExecution jobExecution = run(jobRepository, job, mode);
+
+    // then (chunk마다 커밋 수가 바로 기록된다)
+    Assertions.assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+    Assertions.assertThat(commitCountsWhileRunning)
+        .containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+    ((AutoCloseable) jobRepository).close();
+  }
+
+  /**
+   * JobRepositoryConfiguration처럼 재시작할 수 없는 job(bufferedJob)만 버퍼링한다.
+   */
+  private JobRepository jobRepository(Mode mode) throws Exception {
+    JobRepositoryFactoryBean factoryBean = new JobRepositoryFactoryBean();
+    factoryBean.setDataSource(dataSource);
+    factoryBean.setTransactionManager(transactionManager);
+    factoryBean.afterPropertiesSet();
+    return BufferedJobRepositoryInterceptor.proxy(factoryBean.getObject(), mode,
+        Duration.ofHours(1), "bufferedJob"::equals);
+  }
+
+  private SimpleJobBuilder job(String name, JobRepository jobRepository,
+      List<Long> commitCountsWhileRunning) {
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    return new JobBuilder(name, jobRepository)
+        .start(new StepBuilder("bufferedStep", jobRepository)
+            .<Integer, Integer>chunk(10, transactionManager)
+            .reader(new ListItemReader<>(IntStream.range(0, 95).boxed().toList()))
+            .writer(items -> commitCountsWhileRunning.add(jdbcTemplate.queryForObject(
+                "select commit_count from batch_step_execution", Long.class)))
+            .build());
+  }
+
+  private JobExecution run(JobRepository jobRepository, Job job, Mode mode) throws Exception {
+    TaskExecutorJobLauncher jobLauncher = new TaskExecutorJobLauncher();
+    jobLauncher.setJobRepository(jobRepository);
+    jobLauncher.afterPropertiesSet();
+    return jobLauncher.run(job, new JobParametersBuilder()
+        .addString("mode", mode.name())
+        .toJobParameters());
+  }
+}
@@ -0,0 +1,50 @@
+package spring.batch.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+public class ChangedExecutionContextInterceptorTest {
+
+  @Test
+  void test_skip_unchanged_execution_context() {
+    // given
+    JobRepository delegate = Mockito.mock(JobRepository.class);
+    JobRepository jobRepository = ChangedExecutionContextInterceptor.proxy(delegate);
+    StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+    // when
+    stepExecution.getExecutionContext().putLong("read.count", 10);
+    jobRepository.updateExecutionContext(stepExecution);
+    stepExecution.getExecutionContext().putLong("read.count", 10); // 같은 값
+    jobRepository.updateExecutionContext(stepExecution);
+    stepExecution.getExecutionContext().putLong("read.count", 20);
+    jobRepository.updateExecutionContext(stepExecution);
+    jobRepository.update(stepExecution);
+
+    // then
+    Mockito.verify(delegate, Mockito.times(2)).updateExecutionContext(stepExecution);
+    Mockito.verify(delegate).update(stepExecution);
+  }
+
+  @Test
+  void test_persist_removal_only_change() {
+    // given
+    JobRepository delegate = Mockito.mock(JobRepository.class);
+    JobRepository jobRepository = ChangedExecutionContextInterceptor.proxy(delegate);
+    StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+    stepExecution.getExecutionContext().putLong("read.count", 10);
+    stepExecution.getExecutionContext().putString("unacked", "1");
+    jobRepository.updateExecutionContext(stepExecution);
+
+    // when (remove는 dirty로 표시하지 않는다)
+    stepExecution.getExecutionContext().remove("unacked");
+    jobRepository.updateExecutionContext(stepExecution);
+    jobRepository.updateExecutionContext(stepExecution);
+
+    // then (key가 지워진 첫 갱신은 기록하고, 그 다음은 건너뛴다)
+    Mockito.verify(delegate, Mockito.times(2)).updateExecutionContext(stepExecution);
+  }
+}
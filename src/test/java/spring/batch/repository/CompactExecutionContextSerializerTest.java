@@ -0,0 +1,97 @@
+package spring.batch.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.DefaultExecutionContextSerializer;
+
+public class CompactExecutionContextSerializerTest {
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void test_round_trip(boolean compress) throws Exception {
+    // given
+    Map<String, Object> context = context();
+    CompactExecutionContextSerializer serializer = new CompactExecutionContextSerializer(compress);
+
+    // when
+    String serialized = serialize(serializer, context);
+    Map<String, Object> deserialized = deserialize(serializer, serialized);
+
+    // then
+    Assertions.assertThat(serialized).startsWith(CompactExecutionContextSerializer.PREFIX);
+    Assertions.assertThat(deserialized).usingRecursiveComparison().isEqualTo(context);
+    Assertions.assertThat(deserialized.get("int")).isInstanceOf(Integer.class);
+    Assertions.assertThat(deserialized.get("long")).isInstanceOf(Long.class);
+  }
+
+  @Test
+  void test_read_context_written_by_default_serializer() throws Exception {
+    // given (기존 메타데이터 테이블에 남아 있는 값)
+    Map<String, Object> context = context();
+    String serialized = serialize(new DefaultExecutionContextSerializer(), context);
+
+    // when
+    Map<String, Object> deserialized = deserialize(new CompactExecutionContextSerializer(true),
+        serialized);
+
+    // then
+    Assertions.assertThat(deserialized).usingRecursiveComparison().isEqualTo(context);
+  }
+
+  @Test
+  void test_smaller_than_default_serializer() throws Exception {
+    // given
+    Map<String, Object> context = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      context.put("partition" + i + ".read.count", (long) i);
+    }
+
+    // when
+    int compact = serialize(new CompactExecutionContextSerializer(false), context).length();
+    int compressed = serialize(new CompactExecutionContextSerializer(true), context).length();
+    int standard = serialize(new DefaultExecutionContextSerializer(), context).length();
+
+    // then
+    Assertions.assertThat(compact).isLessThan(standard);
+    Assertions.assertThat(compressed).isLessThan(compact);
+  }
+
+  private static Map<String, Object> context() {
+    Map<String, Object> context = new HashMap<>();
+    context.put("string", "job execution context");
+    context.put("korean", "한성민");
+    context.put("int", -42);
+    context.put("long", Long.MAX_VALUE);
+    context.put("double", 0.5);
+    context.put("boolean", true);
+    context.put("date", new Date(1_700_000_000_000L));
+    context.put("bytes", new byte[]{1, 2, 3});
+    context.put("localDate", LocalDate.of(2024, 1, 1));
+    context.put("list", new ArrayList<>(List.of("a", "b")));
+    context.put("large", "x".repeat(70_000));
+    return context;
+  }
+
+  private static String serialize(ExecutionContextSerializer serializer,
+      Map<String, Object> context) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.serialize(context, output);
+    return output.toString();
+  }
+
+  private static Map<String, Object> deserialize(ExecutionContextSerializer serializer,
+      String serialized) throws Exception {
+    return serializer.deserialize(new ByteArrayInputStream(serialized.getBytes()));
+  }
+}